@@ -31,6 +31,7 @@ public class Runner implements AutoCloseable {
   public void startPfmMainLoop() {
     try {
       logger.info("Starting Pfm (Portfolio Manager) main loop");
+      adelieController.start();
       logger.info("Pfm main loop is up.");
     } catch (final Exception ex) {
       logger.error("unable to start main loop", ex);
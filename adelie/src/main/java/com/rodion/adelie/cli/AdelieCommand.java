@@ -8,20 +8,28 @@ import com.rodion.adelie.Runner;
 import com.rodion.adelie.RunnerBuilder;
 import com.rodion.adelie.cli.options.stable.DataStorageOptions;
 import com.rodion.adelie.cli.options.stable.LoggingLevelOption;
+import com.rodion.adelie.cli.options.stable.MetricsOptions;
+import com.rodion.adelie.cli.subcommands.ImportSubCommand;
 import com.rodion.adelie.cli.subcommands.MarketDataSubCommand;
 import com.rodion.adelie.component.AdelieComponent;
 import com.rodion.adelie.controller.AdelieController;
 import com.rodion.adelie.controller.AdelieControllerBuilder;
+import com.rodion.adelie.metrics.MetricsConfiguration;
+import com.rodion.adelie.metrics.MetricsHttpService;
 import com.rodion.adelie.pfm.blotter.DataStorageConfiguration;
 import com.rodion.adelie.pfm.storage.keyvalue.KeyValueStorageProvider;
 import com.rodion.adelie.pfm.storage.keyvalue.KeyValueStorageProviderBuilder;
+import com.rodion.adelie.pfm.taxlot.LotMatchingMethod;
+import com.rodion.adelie.plugin.services.MetricsSystem;
 import com.rodion.adelie.plugin.services.PicoCLIOptions;
 import com.rodion.adelie.plugin.services.StorageService;
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBPlugin;
 import com.rodion.adelie.services.*;
+import com.rodion.adelie.services.kvstore.InMemoryStoragePlugin;
 import com.rodion.adelie.util.LogConfigurator;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import org.slf4j.Logger;
@@ -59,6 +67,7 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
 
   // Stable CLI Options
   final DataStorageOptions dataStorageOptions = DataStorageOptions.create();
+  final MetricsOptions metricsOptions = MetricsOptions.create();
 
   private final AdeliePluginContextImpl adeliePluginContext;
   private final StorageServiceImpl storageService;
@@ -69,8 +78,11 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
   private AdelieController adelieController;
   private DataStorageConfiguration dataStorageConfiguration;
   private final MarketDataServiceImpl marketDataService;
+  private final MetricsSystemImpl metricsSystem;
+  private MetricsHttpService metricsHttpService;
 
   private RocksDBPlugin rocksDBPlugin;
+  private InMemoryStoragePlugin inMemoryStoragePlugin;
 
   @CommandLine.Option(
       names = {"--data-path"},
@@ -81,10 +93,19 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
   @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"}) // PicoCLI requires non-final Strings.
   @CommandLine.Option(
       names = {"--key-value-storage"},
-      description = "Identity for the key-value storage to be used.",
+      description =
+          "Identity for the key-value storage to be used, rocksdb or memory (default: ${DEFAULT-VALUE})",
       arity = "1")
   private String keyValueStorageName = DEFAULT_KEY_VALUE_STORAGE_NAME;
 
+  @CommandLine.Option(
+      names = {"--tax-lot-method"},
+      paramLabel = "<METHOD>",
+      description =
+          "How sells are matched against open tax lots, one of ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private LotMatchingMethod lotMatchingMethod = LotMatchingMethod.FIFO;
+
   private final AdelieComponent adelieComponent;
 
   /**
@@ -131,6 +152,7 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
     this.pluginCommonConfiguration = new AdelieConfigurationImpl();
     this.runnerBuilder = runnerBuilder;
     this.storageService = storageServiceImpl;
+    this.metricsSystem = new MetricsSystemImpl();
 
     logger.info("Successfully loaded Adélie Portfolio Manager command");
   }
@@ -161,9 +183,12 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
   private void preparePlugins() {
     adeliePluginContext.addService(PicoCLIOptions.class, new PicoCLIOptionsImpl(commandLine));
     adeliePluginContext.addService(StorageService.class, storageService);
+    adeliePluginContext.addService(MetricsSystem.class, metricsSystem);
 
     rocksDBPlugin = new RocksDBPlugin();
     rocksDBPlugin.register(adeliePluginContext);
+    inMemoryStoragePlugin = new InMemoryStoragePlugin();
+    inMemoryStoragePlugin.register(adeliePluginContext);
 
     adeliePluginContext.registerPlugins(pluginsDir());
   }
@@ -178,8 +203,13 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
       configureLogging(true);
       logger.info("Starting Adélie Portfolio Manager");
       adelieController = buildController(); // add reference to kv storage
+      marketDataService.init(
+          adelieController.getTimeSeriesStorage(),
+          adelieController.getLatestQuoteCache(),
+          adelieController.getBarAggregator());
       var runner = buildRunner();
       startPlugins();
+      startMetrics();
       runner.startPfmMainLoop();
       runner.awaitStop();
     } catch (final Exception e) {
@@ -195,6 +225,8 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
   private void addSubCommands(final InputStream in) {
     commandLine.addSubcommand(
         MarketDataSubCommand.COMMAND_NAME, new MarketDataSubCommand(commandLine.getOut()));
+    commandLine.addSubcommand(
+        ImportSubCommand.COMMAND_NAME, new ImportSubCommand(commandLine.getOut()));
   }
 
   private Path pluginsDir() {
@@ -226,6 +258,8 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
 
   private void handleStableOptions() {
     commandLine.addMixin("Logging level", loggingLevelOption);
+    commandLine.addMixin("Metrics", metricsOptions);
+    commandLine.addMixin("Data Storage Options", dataStorageOptions);
   }
 
   /**
@@ -252,7 +286,11 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
     pluginCommonConfiguration.init(
         dataDir(), dataDir().resolve(DATABASE_PATH), getDataStorageConfiguration());
     final KeyValueStorageProvider storageProvider = keyValueStorageProvider(keyValueStorageName);
-    return controllerBuilderFactory.dataDirectory(dataDir()).storageProvider(storageProvider);
+    return controllerBuilderFactory
+        .dataDirectory(dataDir())
+        .storageProvider(storageProvider)
+        .dataStorageConfiguration(getDataStorageConfiguration())
+        .lotMatchingMethod(lotMatchingMethod);
   }
 
   private DataStorageConfiguration getDataStorageConfiguration() {
@@ -283,6 +321,7 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
                               new StorageException(
                                   "No KeyValueStorageFactory found for key: " + name)))
               .withCommonConfiguration(pluginCommonConfiguration)
+              .withMetricsSystem(metricsSystem)
               .build();
     }
     return this.keyValueStorageProvider;
@@ -304,6 +343,7 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
                 () -> {
                   try {
                     logger.info("Shutdown triggered");
+                    stopMetrics();
                     adeliePluginContext.stopPlugins();
                     runner.close();
                     LogConfigurator.shutdown();
@@ -317,4 +357,18 @@ public class AdelieCommand implements DefaultCommandValues, Runnable {
   private void startPlugins() {
     adeliePluginContext.startPlugins();
   }
+
+  private void startMetrics() throws IOException {
+    final MetricsConfiguration metricsConfiguration = metricsOptions.toDomainObject();
+    if (metricsConfiguration.enabled()) {
+      metricsHttpService = new MetricsHttpService(metricsConfiguration, metricsSystem);
+      metricsHttpService.start();
+    }
+  }
+
+  private void stopMetrics() {
+    if (metricsHttpService != null) {
+      metricsHttpService.stop();
+    }
+  }
 }
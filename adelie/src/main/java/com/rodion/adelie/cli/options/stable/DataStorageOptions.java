@@ -28,7 +28,39 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
   private final DataStorageOptions.Unstable unstableOptions = new Unstable();
 
   /** The unstable options for data storage. */
-  public static class Unstable {}
+  public static class Unstable {
+    private static final String GROUP_COMMIT_ENABLED = "--Xblotter-group-commit-enabled";
+    private static final String GROUP_COMMIT_WINDOW_MILLIS =
+        "--Xblotter-group-commit-window-millis";
+    private static final String GROUP_COMMIT_MAX_BATCH_SIZE =
+        "--Xblotter-group-commit-max-batch-size";
+
+    @Option(
+        names = {GROUP_COMMIT_ENABLED},
+        hidden = true,
+        arity = "1",
+        description =
+            "Coalesce concurrent blotter writes into batches synced to disk once (default: ${DEFAULT-VALUE})")
+    private boolean groupCommitEnabled =
+        DataStorageConfiguration.Unstable.DEFAULT_GROUP_COMMIT_ENABLED;
+
+    @Option(
+        names = {GROUP_COMMIT_WINDOW_MILLIS},
+        hidden = true,
+        paramLabel = "<LONG>",
+        description =
+            "Milliseconds to wait for more blotter writes after the first write of a batch (default: ${DEFAULT-VALUE})")
+    private long groupCommitWindowMillis =
+        DataStorageConfiguration.Unstable.DEFAULT_GROUP_COMMIT_WINDOW_MILLIS;
+
+    @Option(
+        names = {GROUP_COMMIT_MAX_BATCH_SIZE},
+        hidden = true,
+        paramLabel = "<INTEGER>",
+        description = "Maximum number of blotter writes in a batch (default: ${DEFAULT-VALUE})")
+    private int groupCommitMaxBatchSize =
+        DataStorageConfiguration.Unstable.DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE;
+  }
 
   /**
    * Create data storage options.
@@ -48,6 +80,12 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
   public static DataStorageOptions fromConfig(final DataStorageConfiguration domainObject) {
     final DataStorageOptions dataStorageOptions = DataStorageOptions.create();
     dataStorageOptions.dataStorageFormat = domainObject.getDataStorageFormat();
+    dataStorageOptions.unstableOptions.groupCommitEnabled =
+        domainObject.getUnstable().getGroupCommitEnabled();
+    dataStorageOptions.unstableOptions.groupCommitWindowMillis =
+        domainObject.getUnstable().getGroupCommitWindowMillis();
+    dataStorageOptions.unstableOptions.groupCommitMaxBatchSize =
+        domainObject.getUnstable().getGroupCommitMaxBatchSize();
 
     return dataStorageOptions;
   }
@@ -56,7 +94,12 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
   public DataStorageConfiguration toDomainObject() {
     return ImmutableDataStorageConfiguration.builder()
         .dataStorageFormat(dataStorageFormat)
-        .unstable(ImmutableDataStorageConfiguration.Unstable.builder().build())
+        .unstable(
+            ImmutableDataStorageConfiguration.Unstable.builder()
+                .groupCommitEnabled(unstableOptions.groupCommitEnabled)
+                .groupCommitWindowMillis(unstableOptions.groupCommitWindowMillis)
+                .groupCommitMaxBatchSize(unstableOptions.groupCommitMaxBatchSize)
+                .build())
         .build();
   }
 
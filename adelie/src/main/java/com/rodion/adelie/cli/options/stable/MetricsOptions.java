@@ -0,0 +1,56 @@
+package com.rodion.adelie.cli.options.stable;
+
+import com.rodion.adelie.cli.options.CLIOptions;
+import com.rodion.adelie.cli.util.CommandLineUtils;
+import com.rodion.adelie.metrics.MetricsConfiguration;
+import java.util.List;
+import picocli.CommandLine.Option;
+
+/** The Metrics CLI options. */
+public class MetricsOptions implements CLIOptions<MetricsConfiguration> {
+
+  /** The default host of the metrics endpoint. */
+  public static final String DEFAULT_METRICS_HOST = "127.0.0.1";
+
+  /** The default port of the metrics endpoint. */
+  public static final int DEFAULT_METRICS_PORT = 9545;
+
+  @Option(
+      names = {"--metrics-enabled"},
+      description = "Set to start the metrics scrape endpoint (default: ${DEFAULT-VALUE})")
+  private Boolean metricsEnabled = false;
+
+  @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"}) // PicoCLI requires non-final Strings.
+  @Option(
+      names = {"--metrics-host"},
+      paramLabel = "<HOST>",
+      description = "Host for the metrics scrape endpoint to listen on (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private String metricsHost = DEFAULT_METRICS_HOST;
+
+  @Option(
+      names = {"--metrics-port"},
+      paramLabel = "<PORT>",
+      description = "Port for the metrics scrape endpoint to listen on (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private Integer metricsPort = DEFAULT_METRICS_PORT;
+
+  /**
+   * Create metrics options.
+   *
+   * @return the metrics options
+   */
+  public static MetricsOptions create() {
+    return new MetricsOptions();
+  }
+
+  @Override
+  public MetricsConfiguration toDomainObject() {
+    return new MetricsConfiguration(metricsEnabled, metricsHost, metricsPort);
+  }
+
+  @Override
+  public List<String> getCLIOptions() {
+    return CommandLineUtils.getCLIOptions(this, new MetricsOptions());
+  }
+}
@@ -0,0 +1,119 @@
+package com.rodion.adelie.cli.subcommands;
+
+import static com.rodion.adelie.cli.subcommands.ImportSubCommand.COMMAND_NAME;
+
+import com.rodion.adelie.cli.AdelieCommand;
+import com.rodion.adelie.controller.AdelieController;
+import com.rodion.adelie.pfm.trade.TradeFileFormat;
+import com.rodion.adelie.pfm.trade.TradeImporter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import picocli.CommandLine;
+
+/** Import subcommand, bulk loads broker trade files into the blotter */
+@CommandLine.Command(
+    name = COMMAND_NAME,
+    description = "Import trades from broker CSV or JSON lines files",
+    mixinStandardHelpOptions = true)
+public class ImportSubCommand implements Runnable {
+
+  /** The constant COMMAND_NAME. */
+  public static final String COMMAND_NAME = "import";
+
+  private final PrintWriter out;
+
+  @SuppressWarnings("unused")
+  @CommandLine.ParentCommand
+  private AdelieCommand parentCommand;
+
+  @SuppressWarnings("unused")
+  @CommandLine.Spec
+  private CommandLine.Model.CommandSpec spec;
+
+  @CommandLine.Parameters(
+      arity = "1..*",
+      paramLabel = "<FILE>",
+      description = "Trade files, imported in the order given")
+  private List<Path> files;
+
+  @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"}) // PicoCLI requires non-final fields.
+  @CommandLine.Option(
+      names = {"--format"},
+      paramLabel = "<FORMAT>",
+      description =
+          "File format, one of ${COMPLETION-CANDIDATES} (default: guessed from the file extension)",
+      arity = "1")
+  private TradeFileFormat format = null;
+
+  @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"}) // PicoCLI requires non-final fields.
+  @CommandLine.Option(
+      names = {"--batch-size"},
+      paramLabel = "<INTEGER>",
+      description = "Number of trades written in one batch (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private int batchSize = TradeImporter.DEFAULT_BATCH_SIZE;
+
+  @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"}) // PicoCLI requires non-final fields.
+  @CommandLine.Option(
+      names = {"--parallelism"},
+      paramLabel = "<INTEGER>",
+      description = "Number of threads parsing trade files (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Instantiates a new Import sub command.
+   *
+   * @param out the PrintWriter where the import results will be reported.
+   */
+  public ImportSubCommand(final PrintWriter out) {
+    this.out = out;
+  }
+
+  @Override
+  public void run() {
+    if (batchSize <= 0 || parallelism <= 0) {
+      throw new CommandLine.ParameterException(
+          spec.commandLine(), "--batch-size and --parallelism must be positive");
+    }
+    final AdelieController controller = parentCommand.buildController();
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      controller.start();
+      final TradeImporter importer = new TradeImporter(controller.getBlotter(), pool, batchSize);
+      int imported = 0;
+      for (final Path file : files) {
+        final int count = importer.importFile(file, formatOf(file));
+        out.printf("Imported %d trades from %s%n", count, file);
+        imported += count;
+      }
+      out.printf("Imported %d trades in total%n", imported);
+    } catch (final IOException | IllegalArgumentException e) {
+      throw new CommandLine.ExecutionException(
+          spec.commandLine(), "Trade import failed: " + e.getMessage(), e);
+    } finally {
+      pool.shutdown();
+      controller.close();
+      try {
+        controller.getStorageProvider().close();
+      } catch (final IOException e) {
+        out.println("Unable to close storage: " + e.getMessage());
+      }
+    }
+  }
+
+  private TradeFileFormat formatOf(final Path file) {
+    if (format != null) {
+      return format;
+    }
+    return TradeFileFormat.fromPath(file)
+        .orElseThrow(
+            () ->
+                new CommandLine.ParameterException(
+                    spec.commandLine(),
+                    "Cannot tell the format of " + file + ", set it with --format"));
+  }
+}
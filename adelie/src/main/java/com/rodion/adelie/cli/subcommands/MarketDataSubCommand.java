@@ -2,7 +2,14 @@ package com.rodion.adelie.cli.subcommands;
 
 import static com.rodion.adelie.cli.subcommands.MarketDataSubCommand.COMMAND_NAME;
 
+import com.rodion.adelie.cli.AdelieCommand;
+import com.rodion.adelie.controller.AdelieController;
+import com.rodion.adelie.pfm.marketdata.PriceHistoryLoader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import picocli.CommandLine;
 
 /** Market Data subcommand */
@@ -10,7 +17,8 @@ import picocli.CommandLine;
     name = COMMAND_NAME,
     aliases = {"md"},
     description = "Fetch market data related queries",
-    mixinStandardHelpOptions = true)
+    mixinStandardHelpOptions = true,
+    subcommands = {MarketDataSubCommand.LoadSubCommand.class})
 public class MarketDataSubCommand implements Runnable {
 
   /** The constant COMMAND_NAME. */
@@ -18,6 +26,10 @@ public class MarketDataSubCommand implements Runnable {
 
   private final PrintWriter out;
 
+  @SuppressWarnings("unused")
+  @CommandLine.ParentCommand
+  private AdelieCommand parentCommand;
+
   /**
    * Instantiates a new MarketData sub command.
    *
@@ -31,4 +43,86 @@ public class MarketDataSubCommand implements Runnable {
   public void run() {
     out.println("Market data invoked");
   }
+
+  /**
+   * Load subcommand, bulk loads price history files into the market data storage. The command opens
+   * the database itself, so the node using the data directory must be stopped.
+   */
+  @CommandLine.Command(
+      name = "load",
+      description = {
+        "Bulk load price history from CSV files with ticker, timestamp and price columns",
+        "The database is opened directly, stop the node using the data directory first"
+      },
+      mixinStandardHelpOptions = true)
+  static class LoadSubCommand implements Runnable {
+
+    @SuppressWarnings("unused")
+    @CommandLine.ParentCommand
+    private MarketDataSubCommand parentCommand;
+
+    @SuppressWarnings("unused")
+    @CommandLine.Spec
+    private CommandLine.Model.CommandSpec spec;
+
+    @CommandLine.Parameters(
+        arity = "1..*",
+        paramLabel = "<FILE>",
+        description = "Price history files, in any order")
+    private List<Path> files;
+
+    @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"}) // PicoCLI requires non-final fields.
+    @CommandLine.Option(
+        names = {"--run-size"},
+        paramLabel = "<INTEGER>",
+        description =
+            "Number of ticks sorted in memory before spilling to disk (default: ${DEFAULT-VALUE})",
+        arity = "1")
+    private int runSize = PriceHistoryLoader.DEFAULT_RUN_SIZE;
+
+    @Override
+    public void run() {
+      if (runSize <= 0) {
+        throw new CommandLine.ParameterException(spec.commandLine(), "--run-size must be positive");
+      }
+      final AdelieCommand adelieCommand = parentCommand.parentCommand;
+      final AdelieController controller;
+      try {
+        controller = adelieCommand.buildController();
+      } catch (final RuntimeException e) {
+        throw new CommandLine.ExecutionException(
+            spec.commandLine(),
+            "Unable to open the database, stop the node using "
+                + adelieCommand.dataDir()
+                + " before loading: "
+                + e.getMessage(),
+            e);
+      }
+      Path tempDirectory = null;
+      try {
+        tempDirectory = Files.createTempDirectory(adelieCommand.dataDir(), "price-load");
+        final long loaded =
+            new PriceHistoryLoader(
+                    controller.getTimeSeriesStorage(),
+                    controller.getBarAggregator(),
+                    tempDirectory,
+                    runSize)
+                .load(files);
+        spec.commandLine().getOut().printf("Loaded %d price ticks%n", loaded);
+      } catch (final IOException | IllegalArgumentException e) {
+        throw new CommandLine.ExecutionException(
+            spec.commandLine(), "Price history load failed: " + e.getMessage(), e);
+      } finally {
+        controller.close();
+        try {
+          controller.getStorageProvider().close();
+          if (tempDirectory != null) {
+            Files.deleteIfExists(tempDirectory);
+          }
+        } catch (final IOException e) {
+          spec.commandLine().getOut().println("Unable to clean up: " + e.getMessage());
+        }
+      }
+    }
+  }
 }
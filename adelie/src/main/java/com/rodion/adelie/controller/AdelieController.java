@@ -1,7 +1,13 @@
 package com.rodion.adelie.controller;
 
 import com.rodion.adelie.pfm.blotter.Blotter;
+import com.rodion.adelie.pfm.marketdata.BarAggregator;
+import com.rodion.adelie.pfm.marketdata.LatestQuoteCache;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.pfm.position.PositionEngine;
 import com.rodion.adelie.pfm.storage.keyvalue.StorageProvider;
+import com.rodion.adelie.pfm.taxlot.TaxLotEngine;
+import com.rodion.adelie.pfm.valuation.PortfolioValuer;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
@@ -13,6 +19,12 @@ public class AdelieController implements java.io.Closeable {
   private final StorageProvider storageProvider;
   private final List<Closeable> closeables;
   private final Blotter blotter;
+  private final PositionEngine positionEngine;
+  private final TaxLotEngine taxLotEngine;
+  private final TimeSeriesStorage timeSeriesStorage;
+  private final LatestQuoteCache latestQuoteCache;
+  private final BarAggregator barAggregator;
+  private final PortfolioValuer portfolioValuer;
 
   /**
    * Instantiates a new Adelie controller.
@@ -20,14 +32,41 @@ public class AdelieController implements java.io.Closeable {
    * @param closeables list of closeables
    * @param storageProvider the storage provider
    * @param blotter blotter service
+   * @param positionEngine position engine fed by the blotter
+   * @param taxLotEngine tax lot engine fed by the blotter
+   * @param timeSeriesStorage price history storage
+   * @param latestQuoteCache latest price of each ticker
+   * @param barAggregator bars of each ticker
+   * @param portfolioValuer portfolio valuation, live or against a storage snapshot
    */
   AdelieController(
       final List<Closeable> closeables,
       final StorageProvider storageProvider,
-      final Blotter blotter) {
+      final Blotter blotter,
+      final PositionEngine positionEngine,
+      final TaxLotEngine taxLotEngine,
+      final TimeSeriesStorage timeSeriesStorage,
+      final LatestQuoteCache latestQuoteCache,
+      final BarAggregator barAggregator,
+      final PortfolioValuer portfolioValuer) {
     this.closeables = closeables;
     this.storageProvider = storageProvider;
     this.blotter = blotter;
+    this.positionEngine = positionEngine;
+    this.taxLotEngine = taxLotEngine;
+    this.timeSeriesStorage = timeSeriesStorage;
+    this.latestQuoteCache = latestQuoteCache;
+    this.barAggregator = barAggregator;
+    this.portfolioValuer = portfolioValuer;
+  }
+
+  /** Start the services, positions and tax lots are loaded before the blotter accepts writes. */
+  public void start() {
+    latestQuoteCache.start();
+    barAggregator.start();
+    positionEngine.start();
+    taxLotEngine.start();
+    blotter.start();
   }
 
   /**
@@ -39,8 +78,86 @@ public class AdelieController implements java.io.Closeable {
     return storageProvider;
   }
 
+  /**
+   * Get the blotter
+   *
+   * @return the blotter
+   */
+  public Blotter getBlotter() {
+    return blotter;
+  }
+
+  /**
+   * Get the position engine
+   *
+   * @return the position engine
+   */
+  public PositionEngine getPositionEngine() {
+    return positionEngine;
+  }
+
+  /**
+   * Get the tax lot engine
+   *
+   * @return the tax lot engine
+   */
+  public TaxLotEngine getTaxLotEngine() {
+    return taxLotEngine;
+  }
+
+  /**
+   * Get the time series storage
+   *
+   * @return the time series storage
+   */
+  public TimeSeriesStorage getTimeSeriesStorage() {
+    return timeSeriesStorage;
+  }
+
+  /**
+   * Get the latest quote cache
+   *
+   * @return the latest quote cache
+   */
+  public LatestQuoteCache getLatestQuoteCache() {
+    return latestQuoteCache;
+  }
+
+  /**
+   * Get the bar aggregator
+   *
+   * @return the bar aggregator
+   */
+  public BarAggregator getBarAggregator() {
+    return barAggregator;
+  }
+
+  /**
+   * Get the portfolio valuer
+   *
+   * @return the portfolio valuer
+   */
+  public PortfolioValuer getPortfolioValuer() {
+    return portfolioValuer;
+  }
+
   @Override
   public void close() {
+    blotter.stop();
+    try {
+      blotter.awaitStop();
+    } catch (final InterruptedException e) {
+      logger.debug("Interrupted while stopping the blotter", e);
+      Thread.currentThread().interrupt();
+    }
+    positionEngine.stop();
+    taxLotEngine.stop();
+    try {
+      latestQuoteCache.stop();
+    } catch (final InterruptedException e) {
+      logger.debug("Interrupted while flushing the latest quotes", e);
+      Thread.currentThread().interrupt();
+    }
     closeables.forEach(this::tryClose);
   }
 
@@ -4,9 +4,20 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.rodion.adelie.component.AdelieComponent;
 import com.rodion.adelie.pfm.blotter.Blotter;
+import com.rodion.adelie.pfm.blotter.BlotterStorage;
 import com.rodion.adelie.pfm.blotter.DataStorageConfiguration;
 import com.rodion.adelie.pfm.blotter.DefaultBlotter;
+import com.rodion.adelie.pfm.blotter.GroupCommitBlotterWriter;
+import com.rodion.adelie.pfm.blotter.TradeIdAllocator;
+import com.rodion.adelie.pfm.marketdata.BarAggregator;
+import com.rodion.adelie.pfm.marketdata.LatestQuoteCache;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.pfm.position.PositionEngine;
+import com.rodion.adelie.pfm.storage.keyvalue.KeyValueSegmentIdentifier;
 import com.rodion.adelie.pfm.storage.keyvalue.StorageProvider;
+import com.rodion.adelie.pfm.taxlot.LotMatchingMethod;
+import com.rodion.adelie.pfm.taxlot.TaxLotEngine;
+import com.rodion.adelie.pfm.valuation.PortfolioValuer;
 import java.io.Closeable;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -31,6 +42,9 @@ public class AdelieControllerBuilder {
   protected DataStorageConfiguration dataStorageConfiguration =
       DataStorageConfiguration.DEFAULT_CONFIG;
 
+  /** The Tax lot matching method. */
+  protected LotMatchingMethod lotMatchingMethod = LotMatchingMethod.FIFO;
+
   /** the Dagger configured context that can provide dependencies */
   protected Optional<AdelieComponent> adelieComponent = Optional.empty();
 
@@ -67,6 +81,29 @@ public class AdelieControllerBuilder {
     return this;
   }
 
+  /**
+   * Data storage configuration adelie controller builder.
+   *
+   * @param dataStorageConfiguration the data storage configuration
+   * @return the adelie controller builder
+   */
+  public AdelieControllerBuilder dataStorageConfiguration(
+      final DataStorageConfiguration dataStorageConfiguration) {
+    this.dataStorageConfiguration = dataStorageConfiguration;
+    return this;
+  }
+
+  /**
+   * Tax lot matching method adelie controller builder.
+   *
+   * @param lotMatchingMethod the lot matching method
+   * @return the adelie controller builder
+   */
+  public AdelieControllerBuilder lotMatchingMethod(final LotMatchingMethod lotMatchingMethod) {
+    this.lotMatchingMethod = lotMatchingMethod;
+    return this;
+  }
+
   /**
    * Build adelie controller.
    *
@@ -76,8 +113,42 @@ public class AdelieControllerBuilder {
     checkNotNull(dataDirectory, "Missing data directory");
     checkNotNull(storageProvider, "Missing storage provider");
     final List<Closeable> closeables = new ArrayList<>();
-    Blotter blotter =
-        new DefaultBlotter(storageProvider.createBlotterStorage(dataStorageConfiguration));
-    return new AdelieController(closeables, storageProvider, blotter);
+    final TradeIdAllocator tradeIdAllocator =
+        new TradeIdAllocator(
+            storageProvider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.DEFAULT),
+            TradeIdAllocator.DEFAULT_BLOCK_SIZE);
+    final BlotterStorage blotterStorage =
+        storageProvider.createBlotterStorage(dataStorageConfiguration);
+    final DataStorageConfiguration.Unstable unstable = dataStorageConfiguration.getUnstable();
+    final Optional<GroupCommitBlotterWriter> groupCommitWriter =
+        unstable.getGroupCommitEnabled()
+            ? Optional.of(
+                new GroupCommitBlotterWriter(
+                    blotterStorage,
+                    unstable.getGroupCommitWindowMillis(),
+                    unstable.getGroupCommitMaxBatchSize()))
+            : Optional.empty();
+    Blotter blotter = new DefaultBlotter(blotterStorage, tradeIdAllocator, groupCommitWriter);
+    final PositionEngine positionEngine =
+        new PositionEngine(blotterStorage, storageProvider.createPositionStorage());
+    blotter.addTradeListener(positionEngine);
+    final TaxLotEngine taxLotEngine =
+        new TaxLotEngine(blotterStorage, storageProvider.createTaxLotStorage(), lotMatchingMethod);
+    blotter.addTradeListener(taxLotEngine);
+    final TimeSeriesStorage timeSeriesStorage = storageProvider.createTimeSeriesStorage();
+    final LatestQuoteCache latestQuoteCache =
+        new LatestQuoteCache(timeSeriesStorage, LatestQuoteCache.DEFAULT_FLUSH_INTERVAL_MILLIS);
+    final BarAggregator barAggregator =
+        new BarAggregator(timeSeriesStorage, storageProvider.createBarStorage());
+    return new AdelieController(
+        closeables,
+        storageProvider,
+        blotter,
+        positionEngine,
+        taxLotEngine,
+        timeSeriesStorage,
+        latestQuoteCache,
+        barAggregator,
+        new PortfolioValuer(positionEngine, latestQuoteCache, storageProvider));
   }
 }
@@ -0,0 +1,10 @@
+package com.rodion.adelie.metrics;
+
+/**
+ * The Metrics configuration.
+ *
+ * @param enabled whether the metrics scrape endpoint is started
+ * @param host the host the scrape endpoint listens on
+ * @param port the port the scrape endpoint listens on
+ */
+public record MetricsConfiguration(boolean enabled, String host, int port) {}
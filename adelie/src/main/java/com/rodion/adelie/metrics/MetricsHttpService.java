@@ -0,0 +1,88 @@
+package com.rodion.adelie.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rodion.adelie.services.MetricsSystemImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Serves the metrics system over HTTP for Prometheus to scrape. */
+public class MetricsHttpService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsHttpService.class);
+
+  private static final String METRICS_PATH = "/metrics";
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final MetricsConfiguration configuration;
+  private final MetricsSystemImpl metricsSystem;
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /**
+   * Instantiates a new Metrics http service.
+   *
+   * @param configuration the metrics configuration
+   * @param metricsSystem the metrics system to serve
+   */
+  public MetricsHttpService(
+      final MetricsConfiguration configuration, final MetricsSystemImpl metricsSystem) {
+    this.configuration = configuration;
+    this.metricsSystem = metricsSystem;
+  }
+
+  /**
+   * Start serving metrics.
+   *
+   * @throws IOException if the endpoint cannot be bound
+   */
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      return;
+    }
+    server =
+        HttpServer.create(new InetSocketAddress(configuration.host(), configuration.port()), 0);
+    server.createContext(METRICS_PATH, this::handle);
+    executor =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("metrics-http").setDaemon(true).build());
+    server.setExecutor(executor);
+    server.start();
+    logger.info(
+        "Metrics endpoint listening on http://{}:{}{}",
+        configuration.host(),
+        server.getAddress().getPort(),
+        METRICS_PATH);
+  }
+
+  /** Stop serving metrics. */
+  public synchronized void stop() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+    }
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      final byte[] body = metricsSystem.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (final OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+}
@@ -1,8 +1,98 @@
 package com.rodion.adelie.services;
 
+import static com.google.common.base.Preconditions.checkState;
+
+import com.rodion.adelie.pfm.marketdata.Bar;
+import com.rodion.adelie.pfm.marketdata.BarAggregator;
+import com.rodion.adelie.pfm.marketdata.BarResolution;
+import com.rodion.adelie.pfm.marketdata.LatestQuoteCache;
+import com.rodion.adelie.pfm.marketdata.PriceTick;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import java.util.List;
+import java.util.Optional;
+
 /** The Market Data service implementation. */
 public class MarketDataServiceImpl {
+  private TimeSeriesStorage timeSeriesStorage;
+  private LatestQuoteCache latestQuoteCache;
+  private BarAggregator barAggregator;
 
   /** Create a new instance */
   public MarketDataServiceImpl() {}
+
+  /**
+   * Post creation initialization
+   *
+   * @param timeSeriesStorage the price history storage
+   * @param latestQuoteCache the latest price of each ticker
+   * @param barAggregator the bars of each ticker
+   */
+  public void init(
+      final TimeSeriesStorage timeSeriesStorage,
+      final LatestQuoteCache latestQuoteCache,
+      final BarAggregator barAggregator) {
+    this.timeSeriesStorage = timeSeriesStorage;
+    this.latestQuoteCache = latestQuoteCache;
+    this.barAggregator = barAggregator;
+  }
+
+  /**
+   * Append prices to the history of a ticker, roll them into its bars and update its latest price.
+   *
+   * @param ticker the ticker
+   * @param ticks the price ticks
+   */
+  public void appendPrices(final String ticker, final List<PriceTick> ticks) {
+    checkState(timeSeriesStorage != null, "Market data service is not initialized");
+    barAggregator.append(ticker, ticks);
+    final int tickerId = latestQuoteCache.tickerId(ticker);
+    ticks.forEach(tick -> latestQuoteCache.update(tickerId, tick.timestampMillis(), tick.price()));
+  }
+
+  /**
+   * Get the latest price of a ticker, served from memory without blocking.
+   *
+   * @param ticker the ticker
+   * @return the latest price tick, empty if the ticker has no price
+   */
+  public Optional<PriceTick> getLatestPrice(final String ticker) {
+    checkState(latestQuoteCache != null, "Market data service is not initialized");
+    return latestQuoteCache.getLatest(ticker);
+  }
+
+  /**
+   * Get the prices of a ticker in a time range.
+   *
+   * @param ticker the ticker
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   * @return the price ticks in timestamp order
+   */
+  public List<PriceTick> getPriceHistory(
+      final String ticker, final long fromMillis, final long toMillis) {
+    checkState(timeSeriesStorage != null, "Market data service is not initialized");
+    return timeSeriesStorage.getRange(ticker, fromMillis, toMillis);
+  }
+
+  /**
+   * Get the bars of a ticker whose buckets start in a time range.
+   *
+   * @param ticker the ticker
+   * @param resolution the bar resolution
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   * @return the bars in time order
+   */
+  public List<Bar> getBars(
+      final String ticker,
+      final BarResolution resolution,
+      final long fromMillis,
+      final long toMillis) {
+    checkState(barAggregator != null, "Market data service is not initialized");
+    return barAggregator.getBars(ticker, resolution, fromMillis, toMillis);
+  }
+
+  public LatestQuoteCache getLatestQuoteCache() {
+    return latestQuoteCache;
+  }
 }
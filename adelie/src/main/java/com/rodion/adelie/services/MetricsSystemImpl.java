@@ -0,0 +1,97 @@
+package com.rodion.adelie.services;
+
+import com.rodion.adelie.plugin.services.MetricsSystem;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** The Metrics system implementation, rendering gauges in the Prometheus text format. */
+public class MetricsSystemImpl implements MetricsSystem {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsSystemImpl.class);
+
+  private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+  @Override
+  public void createGauge(
+      final String name,
+      final String help,
+      final Map<String, String> labels,
+      final DoubleSupplier valueSupplier) {
+    families
+        .computeIfAbsent(name, __ -> new Family(help))
+        .gauges
+        .put(renderLabels(labels), valueSupplier);
+  }
+
+  /**
+   * Render all gauges in the Prometheus text exposition format.
+   *
+   * @return the rendered metrics
+   */
+  public String toPrometheusText() {
+    final StringBuilder text = new StringBuilder();
+    families.forEach(
+        (name, family) -> {
+          text.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+          text.append("# TYPE ").append(name).append(" gauge\n");
+          family.gauges.forEach(
+              (labels, valueSupplier) ->
+                  text.append(name)
+                      .append(labels)
+                      .append(' ')
+                      .append(formatValue(name, valueSupplier))
+                      .append('\n'));
+        });
+    return text.toString();
+  }
+
+  private static String formatValue(final String name, final DoubleSupplier valueSupplier) {
+    final double value;
+    try {
+      value = valueSupplier.getAsDouble();
+    } catch (final RuntimeException e) {
+      logger.debug("Failed to sample metric {}", name, e);
+      return "NaN";
+    }
+    if (Double.isNaN(value)) {
+      return "NaN";
+    } else if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    }
+    return Double.toString(value);
+  }
+
+  private static String renderLabels(final Map<String, String> labels) {
+    if (labels.isEmpty()) {
+      return "";
+    }
+    return new TreeMap<>(labels)
+        .entrySet().stream()
+            .map(
+                label ->
+                    label.getKey()
+                        + "=\""
+                        + label
+                            .getValue()
+                            .replace("\\", "\\\\")
+                            .replace("\"", "\\\"")
+                            .replace("\n", "\\n")
+                        + "\"")
+            .collect(Collectors.joining(",", "{", "}"));
+  }
+
+  private static class Family {
+    private final String help;
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+    private Family(final String help) {
+      this.help = help;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.pfm.storage.keyvalue.KeyValueSegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Opens a storage in a temporary directory and loads a dataset into one segment before the trial.
+ * Subclasses declare the storage engines they are run against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public abstract class AbstractStorageBenchmark {
+
+  /** The segment the dataset is loaded into, untuned so no segment specific filter applies. */
+  protected static final SegmentIdentifier SEGMENT = BenchmarkSegment.UNTUNED;
+
+  /** The key size in bytes. */
+  @Param({"16", "32"})
+  public int keySize;
+
+  /** The value size in bytes. */
+  @Param({"64", "1024"})
+  public int valueSize;
+
+  /** The number of entries loaded before the trial. */
+  @Param({"10000", "1000000"})
+  public int datasetSize;
+
+  /** The loaded dataset. */
+  protected BenchmarkDataset dataset;
+
+  /** The storage under benchmark. */
+  protected SegmentedKeyValueStorage storage;
+
+  private Path databaseDir;
+
+  /**
+   * Gets the storage engine to benchmark.
+   *
+   * @return the storage engine
+   */
+  protected abstract StorageEngine engine();
+
+  /**
+   * Open the storage and load the dataset.
+   *
+   * @throws IOException if the temporary directory cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    databaseDir = Files.createTempDirectory("adelie-jmh");
+    dataset = new BenchmarkDataset(keySize, valueSize, datasetSize);
+    final List<SegmentIdentifier> segments =
+        new ArrayList<>(List.of(KeyValueSegmentIdentifier.values()));
+    segments.add(SEGMENT);
+    storage = engine().open(databaseDir, segments);
+    dataset.load(storage, SEGMENT);
+  }
+
+  /**
+   * Close the storage and delete its files.
+   *
+   * @throws IOException if the files cannot be deleted
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    storage.close();
+    try (final Stream<Path> files = Files.walk(databaseDir)) {
+      for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+}
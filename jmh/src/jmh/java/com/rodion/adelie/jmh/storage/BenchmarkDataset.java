@@ -0,0 +1,102 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A reproducible dataset of fixed size keys and values. Keys are spread over the key space by a
+ * bijective scramble of their index, so that neighbouring indexes are not neighbouring keys, and
+ * the same index always yields the same key.
+ */
+final class BenchmarkDataset {
+
+  private static final long SEED = 0x5eed_ade1_1eL;
+  private static final long SCRAMBLE = 0x9E37_79B9_7F4A_7C15L;
+  private static final int LOAD_BATCH_SIZE = 10_000;
+
+  private final int keySize;
+  private final byte[][] sortedKeys;
+  private final byte[] value;
+
+  /**
+   * Instantiates a new dataset.
+   *
+   * @param keySize the key size in bytes, at least 8
+   * @param valueSize the value size in bytes
+   * @param size the number of entries
+   */
+  BenchmarkDataset(final int keySize, final int valueSize, final int size) {
+    this.keySize = keySize;
+    this.sortedKeys = new byte[size][];
+    for (int i = 0; i < size; i++) {
+      sortedKeys[i] = key(i);
+    }
+    Arrays.sort(sortedKeys, Arrays::compareUnsigned);
+    this.value = new byte[valueSize];
+    new SplittableRandom(SEED).nextBytes(value);
+  }
+
+  /**
+   * Gets the key of an index, indexes at or past the dataset size are absent from the storage.
+   *
+   * @param index the index
+   * @return the key
+   */
+  byte[] key(final long index) {
+    final ByteBuffer key = ByteBuffer.allocate(keySize);
+    key.putLong(index * SCRAMBLE);
+    while (key.hasRemaining()) {
+      key.put((byte) index);
+    }
+    return key.array();
+  }
+
+  /**
+   * Gets the key at a position in key order.
+   *
+   * @param position the position
+   * @return the key
+   */
+  byte[] sortedKey(final int position) {
+    return sortedKeys[position];
+  }
+
+  /**
+   * Gets the value stored for every key.
+   *
+   * @return the value
+   */
+  byte[] value() {
+    return value;
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the size
+   */
+  int size() {
+    return sortedKeys.length;
+  }
+
+  /**
+   * Load every entry into a segment of the storage.
+   *
+   * @param storage the storage
+   * @param segment the segment
+   */
+  void load(final SegmentedKeyValueStorage storage, final SegmentIdentifier segment) {
+    for (int start = 0; start < size(); start += LOAD_BATCH_SIZE) {
+      final SegmentedKeyValueStorageTransaction batch = storage.startBatch(WriteDurability.NO_WAL);
+      for (int i = start; i < Math.min(start + LOAD_BATCH_SIZE, size()); i++) {
+        batch.put(segment, key(i), value);
+      }
+      batch.commit();
+    }
+  }
+}
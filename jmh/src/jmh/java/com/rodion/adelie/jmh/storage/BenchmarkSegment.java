@@ -0,0 +1,39 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The segment benchmarks load their dataset into. It declares no tuning, key prefix or value cache,
+ * so the storage applies its defaults and the benchmarks measure the engine rather than the tuning
+ * of one of the application segments.
+ */
+enum BenchmarkSegment implements SegmentIdentifier {
+  UNTUNED("benchmark".getBytes(StandardCharsets.UTF_8));
+
+  private final byte[] id;
+
+  BenchmarkSegment(final byte[] id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getName() {
+    return name();
+  }
+
+  @Override
+  public byte[] getId() {
+    return id;
+  }
+
+  @Override
+  public boolean containsStaticData() {
+    return false;
+  }
+
+  @Override
+  public boolean isEligibleToHighSpecFlag() {
+    return false;
+  }
+}
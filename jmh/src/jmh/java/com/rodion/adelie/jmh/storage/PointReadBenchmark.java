@@ -0,0 +1,100 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.services.kvstore.SegmentedKeyValueStorageAdapter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.tuweni.bytes.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/** Point reads of present and absent keys, singly, batched and through the segment adapter. */
+public class PointReadBenchmark extends AbstractStorageBenchmark {
+
+  private static final int MULTI_GET_SIZE = 64;
+
+  /** The storage engine. */
+  @Param({"TRANSACTION_DB", "OPTIMISTIC_TRANSACTION_DB", "MEMORY"})
+  public StorageEngine engine;
+
+  private KeyValueStorage adapter;
+
+  @Override
+  protected StorageEngine engine() {
+    return engine;
+  }
+
+  /** Wrap the segment in the unsegmented adapter. */
+  @Setup(Level.Trial)
+  public void setUpAdapter() {
+    adapter = new SegmentedKeyValueStorageAdapter(SEGMENT, storage);
+  }
+
+  /**
+   * Get a present key.
+   *
+   * @return the value
+   */
+  @Benchmark
+  public Optional<byte[]> get() {
+    return storage.get(SEGMENT, presentKey());
+  }
+
+  /**
+   * Get an absent key, which the bloom filters should answer without reading data blocks.
+   *
+   * @return the empty value
+   */
+  @Benchmark
+  public Optional<byte[]> getAbsent() {
+    return storage.get(SEGMENT, dataset.key(datasetSize + randomIndex()));
+  }
+
+  /**
+   * Get a batch of present keys in one call.
+   *
+   * @return the values
+   */
+  @Benchmark
+  public List<Optional<byte[]>> multiGet() {
+    final List<byte[]> keys = new ArrayList<>(MULTI_GET_SIZE);
+    for (int i = 0; i < MULTI_GET_SIZE; i++) {
+      keys.add(presentKey());
+    }
+    return storage.multiGet(SEGMENT, keys);
+  }
+
+  /**
+   * Find the nearest key at or before a present key.
+   *
+   * @return the nearest entry
+   */
+  @Benchmark
+  public Object getNearestTo() {
+    return storage.getNearestTo(SEGMENT, Bytes.wrap(presentKey()));
+  }
+
+  /**
+   * Get a present key through the {@link SegmentedKeyValueStorageAdapter}.
+   *
+   * @return the value
+   * @throws IOException never
+   */
+  @Benchmark
+  public Optional<byte[]> adapterGet() throws IOException {
+    return adapter.get(presentKey());
+  }
+
+  private byte[] presentKey() {
+    return dataset.key(randomIndex());
+  }
+
+  private int randomIndex() {
+    return ThreadLocalRandom.current().nextInt(datasetSize);
+  }
+}
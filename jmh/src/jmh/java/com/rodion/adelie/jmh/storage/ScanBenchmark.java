@@ -0,0 +1,85 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Bounded range scans, full segment scans and key filtering. */
+public class ScanBenchmark extends AbstractStorageBenchmark {
+
+  /** The storage engine. */
+  @Param({"TRANSACTION_DB", "OPTIMISTIC_TRANSACTION_DB", "MEMORY"})
+  public StorageEngine engine;
+
+  /** The number of entries read by a range scan. */
+  @Param({"100"})
+  public int rangeLength;
+
+  @Override
+  protected StorageEngine engine() {
+    return engine;
+  }
+
+  /**
+   * Stream an inclusive key range.
+   *
+   * @param blackhole the blackhole
+   */
+  @Benchmark
+  public void rangeStream(final Blackhole blackhole) {
+    final int start = randomRangeStart();
+    try (final Stream<Pair<byte[], byte[]>> range =
+        storage.streamFromKey(
+            SEGMENT, dataset.sortedKey(start), dataset.sortedKey(start + rangeLength - 1))) {
+      range.forEach(blackhole::consume);
+    }
+  }
+
+  /**
+   * Read a key range with a cursor, which reuses its buffers.
+   *
+   * @param blackhole the blackhole
+   */
+  @Benchmark
+  public void rangeCursor(final Blackhole blackhole) {
+    try (final KeyValueCursor cursor = storage.cursor(SEGMENT)) {
+      int remaining = rangeLength;
+      for (cursor.seek(dataset.sortedKey(randomRangeStart()));
+          cursor.isValid() && remaining > 0;
+          cursor.next(), remaining--) {
+        blackhole.consume(cursor.key());
+        blackhole.consume(cursor.value());
+      }
+    }
+  }
+
+  /**
+   * Count the entries of the whole segment with a parallel stream.
+   *
+   * @return the number of entries
+   */
+  @Benchmark
+  public long fullScanParallel() {
+    try (final Stream<Pair<byte[], byte[]>> entries = storage.stream(SEGMENT)) {
+      return entries.parallel().count();
+    }
+  }
+
+  /**
+   * Collect the keys of the segment matching a predicate, about one in sixteen.
+   *
+   * @return the number of matching keys
+   */
+  @Benchmark
+  public int getAllKeysThat() {
+    return storage.getAllKeysThat(SEGMENT, key -> (key[key.length - 1] & 0x0f) == 0).size();
+  }
+
+  private int randomRangeStart() {
+    return ThreadLocalRandom.current().nextInt(datasetSize - rangeLength + 1);
+  }
+}
@@ -0,0 +1,70 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.SnappableKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.SnappedKeyValueStorage;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reads through a snapshot, and the cost of taking one. Every {@link StorageEngine} implements
+ * {@link SnappableKeyValueStorage}: TRANSACTION_DB and OPTIMISTIC_TRANSACTION_DB take a RocksDB
+ * snapshot, MEMORY copies every segment, so its cost grows with the dataset.
+ */
+public class SnapshotBenchmark extends AbstractStorageBenchmark {
+
+  /** The storage engine. */
+  @Param({"TRANSACTION_DB", "OPTIMISTIC_TRANSACTION_DB", "MEMORY"})
+  public StorageEngine engine;
+
+  private SnappedKeyValueStorage snapshot;
+
+  @Override
+  protected StorageEngine engine() {
+    return engine;
+  }
+
+  /** Take the snapshot read by the benchmarks. */
+  @Setup(Level.Iteration)
+  public void takeSnapshot() {
+    snapshot = ((SnappableKeyValueStorage) storage).takeSnapshot();
+  }
+
+  /**
+   * Release the snapshot.
+   *
+   * @throws IOException if the snapshot cannot be closed
+   */
+  @TearDown(Level.Iteration)
+  public void releaseSnapshot() throws IOException {
+    snapshot.close();
+  }
+
+  /**
+   * Get a present key through the snapshot.
+   *
+   * @return the value
+   */
+  @Benchmark
+  public Optional<byte[]> snapshotGet() {
+    return snapshot.get(SEGMENT, dataset.key(ThreadLocalRandom.current().nextInt(datasetSize)));
+  }
+
+  /**
+   * Take a snapshot, read a key from it and release it.
+   *
+   * @return the value
+   * @throws IOException if the snapshot cannot be closed
+   */
+  @Benchmark
+  public Optional<byte[]> takeSnapshotAndGet() throws IOException {
+    try (final SnappedKeyValueStorage taken = ((SnappableKeyValueStorage) storage).takeSnapshot()) {
+      return taken.get(SEGMENT, dataset.key(ThreadLocalRandom.current().nextInt(datasetSize)));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.rocksdb.configuration.RocksDBConfiguration;
+import com.rodion.adelie.plugin.services.storage.rocksdb.configuration.RocksDBConfigurationBuilder;
+import com.rodion.adelie.plugin.services.storage.rocksdb.segmented.OptimisticRocksDBColumnarKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.rocksdb.segmented.TransactionDBRocksDBColumnarKeyValueStorage;
+import com.rodion.adelie.services.kvstore.SegmentedInMemoryKeyValueStorage;
+import java.nio.file.Path;
+import java.util.List;
+
+/** The storage implementations compared by the benchmarks. */
+public enum StorageEngine {
+  /** RocksDB opened as a pessimistic TransactionDB, used for the FOREST format */
+  TRANSACTION_DB {
+    @Override
+    SegmentedKeyValueStorage open(final Path databaseDir, final List<SegmentIdentifier> segments) {
+      return new TransactionDBRocksDBColumnarKeyValueStorage(
+          configuration(databaseDir), segments, List.of());
+    }
+  },
+  /** RocksDB opened as an OptimisticTransactionDB, used for the BONSAI format */
+  OPTIMISTIC_TRANSACTION_DB {
+    @Override
+    SegmentedKeyValueStorage open(final Path databaseDir, final List<SegmentIdentifier> segments) {
+      return new OptimisticRocksDBColumnarKeyValueStorage(
+          configuration(databaseDir), segments, List.of());
+    }
+  },
+  /** The in-memory storage, a baseline without native or disk costs */
+  MEMORY {
+    @Override
+    SegmentedKeyValueStorage open(final Path databaseDir, final List<SegmentIdentifier> segments) {
+      return new SegmentedInMemoryKeyValueStorage(segments);
+    }
+  };
+
+  /**
+   * Open the storage.
+   *
+   * @param databaseDir the directory the database files are written to
+   * @param segments the segments
+   * @return the storage
+   */
+  abstract SegmentedKeyValueStorage open(Path databaseDir, List<SegmentIdentifier> segments);
+
+  private static RocksDBConfiguration configuration(final Path databaseDir) {
+    return new RocksDBConfigurationBuilder().databaseDir(databaseDir).label("jmh").build();
+  }
+}
@@ -0,0 +1,73 @@
+package com.rodion.adelie.jmh.storage;
+
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Writes of new keys through a transaction and through a write batch. Keys follow the dataset, so
+ * the storage grows for the length of the trial as it would under an import.
+ */
+public class WriteBenchmark extends AbstractStorageBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+
+  /** The storage engine. */
+  @Param({"TRANSACTION_DB", "OPTIMISTIC_TRANSACTION_DB", "MEMORY"})
+  public StorageEngine engine;
+
+  private final AtomicLong nextIndex = new AtomicLong();
+
+  @Override
+  protected StorageEngine engine() {
+    return engine;
+  }
+
+  /** Put one key in a transaction and commit it. */
+  @Benchmark
+  public void transactionalPut() {
+    final SegmentedKeyValueStorageTransaction tx = storage.startTransaction();
+    tx.put(SEGMENT, newKey(), dataset.value());
+    tx.commit();
+  }
+
+  /** Put a batch of keys in a transaction and commit it. */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void transactionalPutBatch() {
+    final SegmentedKeyValueStorageTransaction tx = storage.startTransaction();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      tx.put(SEGMENT, newKey(), dataset.value());
+    }
+    tx.commit();
+  }
+
+  /** Put a batch of keys in a non-transactional write batch and commit it. */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void batchWrite() {
+    writeBatch(WriteDurability.WAL);
+  }
+
+  /** Put a batch of keys in a write batch that skips the write-ahead log and commit it. */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void batchWriteNoWal() {
+    writeBatch(WriteDurability.NO_WAL);
+  }
+
+  private void writeBatch(final WriteDurability durability) {
+    final SegmentedKeyValueStorageTransaction batch = storage.startBatch(durability);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      batch.put(SEGMENT, newKey(), dataset.value());
+    }
+    batch.commit();
+  }
+
+  private byte[] newKey() {
+    return dataset.key(datasetSize + nextIndex.getAndIncrement());
+  }
+}
@@ -2,36 +2,112 @@ package com.rodion.adelie.pfm.blotter;
 
 import com.rodion.adelie.pfm.trade.TradeEntry;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /** An interface for interacting with the blotter */
 public interface Blotter {
 
+  /** Returned by {@link #removeTrade(int)} when no trade has the id. */
+  int NOT_FOUND = -1;
+
+  /**
+   * Start accepting writes. When group commit is enabled, writes fail until the blotter is started.
+   */
   void start();
 
+  /** Stop accepting writes, writes already accepted are still committed. */
   void stop();
 
   void awaitStop() throws InterruptedException;
 
   /**
-   * Return the list of trade entries pertaining to a ticker
+   * Register a listener notified of every committed trade write, must be called before start
+   *
+   * @param listener the trade listener
+   */
+  void addTradeListener(TradeListener listener);
+
+  /**
+   * Return the list of trade entries pertaining to a ticker, ordered by trade date
    *
+   * @param ticker ticker name
    * @return List of trade entries
    */
   List<TradeEntry> getTradesByTicker(String ticker);
 
   /**
-   * Upsert a trade to the blotter
+   * Return a trade entry by id
+   *
+   * @param id trade id
+   * @return the trade entry, empty if no trade has this id
+   */
+  Optional<TradeEntry> getTrade(int id);
+
+  /**
+   * Add a new trade to the blotter
    *
    * @param trade trade entry details
    * @return trade id of the newly added entry
    */
   int upsertTrade(TradeEntry trade);
 
+  /**
+   * Add new trades to the blotter in one durable batch, the trades are given consecutive ids in
+   * list order. The batch is validated before any trade is stored.
+   *
+   * @param trades trade entries
+   * @return trade id of the first added entry
+   */
+  int addTrades(List<TradeEntry> trades);
+
+  /**
+   * Check that a trade can be stored, without storing it.
+   *
+   * @param trade trade entry details
+   * @throws IllegalArgumentException if the trade cannot be stored
+   */
+  void validateTrade(TradeEntry trade);
+
+  /**
+   * Upsert a trade to the blotter, replacing the trade with the same id if any
+   *
+   * @param id trade id
+   * @param trade trade entry details
+   * @return trade id of the upserted entry
+   */
+  int upsertTrade(int id, TradeEntry trade);
+
   /**
    * Remove a trade from the blotter
    *
    * @param id trade id of the removed entry
-   * @return trade id of the removed entry
+   * @return trade id of the removed entry, or {@link #NOT_FOUND} if no trade has this id
    */
   int removeTrade(int id);
+
+  /**
+   * Add a new trade to the blotter without waiting for it to be durable
+   *
+   * @param trade trade entry details
+   * @return future trade id of the newly added entry, completed once the trade is durable
+   */
+  CompletableFuture<Integer> upsertTradeAsync(TradeEntry trade);
+
+  /**
+   * Upsert a trade to the blotter without waiting for it to be durable
+   *
+   * @param id trade id
+   * @param trade trade entry details
+   * @return future trade id of the upserted entry, completed once the trade is durable
+   */
+  CompletableFuture<Integer> upsertTradeAsync(int id, TradeEntry trade);
+
+  /**
+   * Remove a trade from the blotter without waiting for the removal to be durable
+   *
+   * @param id trade id of the removed entry
+   * @return future trade id of the removed entry, or {@link #NOT_FOUND} if no trade has this id
+   */
+  CompletableFuture<Integer> removeTradeAsync(int id);
 }
@@ -1,16 +1,101 @@
 package com.rodion.adelie.pfm.blotter;
 
+import com.rodion.adelie.pfm.trade.TradeEntry;
 import com.rodion.adelie.plugin.services.storage.DataStorageFormat;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
 
 public interface BlotterStorage {
 
   DataStorageFormat getDataStorageFormat();
 
+  /**
+   * Get a trade by id.
+   *
+   * @param id the trade id
+   * @return the trade entry, empty if no trade has this id
+   */
+  Optional<TradeEntry> getTrade(int id);
+
+  /**
+   * Get the trades of a ticker, ordered by date then id.
+   *
+   * @param ticker the ticker
+   * @return the trade entries
+   */
+  List<TradeEntry> getTradesByTicker(String ticker);
+
+  /**
+   * Stream the trades of a ticker with their ids, ordered by date then id. The stream must be
+   * closed.
+   *
+   * @param ticker the ticker
+   * @return the trade ids and entries
+   */
+  Stream<Pair<Integer, TradeEntry>> streamTradesByTicker(String ticker);
+
+  /**
+   * Stream all trades with their ids, ordered by ticker, then date, then id. The stream must be
+   * closed.
+   *
+   * @return the trade ids and entries
+   */
+  Stream<Pair<Integer, TradeEntry>> streamTrades();
+
+  /**
+   * Get the highest id of the stored trades.
+   *
+   * @return the highest trade id, empty if no trade is stored
+   */
+  OptionalInt getMaxTradeId();
+
+  /**
+   * Check that a trade can be stored, so that a write can be rejected before it is batched with
+   * other writes.
+   *
+   * @param trade the trade entry
+   * @throws IllegalArgumentException if the trade cannot be stored
+   */
+  void validateTrade(TradeEntry trade);
+
   Updater updater();
 
+  /**
+   * Begin an updater backed by a non-transactional write batch. Reads made by the updater are not
+   * isolated from other writers, so batch updaters must only be used by a single writer.
+   *
+   * @param durability the durability guarantee of the commit
+   * @return the updater
+   */
+  Updater updater(WriteDurability durability);
+
   void clear();
 
   interface Updater {
+
+    /**
+     * Store a trade, replacing any trade stored with the same id.
+     *
+     * @param id the trade id
+     * @param trade the trade entry
+     * @return the replaced trade entry, empty if no trade was stored with this id
+     */
+    Optional<TradeEntry> putTrade(int id, TradeEntry trade);
+
+    /**
+     * Remove a trade if present.
+     *
+     * @param id the trade id
+     * @return the removed trade entry, empty if no trade was stored with this id
+     */
+    Optional<TradeEntry> removeTrade(int id);
+
     void commit();
+
+    void rollback();
   }
 }
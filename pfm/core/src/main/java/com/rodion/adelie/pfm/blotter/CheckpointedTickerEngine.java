@@ -0,0 +1,349 @@
+package com.rodion.adelie.pfm.blotter;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * State derived from the trades of each ticker, kept up to date as blotter writes are committed and
+ * checkpointed to storage across restarts. A new trade dated after the last trade of its ticker is
+ * applied directly, any other write (an amendment, a removal or a back dated trade) marks the
+ * tickers it touches stale. Stale tickers are recomputed from their own trades on the next read or
+ * checkpoint, so notifications never scan the blotter on the thread committing writes.
+ *
+ * <p>Tickers are interned to dense numbers, so that subclasses can hold their state in arrays. The
+ * state is checkpointed on stop and loaded back on start. After an unclean shutdown the checkpoint
+ * is discarded and the state is rebuilt from the blotter once. A write the engine failed to apply,
+ * or was notified of while stopped, leaves the checkpoint unclean, so the state is rebuilt on the
+ * next start.
+ */
+public abstract class CheckpointedTickerEngine implements TradeListener {
+  private static final Logger logger = LoggerFactory.getLogger(CheckpointedTickerEngine.class);
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final String name;
+  private final BlotterStorage blotterStorage;
+  private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+  private final Map<String, Integer> tickerNumbers = new HashMap<>();
+  private String[] tickers = new String[0];
+  private int tickerCount;
+  // tickers changed since the last checkpoint
+  private final BitSet dirty = new BitSet();
+  // tickers to recompute from the blotter before they are read
+  private final BitSet stale = new BitSet();
+  private boolean started;
+  // a write failed to apply, the state no longer matches the blotter
+  private boolean failed;
+
+  /**
+   * Instantiates a new checkpointed ticker engine.
+   *
+   * @param name the engine name, used in messages
+   * @param blotterStorage the blotter storage, read to recompute the state of a ticker
+   */
+  protected CheckpointedTickerEngine(final String name, final BlotterStorage blotterStorage) {
+    this.name = name;
+    this.blotterStorage = blotterStorage;
+  }
+
+  /**
+   * Load the state from the checkpoint, or rebuild it from the blotter if the checkpoint is not
+   * clean. Must be called before the blotter accepts writes.
+   */
+  public void start() {
+    final Lock lock = rwLock.writeLock();
+    lock.lock();
+    try {
+      checkState(!started, "%s already started", name);
+      if (loadCheckpoint()) {
+        logger.info("{} loaded {} tickers from checkpoint", name, tickerCount);
+      } else {
+        clearCheckpoint();
+        replayAll();
+        dirty.set(0, tickerCount);
+        logger.info("{} rebuilt {} tickers from the blotter", name, tickerCount);
+      }
+      // a crash from here on leaves the checkpoint behind the blotter
+      markCheckpointUnclean();
+      failed = false;
+      started = true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Checkpoint the tickers changed since start and mark the checkpoint clean. */
+  public void stop() {
+    final Lock lock = rwLock.writeLock();
+    lock.lock();
+    try {
+      if (!started) {
+        return;
+      }
+      started = false;
+      try {
+        refreshStale();
+      } catch (final RuntimeException e) {
+        logger.error("{} failed to recompute stale tickers", name, e);
+        failed = true;
+      }
+      if (failed) {
+        logger.warn("{} diverged from the blotter, it will be rebuilt on next start", name);
+        return;
+      }
+      writeCheckpoint(dirty);
+      logger.info("{} checkpointed {} tickers", name, dirty.cardinality());
+      dirty.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void onTradeStored(
+      final int id, final Optional<TradeEntry> previous, final TradeEntry trade) {
+    final Lock lock = rwLock.writeLock();
+    lock.lock();
+    try {
+      checkStarted();
+      previous
+          .filter(replaced -> !replaced.ticker().equals(trade.ticker()))
+          .ifPresent(replaced -> stale.set(tickerNumber(replaced.ticker())));
+      final int number = tickerNumber(trade.ticker());
+      if (previous.isEmpty() && !stale.get(number) && isAfterLastTrade(number, id, trade)) {
+        apply(number, id, trade);
+        dirty.set(number);
+      } else {
+        stale.set(number);
+      }
+    } catch (final RuntimeException e) {
+      failed = true;
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void onTradeRemoved(final int id, final TradeEntry removed) {
+    final Lock lock = rwLock.writeLock();
+    lock.lock();
+    try {
+      checkStarted();
+      stale.set(tickerNumber(removed.ticker()));
+    } catch (final RuntimeException e) {
+      failed = true;
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Read the state of a ticker once it is up to date.
+   *
+   * @param ticker the ticker
+   * @param reader reads the state of the ticker number
+   * @param defaultValue the value of a ticker never traded
+   * @param <T> the type of the value read
+   * @return the value read
+   */
+  protected final <T> T read(
+      final String ticker, final IntFunction<T> reader, final T defaultValue) {
+    final Lock lock = refreshedReadLock();
+    try {
+      final Integer number = tickerNumbers.get(ticker);
+      return number == null ? defaultValue : reader.apply(number);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Read the state of all tickers once it is up to date.
+   *
+   * @param reader reads the state
+   * @param <T> the type of the value read
+   * @return the value read
+   */
+  protected final <T> T readAll(final Supplier<T> reader) {
+    final Lock lock = refreshedReadLock();
+    try {
+      return reader.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Apply every trade of the blotter, in blotter order, to the state of its ticker. */
+  protected final void replayAll() {
+    try (final Stream<Pair<Integer, TradeEntry>> trades = blotterStorage.streamTrades()) {
+      trades.forEach(
+          pair -> apply(tickerNumber(pair.getValue().ticker()), pair.getKey(), pair.getValue()));
+    }
+  }
+
+  /**
+   * Get the number of a ticker, interning it on first use.
+   *
+   * @param ticker the ticker
+   * @return the ticker number
+   */
+  protected final int tickerNumber(final String ticker) {
+    final Integer existing = tickerNumbers.get(ticker);
+    if (existing != null) {
+      return existing;
+    }
+    if (tickerCount == tickers.length) {
+      final int capacity = Math.max(INITIAL_CAPACITY, tickers.length * 2);
+      tickers = Arrays.copyOf(tickers, capacity);
+      grow(capacity);
+    }
+    final int number = tickerCount++;
+    tickers[number] = ticker;
+    tickerNumbers.put(ticker, number);
+    initTicker(number, ticker);
+    return number;
+  }
+
+  /**
+   * Gets the ticker of a ticker number.
+   *
+   * @param number the ticker number
+   * @return the ticker
+   */
+  protected final String ticker(final int number) {
+    return tickers[number];
+  }
+
+  /**
+   * Gets the number of interned tickers, ticker numbers are below it.
+   *
+   * @return the ticker count
+   */
+  protected final int tickerCount() {
+    return tickerCount;
+  }
+
+  /**
+   * Load the checkpoint if it is clean, interning its tickers.
+   *
+   * @return true if the checkpoint was clean and loaded
+   */
+  protected abstract boolean loadCheckpoint();
+
+  /** Remove the checkpoint, before the state is rebuilt from the blotter. */
+  protected abstract void clearCheckpoint();
+
+  /** Mark the stored checkpoint as possibly behind the blotter. */
+  protected abstract void markCheckpointUnclean();
+
+  /**
+   * Store the state of the given tickers and mark the checkpoint clean, in one commit.
+   *
+   * @param numbers the numbers of the tickers changed since the last checkpoint
+   */
+  protected abstract void writeCheckpoint(BitSet numbers);
+
+  /**
+   * Grow the state arrays to hold the given number of tickers, the arrays start empty.
+   *
+   * @param capacity the new capacity
+   */
+  protected abstract void grow(int capacity);
+
+  /**
+   * Initialize the state of a newly interned ticker, the state of a ticker without trades.
+   *
+   * @param number the ticker number
+   * @param ticker the ticker
+   */
+  protected abstract void initTicker(int number, String ticker);
+
+  /**
+   * Reset the state of a ticker to the state without trades, before its trades are replayed.
+   *
+   * @param number the ticker number
+   */
+  protected abstract void reset(int number);
+
+  /**
+   * Whether a trade sorts after the last trade applied to a ticker, so that it can be applied
+   * without replaying the trades of the ticker.
+   *
+   * @param number the ticker number
+   * @param id the trade id
+   * @param trade the trade entry
+   * @return true if the trade is after the last trade applied
+   */
+  protected abstract boolean isAfterLastTrade(int number, int id, TradeEntry trade);
+
+  /**
+   * Apply a trade to the state of its ticker, trades are applied in the blotter order of a ticker.
+   *
+   * @param number the ticker number
+   * @param id the trade id
+   * @param trade the trade entry
+   */
+  protected abstract void apply(int number, int id, TradeEntry trade);
+
+  // a write arriving while stopped is missing from the checkpoint, which must then be rebuilt
+  private void checkStarted() {
+    if (!started) {
+      markCheckpointUnclean();
+      throw new IllegalStateException(name + " is not started");
+    }
+  }
+
+  // the read lock, taken once no ticker is stale
+  private Lock refreshedReadLock() {
+    final Lock readLock = rwLock.readLock();
+    readLock.lock();
+    if (stale.isEmpty()) {
+      return readLock;
+    }
+    readLock.unlock();
+    final Lock writeLock = rwLock.writeLock();
+    writeLock.lock();
+    try {
+      refreshStale();
+      // downgrade, so no write lands between the refresh and the read
+      readLock.lock();
+    } finally {
+      writeLock.unlock();
+    }
+    return readLock;
+  }
+
+  private void refreshStale() {
+    for (int i = stale.nextSetBit(0); i >= 0; i = stale.nextSetBit(i + 1)) {
+      recompute(i);
+      stale.clear(i);
+    }
+  }
+
+  private void recompute(final int number) {
+    reset(number);
+    try (final Stream<Pair<Integer, TradeEntry>> trades =
+        blotterStorage.streamTradesByTicker(tickers[number])) {
+      trades.forEach(pair -> apply(number, pair.getKey(), pair.getValue()));
+    }
+    dirty.set(number);
+  }
+}
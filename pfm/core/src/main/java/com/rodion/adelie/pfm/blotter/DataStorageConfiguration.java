@@ -22,7 +22,43 @@ public interface DataStorageConfiguration {
 
   @Value.Immutable
   interface Unstable {
+    boolean DEFAULT_GROUP_COMMIT_ENABLED = true;
+    long DEFAULT_GROUP_COMMIT_WINDOW_MILLIS = 1;
+    int DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE = 1024;
+
     DataStorageConfiguration.Unstable DEFAULT =
         ImmutableDataStorageConfiguration.Unstable.builder().build();
+
+    /**
+     * Whether blotter writes go through the group commit writer, which syncs each batch of writes
+     * to the write-ahead log once. The writer runs between {@link Blotter#start()} and {@link
+     * Blotter#stop()}, writes outside that window fail.
+     *
+     * @return true if group commit is enabled
+     */
+    @Value.Default
+    default boolean getGroupCommitEnabled() {
+      return DEFAULT_GROUP_COMMIT_ENABLED;
+    }
+
+    /**
+     * How long the group commit writer waits for more writes after the first write of a batch.
+     *
+     * @return the group commit window in milliseconds
+     */
+    @Value.Default
+    default long getGroupCommitWindowMillis() {
+      return DEFAULT_GROUP_COMMIT_WINDOW_MILLIS;
+    }
+
+    /**
+     * The maximum number of writes in a group commit batch.
+     *
+     * @return the maximum batch size
+     */
+    @Value.Default
+    default int getGroupCommitMaxBatchSize() {
+      return DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE;
+    }
   }
 }
@@ -1,9 +1,16 @@
 package com.rodion.adelie.pfm.blotter;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import com.rodion.adelie.pfm.trade.TradeEntry;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,33 +18,185 @@ public class DefaultBlotter implements Blotter {
   private static final Logger logger = LoggerFactory.getLogger(DefaultBlotter.class);
 
   private final BlotterStorage blotterStorage;
+  private final TradeIdAllocator tradeIdAllocator;
+  private final Optional<GroupCommitBlotterWriter> groupCommitWriter;
+  private final TradeListeners tradeListeners = new TradeListeners();
+  // orders direct writes and their notifications when group commit is disabled
+  private final Object writeLock = new Object();
+  // guarded by writeLock, direct writes are refused once stopped
+  private boolean stopped;
 
-  public DefaultBlotter(BlotterStorage blotterStorage) {
+  public DefaultBlotter(BlotterStorage blotterStorage, TradeIdAllocator tradeIdAllocator) {
+    this(blotterStorage, tradeIdAllocator, Optional.empty());
+  }
+
+  public DefaultBlotter(
+      BlotterStorage blotterStorage,
+      TradeIdAllocator tradeIdAllocator,
+      Optional<GroupCommitBlotterWriter> groupCommitWriter) {
     checkNotNull(blotterStorage);
+    checkNotNull(tradeIdAllocator);
+    checkNotNull(groupCommitWriter);
     this.blotterStorage = blotterStorage;
+    this.tradeIdAllocator = tradeIdAllocator;
+    this.groupCommitWriter = groupCommitWriter;
+    blotterStorage.getMaxTradeId().ifPresent(tradeIdAllocator::advancePast);
+  }
+
+  @Override
+  public void start() {
+    groupCommitWriter.ifPresent(writer -> writer.start(tradeListeners));
   }
 
   @Override
-  public void start() {}
+  public void stop() {
+    synchronized (writeLock) {
+      stopped = true;
+    }
+    groupCommitWriter.ifPresent(GroupCommitBlotterWriter::stop);
+  }
 
   @Override
-  public void stop() {}
+  public void awaitStop() throws InterruptedException {
+    if (groupCommitWriter.isPresent()) {
+      groupCommitWriter.get().awaitStop();
+    }
+  }
 
   @Override
-  public void awaitStop() throws InterruptedException {}
+  public void addTradeListener(TradeListener listener) {
+    tradeListeners.add(checkNotNull(listener));
+  }
 
   @Override
   public List<TradeEntry> getTradesByTicker(String ticker) {
-    return List.of();
+    return blotterStorage.getTradesByTicker(ticker);
+  }
+
+  @Override
+  public Optional<TradeEntry> getTrade(int id) {
+    return blotterStorage.getTrade(id);
   }
 
   @Override
   public int upsertTrade(TradeEntry trade) {
-    return 0;
+    return await(upsertTradeAsync(trade));
+  }
+
+  @Override
+  public int addTrades(List<TradeEntry> trades) {
+    checkArgument(!trades.isEmpty(), "No trades to add");
+    trades.forEach(blotterStorage::validateTrade);
+    final int firstId = tradeIdAllocator.nextIds(trades.size());
+    if (groupCommitWriter.isPresent()) {
+      return await(groupCommitWriter.get().putTrades(firstId, trades));
+    }
+    synchronized (writeLock) {
+      checkNotStopped();
+      final BlotterStorage.Updater updater = blotterStorage.updater(WriteDurability.WAL_SYNC);
+      try {
+        for (int i = 0; i < trades.size(); i++) {
+          updater.putTrade(firstId + i, trades.get(i));
+        }
+        updater.commit();
+      } catch (final RuntimeException e) {
+        updater.rollback();
+        throw e;
+      }
+      // freshly allocated ids never replace a stored trade
+      for (int i = 0; i < trades.size(); i++) {
+        tradeListeners.onTradeStored(firstId + i, Optional.empty(), trades.get(i));
+      }
+    }
+    return firstId;
+  }
+
+  @Override
+  public void validateTrade(TradeEntry trade) {
+    blotterStorage.validateTrade(checkNotNull(trade));
+  }
+
+  @Override
+  public int upsertTrade(int id, TradeEntry trade) {
+    return await(upsertTradeAsync(id, trade));
   }
 
   @Override
   public int removeTrade(int id) {
-    return 0;
+    return await(removeTradeAsync(id));
+  }
+
+  @Override
+  public CompletableFuture<Integer> upsertTradeAsync(TradeEntry trade) {
+    return putTrade(tradeIdAllocator.nextId(), trade);
+  }
+
+  @Override
+  public CompletableFuture<Integer> upsertTradeAsync(int id, TradeEntry trade) {
+    tradeIdAllocator.advancePast(id);
+    return putTrade(id, trade);
+  }
+
+  @Override
+  public CompletableFuture<Integer> removeTradeAsync(int id) {
+    if (groupCommitWriter.isPresent()) {
+      return groupCommitWriter.get().removeTrade(id);
+    }
+    return commitNow(
+        () -> {
+          synchronized (writeLock) {
+            checkNotStopped();
+            final BlotterStorage.Updater updater = blotterStorage.updater();
+            final Optional<TradeEntry> removed = updater.removeTrade(id);
+            if (removed.isEmpty()) {
+              updater.rollback();
+              return NOT_FOUND;
+            }
+            updater.commit();
+            tradeListeners.onTradeRemoved(id, removed.get());
+            return id;
+          }
+        });
+  }
+
+  private CompletableFuture<Integer> putTrade(final int id, final TradeEntry trade) {
+    if (groupCommitWriter.isPresent()) {
+      return groupCommitWriter.get().putTrade(id, trade);
+    }
+    return commitNow(
+        () -> {
+          synchronized (writeLock) {
+            checkNotStopped();
+            final BlotterStorage.Updater updater = blotterStorage.updater();
+            final Optional<TradeEntry> previous = updater.putTrade(id, trade);
+            updater.commit();
+            tradeListeners.onTradeStored(id, previous, trade);
+            return id;
+          }
+        });
+  }
+
+  private void checkNotStopped() {
+    checkState(!stopped, "Blotter is stopped");
+  }
+
+  private static CompletableFuture<Integer> commitNow(final IntSupplier write) {
+    try {
+      return CompletableFuture.completedFuture(write.getAsInt());
+    } catch (final RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private static int await(final CompletableFuture<Integer> result) {
+    try {
+      return result.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      logger.error("Blotter write failed", e.getCause());
+      throw e;
+    }
   }
 }
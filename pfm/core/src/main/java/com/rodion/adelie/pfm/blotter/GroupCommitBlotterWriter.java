@@ -0,0 +1,254 @@
+package com.rodion.adelie.pfm.blotter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group commit stage in front of the blotter storage. Writes are queued and applied by a single
+ * writer thread, which coalesces the writes arriving within the commit window, up to the maximum
+ * batch size, into one write batch synced to the write-ahead log once. The future of each write
+ * completes when the batch holding it is durable, after the trade listener is notified.
+ *
+ * <p>Trades are validated before they are queued. Should a batch still fail to commit, its writes
+ * are committed one by one, so that only the failing write fails.
+ */
+public class GroupCommitBlotterWriter {
+  private static final Logger logger = LoggerFactory.getLogger(GroupCommitBlotterWriter.class);
+
+  // queued by stop() after the last accepted write, tells the writer thread to exit
+  private static final PendingWrite STOP = new PendingWrite(Blotter.NOT_FOUND, List.of(), null);
+
+  private final BlotterStorage blotterStorage;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+  private boolean running;
+  private Thread writerThread;
+  private TradeListener tradeListener;
+
+  /**
+   * Instantiates a new group commit writer.
+   *
+   * @param blotterStorage the blotter storage
+   * @param windowMillis how long to wait for more writes after the first write of a batch
+   * @param maxBatchSize the maximum number of writes in a batch
+   */
+  public GroupCommitBlotterWriter(
+      final BlotterStorage blotterStorage, final long windowMillis, final int maxBatchSize) {
+    checkNotNull(blotterStorage);
+    checkArgument(windowMillis >= 0, "Group commit window must not be negative");
+    checkArgument(maxBatchSize > 0, "Group commit batch size must be positive");
+    this.blotterStorage = blotterStorage;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Start the writer thread.
+   *
+   * @param tradeListener the listener notified of each committed write
+   */
+  public synchronized void start(final TradeListener tradeListener) {
+    checkState(writerThread == null, "Group commit writer already started");
+    this.tradeListener = checkNotNull(tradeListener);
+    running = true;
+    writerThread = new Thread(this::run, "Blotter-GroupCommit");
+    writerThread.start();
+  }
+
+  /** Stop accepting writes, writes already accepted are still committed. */
+  public synchronized void stop() {
+    if (running) {
+      running = false;
+      queue.add(STOP);
+    }
+  }
+
+  /**
+   * Wait for the writer thread to commit the accepted writes and exit.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void awaitStop() throws InterruptedException {
+    final Thread thread;
+    synchronized (this) {
+      thread = writerThread;
+    }
+    if (thread != null) {
+      thread.join();
+    }
+  }
+
+  /**
+   * Queue a trade to be stored, replacing any trade stored with the same id.
+   *
+   * @param id the trade id
+   * @param trade the trade entry
+   * @return the future trade id, completed once the trade is durable
+   * @throws IllegalArgumentException if the trade cannot be stored
+   */
+  public CompletableFuture<Integer> putTrade(final int id, final TradeEntry trade) {
+    checkArgument(id >= 0, "Trade id %s must not be negative", id);
+    checkNotNull(trade);
+    blotterStorage.validateTrade(trade);
+    return submit(new PendingWrite(id, List.of(trade), new CompletableFuture<>()));
+  }
+
+  /**
+   * Queue trades to be stored in the same batch, under consecutive ids in list order. The trades
+   * are committed all together or not at all.
+   *
+   * @param firstId the id of the first trade
+   * @param trades the trade entries
+   * @return the future id of the first trade, completed once the trades are durable
+   * @throws IllegalArgumentException if any of the trades cannot be stored
+   */
+  public CompletableFuture<Integer> putTrades(final int firstId, final List<TradeEntry> trades) {
+    checkArgument(firstId >= 0, "Trade id %s must not be negative", firstId);
+    checkArgument(!trades.isEmpty(), "No trades to put");
+    trades.forEach(blotterStorage::validateTrade);
+    return submit(new PendingWrite(firstId, List.copyOf(trades), new CompletableFuture<>()));
+  }
+
+  /**
+   * Queue a trade to be removed.
+   *
+   * @param id the trade id
+   * @return the future trade id, or {@link Blotter#NOT_FOUND} if no trade has this id, completed
+   *     once the removal is durable
+   */
+  public CompletableFuture<Integer> removeTrade(final int id) {
+    return submit(new PendingWrite(id, List.of(), new CompletableFuture<>()));
+  }
+
+  private CompletableFuture<Integer> submit(final PendingWrite write) {
+    synchronized (this) {
+      if (!running) {
+        write
+            .result()
+            .completeExceptionally(new IllegalStateException("Group commit writer is not running"));
+        return write.result();
+      }
+      queue.add(write);
+    }
+    return write.result();
+  }
+
+  private void run() {
+    final List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+    boolean stopping = false;
+    while (!stopping) {
+      try {
+        final PendingWrite first = queue.take();
+        if (first == STOP) {
+          break;
+        }
+        batch.add(first);
+        final long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+          final long remaining = deadline - System.nanoTime();
+          final PendingWrite next =
+              remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          if (next == STOP) {
+            stopping = true;
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (final InterruptedException e) {
+        logger.debug("Interrupted, committing pending blotter writes", e);
+        stopping = true;
+      }
+      commit(batch);
+      batch.clear();
+    }
+    synchronized (this) {
+      running = false;
+    }
+    // only reached before stop() when interrupted, fail whatever was queued meanwhile
+    queue.drainTo(batch);
+    batch.stream()
+        .filter(write -> write != STOP)
+        .forEach(
+            write ->
+                write
+                    .result()
+                    .completeExceptionally(
+                        new IllegalStateException("Group commit writer stopped")));
+    logger.debug("Blotter group commit writer stopped");
+  }
+
+  private void commit(final List<PendingWrite> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    final List<Optional<TradeEntry>> previous = new ArrayList<>(batch.size());
+    final BlotterStorage.Updater updater = blotterStorage.updater(WriteDurability.WAL_SYNC);
+    try {
+      for (final PendingWrite write : batch) {
+        if (write.isRemoval()) {
+          previous.add(updater.removeTrade(write.id()));
+        }
+        for (int i = 0; i < write.trades().size(); i++) {
+          previous.add(updater.putTrade(write.id() + i, write.trades().get(i)));
+        }
+      }
+      updater.commit();
+    } catch (final RuntimeException e) {
+      updater.rollback();
+      if (batch.size() > 1) {
+        logger.warn(
+            "Failed to commit a batch of {} blotter writes, retrying each", batch.size(), e);
+        batch.forEach(write -> commit(List.of(write)));
+      } else {
+        logger.error("Failed to commit blotter write for trade {}", batch.get(0).id(), e);
+        batch.get(0).result().completeExceptionally(e);
+      }
+      return;
+    }
+    int next = 0;
+    for (final PendingWrite write : batch) {
+      if (write.isRemoval()) {
+        final Optional<TradeEntry> removed = previous.get(next++);
+        if (removed.isPresent()) {
+          tradeListener.onTradeRemoved(write.id(), removed.get());
+          write.result().complete(write.id());
+        } else {
+          write.result().complete(Blotter.NOT_FOUND);
+        }
+        continue;
+      }
+      for (int i = 0; i < write.trades().size(); i++) {
+        tradeListener.onTradeStored(write.id() + i, previous.get(next++), write.trades().get(i));
+      }
+      write.result().complete(write.id());
+    }
+  }
+
+  /**
+   * A queued write of trades under consecutive ids from the given id, a removal when there are no
+   * trades.
+   */
+  private record PendingWrite(int id, List<TradeEntry> trades, CompletableFuture<Integer> result) {
+    boolean isRemoval() {
+      return trades.isEmpty();
+    }
+  }
+}
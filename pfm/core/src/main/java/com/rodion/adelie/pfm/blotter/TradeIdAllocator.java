@@ -0,0 +1,117 @@
+package com.rodion.adelie.pfm.blotter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageTransaction;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allocates monotonically increasing trade ids. Ids are reserved in blocks, persisting only the
+ * high-water mark of the reserved block, and handed out within a block with a compare-and-set so
+ * concurrent callers never take a lock or touch storage. After a restart allocation resumes from
+ * the persisted high-water mark, ids reserved but not handed out before the restart are skipped.
+ */
+public class TradeIdAllocator {
+  private static final Logger logger = LoggerFactory.getLogger(TradeIdAllocator.class);
+
+  /** The default number of ids reserved with each persisted write. */
+  public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+  private static final byte[] HIGH_WATER_MARK_KEY =
+      "tradeIdHighWaterMark".getBytes(StandardCharsets.UTF_8);
+
+  private static final int FIRST_ID = 1;
+
+  private final KeyValueStorage storage;
+  private final int blockSize;
+  private final AtomicInteger nextId;
+  // exclusive upper bound of the ids that may be handed out, only raised once persisted
+  private volatile int reservedLimit;
+
+  /**
+   * Instantiates a new trade id allocator.
+   *
+   * @param storage the storage the high-water mark is persisted to
+   * @param blockSize the number of ids reserved with each persisted write
+   */
+  public TradeIdAllocator(final KeyValueStorage storage, final int blockSize) {
+    checkArgument(blockSize > 0, "Block size %s must be positive", blockSize);
+    this.storage = storage;
+    this.blockSize = blockSize;
+    final int highWaterMark =
+        storage
+            .get(HIGH_WATER_MARK_KEY)
+            .map(bytes -> ByteBuffer.wrap(bytes).getInt())
+            .orElse(FIRST_ID);
+    this.nextId = new AtomicInteger(highWaterMark);
+    this.reservedLimit = highWaterMark;
+    logger.debug("Trade id allocation resumes from {}", highWaterMark);
+  }
+
+  /**
+   * Allocate the next trade id.
+   *
+   * @return the trade id
+   */
+  public int nextId() {
+    while (true) {
+      final int id = nextId.get();
+      if (id < reservedLimit) {
+        if (nextId.compareAndSet(id, id + 1)) {
+          return id;
+        }
+      } else {
+        reserveBlock(id, 1);
+      }
+    }
+  }
+
+  /**
+   * Allocate a contiguous range of trade ids, e.g. for a bulk import.
+   *
+   * @param count the number of ids
+   * @return the first trade id of the range
+   */
+  public int nextIds(final int count) {
+    checkArgument(count > 0, "Id count %s must be positive", count);
+    while (true) {
+      final int id = nextId.get();
+      final int end = Math.addExact(id, count);
+      if (end <= reservedLimit) {
+        if (nextId.compareAndSet(id, end)) {
+          return id;
+        }
+      } else {
+        reserveBlock(id, count);
+      }
+    }
+  }
+
+  /**
+   * Make sure an id assigned outside the allocator, e.g. a trade stored with an explicit id, is
+   * never handed out again.
+   *
+   * @param id the used id
+   */
+  public void advancePast(final int id) {
+    // a block covering the id is reserved lazily by the next allocation past the limit
+    nextId.accumulateAndGet(Math.addExact(id, 1), Math::max);
+  }
+
+  private synchronized void reserveBlock(final int from, final int count) {
+    if (Math.addExact(from, count) <= reservedLimit) {
+      // another caller reserved a block while we were waiting
+      return;
+    }
+    final int limit = Math.addExact(from, Math.max(blockSize, count));
+    final KeyValueStorageTransaction transaction = storage.startTransaction();
+    transaction.put(HIGH_WATER_MARK_KEY, ByteBuffer.allocate(Integer.BYTES).putInt(limit).array());
+    transaction.commit();
+    reservedLimit = limit;
+  }
+}
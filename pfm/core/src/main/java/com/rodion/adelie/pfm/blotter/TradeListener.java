@@ -0,0 +1,30 @@
+package com.rodion.adelie.pfm.blotter;
+
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import java.util.Optional;
+
+/**
+ * Listener of the blotter writes. Notifications are made once a write is committed, in commit
+ * order, and must not block: they may run on the thread committing writes, so work such as reading
+ * the blotter back should be deferred. A notification that throws is logged and not retried, so a
+ * listener keeping state derived from the blotter must treat a failure as that state diverging.
+ */
+public interface TradeListener {
+
+  /**
+   * Called when a trade is stored.
+   *
+   * @param id the trade id
+   * @param previous the replaced trade entry, empty if the trade is new
+   * @param trade the stored trade entry
+   */
+  void onTradeStored(int id, Optional<TradeEntry> previous, TradeEntry trade);
+
+  /**
+   * Called when a trade is removed.
+   *
+   * @param id the trade id
+   * @param removed the removed trade entry
+   */
+  void onTradeRemoved(int id, TradeEntry removed);
+}
@@ -0,0 +1,42 @@
+package com.rodion.adelie.pfm.blotter;
+
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Dispatches blotter writes to the registered listeners, a failing listener is only logged. */
+class TradeListeners implements TradeListener {
+  private static final Logger logger = LoggerFactory.getLogger(TradeListeners.class);
+
+  private final List<TradeListener> listeners = new CopyOnWriteArrayList<>();
+
+  void add(final TradeListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void onTradeStored(
+      final int id, final Optional<TradeEntry> previous, final TradeEntry trade) {
+    for (final TradeListener listener : listeners) {
+      try {
+        listener.onTradeStored(id, previous, trade);
+      } catch (final RuntimeException e) {
+        logger.error("Trade listener failed on stored trade {}", id, e);
+      }
+    }
+  }
+
+  @Override
+  public void onTradeRemoved(final int id, final TradeEntry removed) {
+    for (final TradeListener listener : listeners) {
+      try {
+        listener.onTradeRemoved(id, removed);
+      } catch (final RuntimeException e) {
+        logger.error("Trade listener failed on removed trade {}", id, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.rodion.adelie.pfm.marketdata;
+
+/**
+ * The open, high, low and close prices of a ticker over one bucket of a {@link BarResolution}.
+ * Price ticks carry no traded size, so the number of ticks rolled into the bar stands in for its
+ * volume. The times of the first and last tick are kept so that ticks arriving out of order can be
+ * rolled into the bar exactly.
+ *
+ * @param startMillis the start of the bucket
+ * @param firstTickMillis the time of the tick setting the open price
+ * @param lastTickMillis the time of the tick setting the close price
+ * @param open the open price
+ * @param high the high price
+ * @param low the low price
+ * @param close the close price
+ * @param tickCount the number of ticks rolled into the bar
+ */
+public record Bar(
+    long startMillis,
+    long firstTickMillis,
+    long lastTickMillis,
+    double open,
+    double high,
+    double low,
+    double close,
+    long tickCount) {
+
+  /**
+   * Create the bar of a single tick.
+   *
+   * @param startMillis the start of the bucket holding the tick
+   * @param timestampMillis the time of the tick
+   * @param price the price
+   * @return the bar
+   */
+  public static Bar of(final long startMillis, final long timestampMillis, final double price) {
+    return new Bar(startMillis, timestampMillis, timestampMillis, price, price, price, price, 1);
+  }
+
+  /**
+   * Roll a tick of the same bucket into the bar. A tick at the time of the last tick closes the
+   * bar, as ticks of equal time are stored in arrival order.
+   *
+   * @param timestampMillis the time of the tick
+   * @param price the price
+   * @return the bar including the tick
+   */
+  public Bar add(final long timestampMillis, final double price) {
+    final boolean opens = timestampMillis < firstTickMillis;
+    final boolean closes = timestampMillis >= lastTickMillis;
+    return new Bar(
+        startMillis,
+        opens ? timestampMillis : firstTickMillis,
+        closes ? timestampMillis : lastTickMillis,
+        opens ? price : open,
+        Math.max(high, price),
+        Math.min(low, price),
+        closes ? price : close,
+        tickCount + 1);
+  }
+}
@@ -0,0 +1,242 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rolls price ticks up into OHLC bars at every {@link BarResolution} as they are appended. Each
+ * append writes the bars it touched in one transaction, so stored bars always include the ticks
+ * appended so far and bar queries are served from storage alone. The latest bar of each ticker and
+ * resolution is kept in memory, so in order ticks are rolled up without reading storage; ticks
+ * before the latest bar are rolled into the stored bar of their bucket.
+ *
+ * <p>The price history and the bars are committed separately. The time range of an append is stored
+ * as pending before its ticks are written to the history, and removed in the transaction writing
+ * its bars. On start, the day buckets of any pending range left by a crash are rebuilt from the
+ * history.
+ */
+public class BarAggregator {
+  private static final Logger logger = LoggerFactory.getLogger(BarAggregator.class);
+
+  private static final BarResolution[] RESOLUTIONS = BarResolution.values();
+  private static final int REBUILD_BATCH_SIZE = 10_000;
+
+  private final TimeSeriesStorage timeSeriesStorage;
+  private final BarStorage barStorage;
+  // the latest bar of each ticker, indexed by resolution ordinal
+  private final Map<String, Bar[]> latestBars = new HashMap<>();
+
+  /**
+   * Instantiates a new bar aggregator.
+   *
+   * @param timeSeriesStorage the price history bars are rebuilt from
+   * @param barStorage the bar storage
+   */
+  public BarAggregator(final TimeSeriesStorage timeSeriesStorage, final BarStorage barStorage) {
+    checkNotNull(timeSeriesStorage);
+    checkNotNull(barStorage);
+    this.timeSeriesStorage = timeSeriesStorage;
+    this.barStorage = barStorage;
+  }
+
+  /** Rebuild the buckets of the ticks appended to the price history but not rolled into bars. */
+  public synchronized void start() {
+    final Map<String, BarStorage.PendingRange> pending = barStorage.getPendingRanges();
+    pending.forEach(
+        (ticker, range) -> {
+          final BarResolution coarsest = RESOLUTIONS[RESOLUTIONS.length - 1];
+          // buckets nest, so whole coarsest buckets cover every bucket touched by the range
+          rebuild(
+              ticker,
+              coarsest.bucketStart(range.fromMillis()),
+              coarsest.bucketEnd(range.toMillis()));
+          latestBars.remove(ticker);
+        });
+    if (!pending.isEmpty()) {
+      logger.info("Rebuilt the pending bars of {} tickers", pending.size());
+    }
+  }
+
+  /**
+   * Append ticks to the price history of a ticker and roll them into its bars.
+   *
+   * @param ticker the ticker
+   * @param ticks the price ticks, in any order
+   */
+  public synchronized void append(final String ticker, final List<PriceTick> ticks) {
+    if (ticks.isEmpty()) {
+      return;
+    }
+    long fromMillis = Long.MAX_VALUE;
+    long toMillis = Long.MIN_VALUE;
+    for (final PriceTick tick : ticks) {
+      fromMillis = Math.min(fromMillis, tick.timestampMillis());
+      toMillis = Math.max(toMillis, tick.timestampMillis());
+    }
+    final Optional<BarStorage.PendingRange> earlier = barStorage.getPendingRange(ticker);
+    final BarStorage.PendingRange range = new BarStorage.PendingRange(fromMillis, toMillis);
+    final BarStorage.Updater pending = barStorage.updater();
+    pending.putPendingRange(ticker, earlier.map(range::union).orElse(range));
+    pending.commit();
+    timeSeriesStorage.append(ticker, ticks);
+    // an earlier range was never rolled up, so it stays pending until the next start
+    onTicks(ticker, ticks, earlier.isEmpty());
+  }
+
+  /**
+   * Mark the whole history of tickers pending, before ticks are written to it without going through
+   * {@link #append(String, List)}. The bars are up to date again once each ticker is rebuilt.
+   *
+   * @param tickers the tickers
+   */
+  synchronized void markPending(final Set<String> tickers) {
+    final BarStorage.Updater updater = barStorage.updater();
+    tickers.forEach(
+        ticker ->
+            updater.putPendingRange(
+                ticker, new BarStorage.PendingRange(Long.MIN_VALUE, Long.MAX_VALUE)));
+    updater.commit();
+  }
+
+  private void onTicks(
+      final String ticker, final List<PriceTick> ticks, final boolean clearPending) {
+    final Bar[] latest = latestBars.getOrDefault(ticker, new Bar[RESOLUTIONS.length]).clone();
+    final BarStorage.Updater updater = barStorage.updater();
+    try {
+      for (final BarResolution resolution : RESOLUTIONS) {
+        final Bar current = latest[resolution.ordinal()];
+        final Map<Long, Bar> touched = new LinkedHashMap<>();
+        for (final PriceTick tick : ticks) {
+          final long bucket = resolution.bucketStart(tick.timestampMillis());
+          Bar bar = touched.get(bucket);
+          if (bar == null) {
+            bar =
+                current != null && current.startMillis() == bucket
+                    ? current
+                    : barStorage.getBar(ticker, resolution, bucket).orElse(null);
+          }
+          touched.put(
+              bucket,
+              bar == null
+                  ? Bar.of(bucket, tick.timestampMillis(), tick.price())
+                  : bar.add(tick.timestampMillis(), tick.price()));
+        }
+        for (final Bar bar : touched.values()) {
+          updater.putBar(ticker, resolution, bar);
+          final Bar last = latest[resolution.ordinal()];
+          if (last == null || last.startMillis() <= bar.startMillis()) {
+            latest[resolution.ordinal()] = bar;
+          }
+        }
+      }
+      if (clearPending) {
+        updater.removePendingRange(ticker);
+      }
+      updater.commit();
+    } catch (final RuntimeException e) {
+      updater.rollback();
+      throw e;
+    }
+    latestBars.put(ticker, latest);
+  }
+
+  /**
+   * Rebuild the bars of a ticker from its whole price history, after ticks were written without
+   * going through {@link #append(String, List)}.
+   *
+   * @param ticker the ticker
+   */
+  public synchronized void rebuild(final String ticker) {
+    latestBars.put(ticker, rebuild(ticker, Long.MIN_VALUE, Long.MAX_VALUE));
+  }
+
+  /**
+   * Get the bars of a ticker whose buckets start in a time range.
+   *
+   * @param ticker the ticker
+   * @param resolution the resolution
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   * @return the bars in time order
+   */
+  public List<Bar> getBars(
+      final String ticker,
+      final BarResolution resolution,
+      final long fromMillis,
+      final long toMillis) {
+    return barStorage.getBars(ticker, resolution, fromMillis, toMillis);
+  }
+
+  // rebuilds the bars of whole buckets in a range and clears the pending range, returns the last
+  // bars
+  private Bar[] rebuild(final String ticker, final long fromMillis, final long toMillis) {
+    final Rebuild rebuild = new Rebuild(ticker);
+    try {
+      timeSeriesStorage.forEachTick(ticker, fromMillis, toMillis, rebuild);
+      rebuild.finish();
+    } catch (final RuntimeException e) {
+      rebuild.updater.rollback();
+      throw e;
+    }
+    logger.debug("Rebuilt {} bars of {}", rebuild.barCount, ticker);
+    return rebuild.open;
+  }
+
+  /** Rolls up a price history streamed in timestamp order, writing bars as their bucket ends. */
+  private class Rebuild implements GorillaChunkDecoder.TickConsumer {
+    private final String ticker;
+    private final Bar[] open = new Bar[RESOLUTIONS.length];
+    private BarStorage.Updater updater = barStorage.updater();
+    private int pending;
+    private long barCount;
+
+    private Rebuild(final String ticker) {
+      this.ticker = ticker;
+    }
+
+    @Override
+    public void accept(final long timestampMillis, final double price) {
+      for (final BarResolution resolution : RESOLUTIONS) {
+        final long bucket = resolution.bucketStart(timestampMillis);
+        final Bar bar = open[resolution.ordinal()];
+        if (bar != null && bar.startMillis() == bucket) {
+          open[resolution.ordinal()] = bar.add(timestampMillis, price);
+          continue;
+        }
+        if (bar != null) {
+          put(resolution, bar);
+        }
+        open[resolution.ordinal()] = Bar.of(bucket, timestampMillis, price);
+      }
+    }
+
+    private void put(final BarResolution resolution, final Bar bar) {
+      updater.putBar(ticker, resolution, bar);
+      barCount++;
+      if (++pending == REBUILD_BATCH_SIZE) {
+        updater.commit();
+        updater = barStorage.updater();
+        pending = 0;
+      }
+    }
+
+    private void finish() {
+      for (final BarResolution resolution : RESOLUTIONS) {
+        if (open[resolution.ordinal()] != null) {
+          put(resolution, open[resolution.ordinal()]);
+        }
+      }
+      // last, so a rebuild cut short is redone on the next start
+      updater.removePendingRange(ticker);
+      updater.commit();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary encoding of a {@link Bar}, the bucket start is not encoded as bars are stored
+ * under it.
+ *
+ * <pre>
+ * version (1) | first tick millis (8) | last tick millis (8) | open, high, low, close (8 each) | tick count (8)
+ * </pre>
+ */
+public final class BarCodec {
+
+  private static final byte VERSION = 1;
+  private static final int SIZE = 1 + Long.BYTES * 2 + Double.BYTES * 4 + Long.BYTES;
+
+  private BarCodec() {}
+
+  /**
+   * Encode a bar.
+   *
+   * @param bar the bar
+   * @return the encoded bar
+   */
+  public static byte[] encode(final Bar bar) {
+    return ByteBuffer.allocate(SIZE)
+        .put(VERSION)
+        .putLong(bar.firstTickMillis())
+        .putLong(bar.lastTickMillis())
+        .putDouble(bar.open())
+        .putDouble(bar.high())
+        .putDouble(bar.low())
+        .putDouble(bar.close())
+        .putLong(bar.tickCount())
+        .array();
+  }
+
+  /**
+   * Decode a bar.
+   *
+   * @param startMillis the bucket start the bar is stored under
+   * @param encoded the encoded bar
+   * @return the bar
+   * @throws IllegalArgumentException if the bytes are not an encoded bar
+   */
+  public static Bar decode(final long startMillis, final byte[] encoded) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    try {
+      final byte version = buffer.get();
+      checkArgument(version == VERSION, "Unsupported bar encoding version %s", version);
+      return new Bar(
+          startMillis,
+          buffer.getLong(),
+          buffer.getLong(),
+          buffer.getDouble(),
+          buffer.getDouble(),
+          buffer.getDouble(),
+          buffer.getDouble(),
+          buffer.getLong());
+    } catch (final BufferUnderflowException e) {
+      throw new IllegalArgumentException("Malformed bar encoding", e);
+    }
+  }
+}
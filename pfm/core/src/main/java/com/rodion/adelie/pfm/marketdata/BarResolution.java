@@ -0,0 +1,61 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import java.util.concurrent.TimeUnit;
+
+/** The time spans ticks are rolled up into bars over, buckets are aligned to the UTC epoch. */
+public enum BarResolution {
+  ONE_MINUTE((byte) 1, TimeUnit.MINUTES.toMillis(1)),
+  ONE_HOUR((byte) 2, TimeUnit.HOURS.toMillis(1)),
+  ONE_DAY((byte) 3, TimeUnit.DAYS.toMillis(1));
+
+  private final byte code;
+  private final long millis;
+
+  BarResolution(final byte code, final long millis) {
+    this.code = code;
+    this.millis = millis;
+  }
+
+  /**
+   * Gets the code the resolution is stored under.
+   *
+   * @return the code
+   */
+  public byte getCode() {
+    return code;
+  }
+
+  /**
+   * Gets the time span of a bar.
+   *
+   * @return the span in millis
+   */
+  public long getMillis() {
+    return millis;
+  }
+
+  /**
+   * Get the start of the bar holding a timestamp, clamped to the earliest representable time.
+   *
+   * @param timestampMillis the timestamp
+   * @return the start of the bar
+   */
+  public long bucketStart(final long timestampMillis) {
+    final long start = Math.floorDiv(timestampMillis, millis) * millis;
+    // the first bucket starts before Long.MIN_VALUE and overflows
+    return start > timestampMillis ? Long.MIN_VALUE : start;
+  }
+
+  /**
+   * Get the last millisecond of the bar holding a timestamp, clamped to the latest representable
+   * time.
+   *
+   * @param timestampMillis the timestamp
+   * @return the end of the bar, inclusive
+   */
+  public long bucketEnd(final long timestampMillis) {
+    // wraps around and back for the first bucket, only the last bucket ends past Long.MAX_VALUE
+    final long end = Math.floorDiv(timestampMillis, millis) * millis + (millis - 1);
+    return end < timestampMillis ? Long.MAX_VALUE : end;
+  }
+}
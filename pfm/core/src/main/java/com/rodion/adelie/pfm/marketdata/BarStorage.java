@@ -0,0 +1,101 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** Storage of the OHLC bars of each ticker at each resolution. */
+public interface BarStorage {
+
+  /**
+   * Get the bar of a bucket.
+   *
+   * @param ticker the ticker
+   * @param resolution the resolution
+   * @param startMillis the start of the bucket
+   * @return the bar, empty if the bucket has no ticks
+   */
+  Optional<Bar> getBar(String ticker, BarResolution resolution, long startMillis);
+
+  /**
+   * Get the bars of a ticker whose buckets start in a time range.
+   *
+   * @param ticker the ticker
+   * @param resolution the resolution
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   * @return the bars in time order
+   */
+  List<Bar> getBars(String ticker, BarResolution resolution, long fromMillis, long toMillis);
+
+  /**
+   * Get the time range of the ticks of a ticker written to the price history but possibly not yet
+   * rolled into its bars.
+   *
+   * @param ticker the ticker
+   * @return the pending range, empty if the bars of the ticker are up to date
+   */
+  Optional<PendingRange> getPendingRange(String ticker);
+
+  /**
+   * Get the pending ranges of all tickers.
+   *
+   * @return the pending range of each ticker whose bars may be behind its price history
+   */
+  Map<String, PendingRange> getPendingRanges();
+
+  Updater updater();
+
+  void clear();
+
+  interface Updater {
+
+    /**
+     * Store a bar, replacing the bar stored for its bucket.
+     *
+     * @param ticker the ticker
+     * @param resolution the resolution
+     * @param bar the bar
+     */
+    void putBar(String ticker, BarResolution resolution, Bar bar);
+
+    /**
+     * Store the pending range of a ticker, replacing its stored pending range.
+     *
+     * @param ticker the ticker
+     * @param range the pending range
+     */
+    void putPendingRange(String ticker, PendingRange range);
+
+    /**
+     * Remove the pending range of a ticker, once its bars are up to date.
+     *
+     * @param ticker the ticker
+     */
+    void removePendingRange(String ticker);
+
+    void commit();
+
+    void rollback();
+  }
+
+  /**
+   * A time range of ticks whose bars may not be rolled up.
+   *
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   */
+  record PendingRange(long fromMillis, long toMillis) {
+
+    /**
+     * Widen the range to cover another range.
+     *
+     * @param other the other range
+     * @return the range covering both
+     */
+    public PendingRange union(final PendingRange other) {
+      return new PendingRange(
+          Math.min(fromMillis, other.fromMillis), Math.max(toMillis, other.toMillis));
+    }
+  }
+}
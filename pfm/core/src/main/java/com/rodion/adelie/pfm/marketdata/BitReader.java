@@ -0,0 +1,43 @@
+package com.rodion.adelie.pfm.marketdata;
+
+/** Reads bits most significant first from a byte array. */
+final class BitReader {
+
+  private final byte[] bytes;
+  private int position;
+
+  /**
+   * Instantiates a new bit reader.
+   *
+   * @param bytes the buffer to read
+   * @param offset the offset of the first byte to read
+   */
+  BitReader(final byte[] bytes, final int offset) {
+    this.bytes = bytes;
+    this.position = offset * 8;
+  }
+
+  boolean readBit() {
+    return readBits(1) != 0;
+  }
+
+  /**
+   * Read bits into the low bits of a value.
+   *
+   * @param bits the number of bits to read, up to 64
+   * @return the value read
+   */
+  long readBits(final int bits) {
+    long value = 0;
+    int remaining = bits;
+    while (remaining > 0) {
+      final int available = 8 - (position & 7);
+      final int read = Math.min(available, remaining);
+      final int chunk = (bytes[position >>> 3] >>> (available - read)) & ((1 << read) - 1);
+      value = (value << read) | chunk;
+      remaining -= read;
+      position += read;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,75 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import java.util.Arrays;
+
+/** Appends bits most significant first to a growable byte array. */
+final class BitWriter {
+
+  private byte[] bytes;
+  private int bitLength;
+
+  BitWriter(final int capacity) {
+    this.bytes = new byte[Math.max(capacity, 8)];
+  }
+
+  /**
+   * Resume writing after the bits already written to a buffer.
+   *
+   * @param source the buffer holding the written bits
+   * @param offset the offset of the first byte in the buffer
+   * @param bitLength the number of bits written
+   */
+  BitWriter(final byte[] source, final int offset, final int bitLength) {
+    final int length = (bitLength + 7) >>> 3;
+    this.bytes = Arrays.copyOfRange(source, offset, offset + Math.max(length * 2, 8));
+    this.bitLength = bitLength;
+  }
+
+  void writeBit(final boolean bit) {
+    writeBits(bit ? 1 : 0, 1);
+  }
+
+  /**
+   * Write the low bits of a value, most significant first.
+   *
+   * @param value the value
+   * @param bits the number of low bits to write, up to 64
+   */
+  void writeBits(final long value, final int bits) {
+    int remaining = bits;
+    ensureCapacity(bitLength + bits);
+    while (remaining > 0) {
+      final int free = 8 - (bitLength & 7);
+      final int written = Math.min(free, remaining);
+      final int chunk = (int) (value >>> (remaining - written)) & ((1 << written) - 1);
+      bytes[bitLength >>> 3] |= (byte) (chunk << (free - written));
+      remaining -= written;
+      bitLength += written;
+    }
+  }
+
+  int bitLength() {
+    return bitLength;
+  }
+
+  int byteLength() {
+    return (bitLength + 7) >>> 3;
+  }
+
+  /**
+   * Copy the written bytes, the last byte is padded with zero bits.
+   *
+   * @param target the target buffer
+   * @param offset the offset in the target buffer
+   */
+  void copyTo(final byte[] target, final int offset) {
+    System.arraycopy(bytes, 0, target, offset, byteLength());
+  }
+
+  private void ensureCapacity(final int bits) {
+    final int length = (bits + 7) >>> 3;
+    if (length > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(length, bytes.length * 2));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Decodes the price ticks of a chunk encoded by {@link GorillaChunkEncoder}. */
+public final class GorillaChunkDecoder {
+
+  private GorillaChunkDecoder() {}
+
+  /** Receives the decoded ticks without boxing them. */
+  @FunctionalInterface
+  public interface TickConsumer {
+
+    /**
+     * Accept a tick.
+     *
+     * @param timestampMillis the time of the price
+     * @param price the price
+     */
+    void accept(long timestampMillis, double price);
+  }
+
+  /**
+   * Get the last tick of a chunk from its header.
+   *
+   * @param chunk the encoded chunk
+   * @return the last tick
+   */
+  public static PriceTick lastTick(final byte[] chunk) {
+    final ByteBuffer header = header(chunk);
+    return new PriceTick(
+        header.getLong(GorillaChunkEncoder.LAST_TIMESTAMP_OFFSET),
+        Double.longBitsToDouble(header.getLong(GorillaChunkEncoder.LAST_VALUE_OFFSET)));
+  }
+
+  /**
+   * Decode the ticks of a chunk.
+   *
+   * @param chunk the encoded chunk
+   * @return the ticks in timestamp order
+   */
+  public static List<PriceTick> decode(final byte[] chunk) {
+    final List<PriceTick> ticks =
+        new ArrayList<>(header(chunk).getInt(GorillaChunkEncoder.COUNT_OFFSET));
+    forEach(chunk, (timestamp, price) -> ticks.add(new PriceTick(timestamp, price)));
+    return ticks;
+  }
+
+  /**
+   * Decode the ticks of a chunk one by one.
+   *
+   * @param chunk the encoded chunk
+   * @param consumer the consumer of the ticks, called in timestamp order
+   */
+  public static void forEach(final byte[] chunk, final TickConsumer consumer) {
+    final int count = header(chunk).getInt(GorillaChunkEncoder.COUNT_OFFSET);
+    if (count == 0) {
+      return;
+    }
+    final BitReader bits = new BitReader(chunk, GorillaChunkEncoder.HEADER_SIZE);
+    long timestamp = bits.readBits(64);
+    long valueBits = bits.readBits(64);
+    consumer.accept(timestamp, Double.longBitsToDouble(valueBits));
+    long delta = 0;
+    int leadingZeros = 0;
+    int trailingZeros = 0;
+    for (int i = 1; i < count; i++) {
+      delta += readDeltaOfDelta(bits);
+      timestamp += delta;
+      if (bits.readBit()) {
+        if (bits.readBit()) {
+          leadingZeros = (int) bits.readBits(5);
+          final int meaningful = (int) bits.readBits(6) + 1;
+          trailingZeros = 64 - leadingZeros - meaningful;
+        }
+        valueBits ^= bits.readBits(64 - leadingZeros - trailingZeros) << trailingZeros;
+      }
+      consumer.accept(timestamp, Double.longBitsToDouble(valueBits));
+    }
+  }
+
+  private static long readDeltaOfDelta(final BitReader bits) {
+    if (!bits.readBit()) {
+      return 0;
+    } else if (!bits.readBit()) {
+      return signExtend(bits.readBits(7), 7);
+    } else if (!bits.readBit()) {
+      return signExtend(bits.readBits(9), 9);
+    } else if (!bits.readBit()) {
+      return signExtend(bits.readBits(12), 12);
+    }
+    return bits.readBits(64);
+  }
+
+  private static long signExtend(final long value, final int bits) {
+    return (value << (64 - bits)) >> (64 - bits);
+  }
+
+  private static ByteBuffer header(final byte[] chunk) {
+    checkArgument(
+        chunk.length >= GorillaChunkEncoder.HEADER_SIZE && chunk[0] == GorillaChunkEncoder.VERSION,
+        "Malformed price chunk");
+    return ByteBuffer.wrap(chunk);
+  }
+}
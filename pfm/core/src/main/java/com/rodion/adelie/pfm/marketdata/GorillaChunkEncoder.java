@@ -0,0 +1,167 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a chunk of price ticks in the Gorilla format. Timestamps are written as the difference
+ * between consecutive deltas and prices as the XOR with the previous price, so that regular ticks
+ * with small price moves take a few bits each.
+ *
+ * <p>The chunk header holds the encoder state, so that appending to a stored chunk resumes the
+ * encoding without decoding the ticks.
+ *
+ * <pre>
+ * version (1) | count (4) | last timestamp (8) | last delta (8) | last price bits (8)
+ *   | leading zeros (1) | trailing zeros (1) | bit length (4) | bits
+ * </pre>
+ */
+public final class GorillaChunkEncoder {
+
+  static final byte VERSION = 1;
+  static final int COUNT_OFFSET = 1;
+  static final int LAST_TIMESTAMP_OFFSET = COUNT_OFFSET + Integer.BYTES;
+  static final int LAST_DELTA_OFFSET = LAST_TIMESTAMP_OFFSET + Long.BYTES;
+  static final int LAST_VALUE_OFFSET = LAST_DELTA_OFFSET + Long.BYTES;
+  static final int LEADING_OFFSET = LAST_VALUE_OFFSET + Long.BYTES;
+  static final int TRAILING_OFFSET = LEADING_OFFSET + 1;
+  static final int BIT_LENGTH_OFFSET = TRAILING_OFFSET + 1;
+  static final int HEADER_SIZE = BIT_LENGTH_OFFSET + Integer.BYTES;
+
+  // no XOR window yet, the next non zero XOR writes its own
+  private static final int NO_WINDOW = 0xff;
+  private static final int MAX_LEADING_ZEROS = 31;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final BitWriter bits;
+  private int count;
+  private long lastTimestamp;
+  private long lastDelta;
+  private long lastValueBits;
+  private int leadingZeros = NO_WINDOW;
+  private int trailingZeros;
+
+  /** Instantiates an encoder for an empty chunk. */
+  public GorillaChunkEncoder() {
+    this.bits = new BitWriter(INITIAL_CAPACITY);
+  }
+
+  private GorillaChunkEncoder(final byte[] chunk) {
+    final ByteBuffer header = ByteBuffer.wrap(chunk);
+    checkArgument(chunk.length >= HEADER_SIZE && header.get(0) == VERSION, "Malformed price chunk");
+    this.count = header.getInt(COUNT_OFFSET);
+    this.lastTimestamp = header.getLong(LAST_TIMESTAMP_OFFSET);
+    this.lastDelta = header.getLong(LAST_DELTA_OFFSET);
+    this.lastValueBits = header.getLong(LAST_VALUE_OFFSET);
+    this.leadingZeros = Byte.toUnsignedInt(header.get(LEADING_OFFSET));
+    this.trailingZeros = Byte.toUnsignedInt(header.get(TRAILING_OFFSET));
+    this.bits = new BitWriter(chunk, HEADER_SIZE, header.getInt(BIT_LENGTH_OFFSET));
+  }
+
+  /**
+   * Resume appending to an encoded chunk.
+   *
+   * @param chunk the encoded chunk
+   * @return the encoder positioned after the last tick of the chunk
+   */
+  public static GorillaChunkEncoder resume(final byte[] chunk) {
+    return new GorillaChunkEncoder(chunk);
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public long getLastTimestamp() {
+    return lastTimestamp;
+  }
+
+  /**
+   * Append a tick, ticks must be appended in timestamp order.
+   *
+   * @param timestampMillis the time of the price
+   * @param price the price
+   */
+  public void append(final long timestampMillis, final double price) {
+    checkArgument(
+        count == 0 || timestampMillis >= lastTimestamp,
+        "Tick at %s is before the last tick at %s",
+        timestampMillis,
+        lastTimestamp);
+    final long valueBits = Double.doubleToLongBits(price);
+    if (count == 0) {
+      bits.writeBits(timestampMillis, 64);
+      bits.writeBits(valueBits, 64);
+    } else {
+      final long delta = timestampMillis - lastTimestamp;
+      writeDeltaOfDelta(delta - lastDelta);
+      writeXor(valueBits ^ lastValueBits);
+      lastDelta = delta;
+    }
+    lastTimestamp = timestampMillis;
+    lastValueBits = valueBits;
+    count++;
+  }
+
+  /**
+   * Encode the chunk.
+   *
+   * @return the encoded chunk
+   */
+  public byte[] toBytes() {
+    final byte[] chunk = new byte[HEADER_SIZE + bits.byteLength()];
+    ByteBuffer.wrap(chunk)
+        .put(VERSION)
+        .putInt(count)
+        .putLong(lastTimestamp)
+        .putLong(lastDelta)
+        .putLong(lastValueBits)
+        .put((byte) leadingZeros)
+        .put((byte) trailingZeros)
+        .putInt(bits.bitLength());
+    bits.copyTo(chunk, HEADER_SIZE);
+    return chunk;
+  }
+
+  private void writeDeltaOfDelta(final long deltaOfDelta) {
+    if (deltaOfDelta == 0) {
+      bits.writeBit(false);
+    } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+      bits.writeBits(0b10, 2);
+      bits.writeBits(deltaOfDelta, 7);
+    } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+      bits.writeBits(0b110, 3);
+      bits.writeBits(deltaOfDelta, 9);
+    } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+      bits.writeBits(0b1110, 4);
+      bits.writeBits(deltaOfDelta, 12);
+    } else {
+      bits.writeBits(0b1111, 4);
+      bits.writeBits(deltaOfDelta, 64);
+    }
+  }
+
+  private void writeXor(final long xor) {
+    if (xor == 0) {
+      bits.writeBit(false);
+      return;
+    }
+    bits.writeBit(true);
+    final int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+    final int trailing = Long.numberOfTrailingZeros(xor);
+    if (leadingZeros != NO_WINDOW && leading >= leadingZeros && trailing >= trailingZeros) {
+      // the meaningful bits fit the previous window
+      bits.writeBit(false);
+      bits.writeBits(xor >>> trailingZeros, 64 - leadingZeros - trailingZeros);
+    } else {
+      final int meaningful = 64 - leading - trailing;
+      bits.writeBit(true);
+      bits.writeBits(leading, 5);
+      bits.writeBits(meaningful - 1, 6);
+      bits.writeBits(xor >>> trailing, meaningful);
+      leadingZeros = leading;
+      trailingZeros = trailing;
+    }
+  }
+}
@@ -0,0 +1,298 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The latest price of every ticker, held in primitive arrays indexed by an interned ticker id.
+ *
+ * <p>Each slot is guarded by a sequence number, writers make it odd while they write the price and
+ * timestamp and even again after, readers retry when it changed under them. Readers never block and
+ * never allocate, so revaluing a portfolio is a scan of the arrays. Slots live in fixed size pages
+ * that never move, growing the cache only copies the page table.
+ *
+ * <p>The cache is loaded from the latest quotes of the time series storage on start, which appends
+ * advance in the same commit as the price history, so a restart after a crash never serves a price
+ * older than the stored history. Quotes recorded directly in the cache are written back by a
+ * background thread, which never replaces a later stored quote, so a flush racing an append cannot
+ * move the index back.
+ */
+public class LatestQuoteCache {
+  private static final Logger logger = LoggerFactory.getLogger(LatestQuoteCache.class);
+
+  /** The constant DEFAULT_FLUSH_INTERVAL_MILLIS. */
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+  /** The id of a ticker that has no quote. */
+  public static final int NO_TICKER = -1;
+
+  private static final int PAGE_BITS = 10;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final TimeSeriesStorage timeSeriesStorage;
+  private final long flushIntervalMillis;
+  private final Map<String, Integer> tickerIds = new ConcurrentHashMap<>();
+  private volatile Page[] pages = new Page[0];
+  private volatile int tickerCount;
+  private ScheduledExecutorService flushExecutor;
+
+  /**
+   * Instantiates a new latest quote cache.
+   *
+   * @param timeSeriesStorage the time series storage the quotes are loaded from and written to
+   * @param flushIntervalMillis how often changed quotes are written back
+   */
+  public LatestQuoteCache(
+      final TimeSeriesStorage timeSeriesStorage, final long flushIntervalMillis) {
+    checkNotNull(timeSeriesStorage);
+    checkArgument(flushIntervalMillis > 0, "Flush interval must be positive");
+    this.timeSeriesStorage = timeSeriesStorage;
+    this.flushIntervalMillis = flushIntervalMillis;
+  }
+
+  /** Load the stored quotes and start writing back changed quotes. */
+  public synchronized void start() {
+    checkState(flushExecutor == null, "Latest quote cache already started");
+    final Map<String, PriceTick> quotes = timeSeriesStorage.getLatestQuotes();
+    quotes.forEach((ticker, tick) -> update(ticker, tick.timestampMillis(), tick.price()));
+    // loaded quotes are already stored
+    forEachPage((page, slot) -> page.flushed[slot] = (long) LONGS.getAcquire(page.sequences, slot));
+    logger.info("Loaded {} latest quotes", quotes.size());
+    flushExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "LatestQuoteCache-Flush");
+              thread.setDaemon(true);
+              return thread;
+            });
+    flushExecutor.scheduleWithFixedDelay(
+        this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop the background writes and write back the quotes changed since the last flush.
+   *
+   * @throws InterruptedException if interrupted while waiting for a running flush
+   */
+  public synchronized void stop() throws InterruptedException {
+    if (flushExecutor == null) {
+      return;
+    }
+    flushExecutor.shutdown();
+    flushExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    flushExecutor = null;
+    flush();
+  }
+
+  /**
+   * Get the id of a ticker, interning it on first use. Ids are dense from 0 and stable for the life
+   * of the cache.
+   *
+   * @param ticker the ticker
+   * @return the ticker id
+   */
+  public int tickerId(final String ticker) {
+    final Integer id = tickerIds.get(ticker);
+    return id != null ? id : tickerIds.computeIfAbsent(ticker, this::allocate);
+  }
+
+  /**
+   * Get the id of a ticker without interning it.
+   *
+   * @param ticker the ticker
+   * @return the ticker id, or {@link #NO_TICKER} if the ticker was never interned
+   */
+  public int findTickerId(final String ticker) {
+    return tickerIds.getOrDefault(ticker, NO_TICKER);
+  }
+
+  public int getTickerCount() {
+    return tickerCount;
+  }
+
+  /**
+   * Record a price, ignored if the cache holds a later price for the ticker.
+   *
+   * @param ticker the ticker
+   * @param timestampMillis the time of the price
+   * @param price the price
+   */
+  public void update(final String ticker, final long timestampMillis, final double price) {
+    update(tickerId(ticker), timestampMillis, price);
+  }
+
+  /**
+   * Record a price, ignored if the cache holds a later price for the ticker.
+   *
+   * @param tickerId the ticker id
+   * @param timestampMillis the time of the price
+   * @param price the price
+   */
+  public void update(final int tickerId, final long timestampMillis, final double price) {
+    final Page page = pages[tickerId >>> PAGE_BITS];
+    final int slot = tickerId & PAGE_MASK;
+    long sequence;
+    do {
+      sequence = (long) LONGS.getAcquire(page.sequences, slot);
+    } while ((sequence & 1) != 0
+        || !LONGS.compareAndSet(page.sequences, slot, sequence, sequence + 1));
+    if (sequence == 0 || timestampMillis >= page.timestamps[slot]) {
+      page.timestamps[slot] = timestampMillis;
+      page.prices[slot] = Double.doubleToRawLongBits(price);
+      LONGS.setRelease(page.sequences, slot, sequence + 2);
+    } else {
+      LONGS.setRelease(page.sequences, slot, sequence);
+    }
+  }
+
+  /**
+   * Get the latest price of a ticker.
+   *
+   * @param ticker the ticker
+   * @return the latest price tick, empty if the ticker has no price
+   */
+  public Optional<PriceTick> getLatest(final String ticker) {
+    final int tickerId = findTickerId(ticker);
+    if (tickerId == NO_TICKER) {
+      return Optional.empty();
+    }
+    final Page page = pages[tickerId >>> PAGE_BITS];
+    final int slot = tickerId & PAGE_MASK;
+    long sequence;
+    long timestamp;
+    long price;
+    do {
+      sequence = (long) LONGS.getAcquire(page.sequences, slot);
+      timestamp = (long) LONGS.getOpaque(page.timestamps, slot);
+      price = (long) LONGS.getOpaque(page.prices, slot);
+      VarHandle.loadLoadFence();
+    } while ((sequence & 1) != 0 || sequence != (long) LONGS.getOpaque(page.sequences, slot));
+    return sequence == 0
+        ? Optional.empty()
+        : Optional.of(new PriceTick(timestamp, Double.longBitsToDouble(price)));
+  }
+
+  /**
+   * Read the latest prices of many tickers at once, the ticker ids are typically interned once by
+   * the caller so that revaluing is a loop over primitive arrays.
+   *
+   * @param tickerIds the ticker ids
+   * @param prices receives the latest price of each ticker, NaN if the ticker has no price
+   * @param timestamps receives the time of each price, 0 if the ticker has no price
+   */
+  public void getPrices(final int[] tickerIds, final double[] prices, final long[] timestamps) {
+    checkArgument(
+        prices.length >= tickerIds.length && timestamps.length >= tickerIds.length,
+        "Output arrays are shorter than the ticker ids");
+    final Page[] table = pages;
+    for (int i = 0; i < tickerIds.length; i++) {
+      final int tickerId = tickerIds[i];
+      if (tickerId < 0 || tickerId >= table.length << PAGE_BITS) {
+        prices[i] = Double.NaN;
+        timestamps[i] = 0;
+        continue;
+      }
+      final Page page = table[tickerId >>> PAGE_BITS];
+      final int slot = tickerId & PAGE_MASK;
+      long sequence;
+      long timestamp;
+      long price;
+      do {
+        sequence = (long) LONGS.getAcquire(page.sequences, slot);
+        timestamp = (long) LONGS.getOpaque(page.timestamps, slot);
+        price = (long) LONGS.getOpaque(page.prices, slot);
+        VarHandle.loadLoadFence();
+      } while ((sequence & 1) != 0 || sequence != (long) LONGS.getOpaque(page.sequences, slot));
+      prices[i] = sequence == 0 ? Double.NaN : Double.longBitsToDouble(price);
+      timestamps[i] = sequence == 0 ? 0 : timestamp;
+    }
+  }
+
+  /** Write back the quotes changed since the last flush. */
+  public synchronized void flush() {
+    final Map<String, PriceTick> changed = new HashMap<>();
+    final String[] tickers = new String[tickerCount];
+    tickerIds.forEach(
+        (ticker, id) -> {
+          if (id < tickers.length) {
+            tickers[id] = ticker;
+          }
+        });
+    final long[] flushedSequences = new long[tickers.length];
+    for (int id = 0; id < tickers.length; id++) {
+      final Page page = pages[id >>> PAGE_BITS];
+      final int slot = id & PAGE_MASK;
+      final long sequence = (long) LONGS.getAcquire(page.sequences, slot);
+      flushedSequences[id] = sequence;
+      final String ticker = tickers[id];
+      if (sequence != page.flushed[slot] && ticker != null) {
+        getLatest(ticker).ifPresent(tick -> changed.put(ticker, tick));
+      }
+    }
+    if (changed.isEmpty()) {
+      return;
+    }
+    timeSeriesStorage.putLatestQuotes(changed);
+    for (int id = 0; id < tickers.length; id++) {
+      pages[id >>> PAGE_BITS].flushed[id & PAGE_MASK] = flushedSequences[id];
+    }
+    logger.debug("Flushed {} latest quotes", changed.size());
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (final RuntimeException e) {
+      logger.error("Failed to flush latest quotes", e);
+    }
+  }
+
+  // called by computeIfAbsent, so at most once per ticker
+  private synchronized int allocate(final String ticker) {
+    final int id = tickerCount;
+    if (id >>> PAGE_BITS == pages.length) {
+      final Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+      grown[pages.length] = new Page();
+      pages = grown;
+    }
+    tickerCount = id + 1;
+    return id;
+  }
+
+  private void forEachPage(final SlotConsumer consumer) {
+    for (int id = 0; id < tickerCount; id++) {
+      consumer.accept(pages[id >>> PAGE_BITS], id & PAGE_MASK);
+    }
+  }
+
+  @FunctionalInterface
+  private interface SlotConsumer {
+    void accept(Page page, int slot);
+  }
+
+  /** A page of slots, prices are stored as their raw bits so all three arrays share one handle. */
+  private static final class Page {
+    private final long[] sequences = new long[PAGE_SIZE];
+    private final long[] timestamps = new long[PAGE_SIZE];
+    private final long[] prices = new long[PAGE_SIZE];
+    // the sequence of each slot at its last flush, only read and written under the cache lock
+    private final long[] flushed = new long[PAGE_SIZE];
+  }
+}
@@ -0,0 +1,280 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.rodion.adelie.pfm.util.CsvFields;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads price history files into the time series storage in bulk. Input files need not be sorted:
+ * ticks are sorted in runs that fit in memory, runs are spilled to temporary files, and the runs
+ * are merged into one stream in load order, which the storage can write as pre-built files without
+ * going through its write path. The bars of every loaded ticker are then rebuilt from its history.
+ *
+ * <p>Input files are CSV with a header row naming the ticker, timestamp and price columns.
+ */
+public class PriceHistoryLoader {
+  private static final Logger logger = LoggerFactory.getLogger(PriceHistoryLoader.class);
+
+  /** The default number of ticks sorted in memory before a run is spilled. */
+  public static final int DEFAULT_RUN_SIZE = 1_000_000;
+
+  private static final int IO_BUFFER_SIZE = 1 << 16;
+
+  private static final Map<String, String> COLUMN_ALIASES =
+      Map.of(
+          "ticker", "ticker",
+          "symbol", "ticker",
+          "timestamp", "timestamp",
+          "time", "timestamp",
+          "date", "timestamp",
+          "price", "price",
+          "close", "price");
+
+  private final TimeSeriesStorage timeSeriesStorage;
+  private final BarAggregator barAggregator;
+  private final Path tempDirectory;
+  private final int runSize;
+
+  /**
+   * Instantiates a new price history loader.
+   *
+   * @param timeSeriesStorage the time series storage
+   * @param barAggregator the bar aggregator the loaded tickers are rebuilt by
+   * @param tempDirectory the directory sorted runs are spilled to
+   * @param runSize the number of ticks sorted in memory before a run is spilled
+   */
+  public PriceHistoryLoader(
+      final TimeSeriesStorage timeSeriesStorage,
+      final BarAggregator barAggregator,
+      final Path tempDirectory,
+      final int runSize) {
+    checkNotNull(timeSeriesStorage);
+    checkNotNull(barAggregator);
+    checkNotNull(tempDirectory);
+    checkArgument(runSize > 0, "Run size must be positive");
+    this.timeSeriesStorage = timeSeriesStorage;
+    this.barAggregator = barAggregator;
+    this.tempDirectory = tempDirectory;
+    this.runSize = runSize;
+  }
+
+  /**
+   * Load price history files.
+   *
+   * @param files the price files
+   * @return the number of ticks loaded
+   * @throws IOException if a file cannot be read or a run cannot be spilled
+   * @throws IllegalArgumentException if a line is not a valid tick
+   */
+  public long load(final List<Path> files) throws IOException {
+    final List<Run> runs = new ArrayList<>();
+    final Set<String> tickers = new TreeSet<>();
+    final TickerTick[] buffer = new TickerTick[runSize];
+    int buffered = 0;
+    try {
+      for (final Path file : files) {
+        try (final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+          final Columns columns = columns(file, reader.readLine());
+          String line;
+          long lineNumber = 1;
+          while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+              continue;
+            }
+            final TickerTick tick = parse(file, lineNumber, line, columns);
+            tickers.add(tick.ticker());
+            buffer[buffered++] = tick;
+            if (buffered == runSize) {
+              runs.add(spill(buffer, buffered));
+              buffered = 0;
+            }
+          }
+        }
+      }
+      Arrays.sort(buffer, 0, buffered, TickerTick.LOAD_ORDER);
+      final Iterator<TickerTick> remainder = Arrays.asList(buffer).subList(0, buffered).iterator();
+      // a crash before the tickers are rebuilt leaves them to be rebuilt on the next start
+      barAggregator.markPending(tickers);
+      final long loaded =
+          runs.isEmpty()
+              ? timeSeriesStorage.load(remainder)
+              : timeSeriesStorage.load(new MergeIterator(runs, remainder));
+      logger.info(
+          "Loaded {} price ticks from {} files in {} sorted runs",
+          loaded,
+          files.size(),
+          runs.size() + 1);
+      tickers.forEach(barAggregator::rebuild);
+      return loaded;
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      for (final Run run : runs) {
+        run.close();
+      }
+    }
+  }
+
+  private static Columns columns(final Path file, final String header) {
+    checkArgument(header != null, "%s is empty", file);
+    final List<String> names = CsvFields.split(header.replace("\uFEFF", ""));
+    final Map<String, Integer> columns = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      final String name = COLUMN_ALIASES.get(CsvFields.headerName(names.get(i)));
+      if (name != null) {
+        columns.putIfAbsent(name, i);
+      }
+    }
+    checkArgument(
+        columns.keySet().containsAll(List.of("ticker", "timestamp", "price")),
+        "%s header must name ticker, timestamp and price columns",
+        file);
+    return new Columns(
+        columns.get("ticker"), columns.get("timestamp"), columns.get("price"), names.size());
+  }
+
+  private static TickerTick parse(
+      final Path file, final long lineNumber, final String line, final Columns columns) {
+    try {
+      final List<String> fields = CsvFields.split(line);
+      checkArgument(
+          fields.size() == columns.count(),
+          "Expected %s columns but found %s",
+          columns.count(),
+          fields.size());
+      final String ticker = fields.get(columns.ticker()).trim();
+      checkArgument(!ticker.isEmpty(), "Missing ticker");
+      return new TickerTick(
+          ticker,
+          CsvFields.parseTimestamp(fields.get(columns.timestamp())),
+          Double.parseDouble(fields.get(columns.price()).trim()));
+    } catch (final RuntimeException e) {
+      throw new IllegalArgumentException(
+          String.format("Invalid price at %s line %d: %s", file, lineNumber, e.getMessage()), e);
+    }
+  }
+
+  private Run spill(final TickerTick[] buffer, final int count) throws IOException {
+    Arrays.sort(buffer, 0, count, TickerTick.LOAD_ORDER);
+    final Path file = Files.createTempFile(tempDirectory, "prices", ".run");
+    try (final DataOutputStream out =
+        new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+      for (int i = 0; i < count; i++) {
+        out.writeUTF(buffer[i].ticker());
+        out.writeLong(buffer[i].timestampMillis());
+        out.writeDouble(buffer[i].price());
+      }
+    }
+    return new Run(file, count);
+  }
+
+  /** The positions of the columns of a price file, and the number of columns. */
+  private record Columns(int ticker, int timestamp, int price, int count) {}
+
+  /** A sorted run spilled to a temporary file, read back sequentially. */
+  private static final class Run implements Iterator<TickerTick> {
+    private final Path file;
+    private long remaining;
+    private DataInputStream in;
+
+    private Run(final Path file, final long count) {
+      this.file = file;
+      this.remaining = count;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    @Override
+    public TickerTick next() {
+      if (remaining == 0) {
+        throw new NoSuchElementException();
+      }
+      try {
+        if (in == null) {
+          in =
+              new DataInputStream(
+                  new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_SIZE));
+        }
+        remaining--;
+        return new TickerTick(in.readUTF(), in.readLong(), in.readDouble());
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void close() throws IOException {
+      if (in != null) {
+        in.close();
+      }
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /** K-way merge of sorted iterators, ties are taken from the earlier input first. */
+  private static final class MergeIterator implements Iterator<TickerTick> {
+    private record Head(TickerTick tick, int source) {}
+
+    private final List<Iterator<TickerTick>> sources = new ArrayList<>();
+    private final PriorityQueue<Head> heads =
+        new PriorityQueue<>(
+            Comparator.comparing(Head::tick, TickerTick.LOAD_ORDER).thenComparingInt(Head::source));
+
+    private MergeIterator(final List<Run> runs, final Iterator<TickerTick> remainder) {
+      sources.addAll(runs);
+      sources.add(remainder);
+      for (int i = 0; i < sources.size(); i++) {
+        advance(i);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    @Override
+    public TickerTick next() {
+      final Head head = heads.poll();
+      if (head == null) {
+        throw new NoSuchElementException();
+      }
+      advance(head.source());
+      return head.tick();
+    }
+
+    private void advance(final int source) {
+      if (sources.get(source).hasNext()) {
+        heads.add(new Head(sources.get(source).next(), source));
+      }
+    }
+  }
+}
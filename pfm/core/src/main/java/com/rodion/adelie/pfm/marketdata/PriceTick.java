@@ -0,0 +1,9 @@
+package com.rodion.adelie.pfm.marketdata;
+
+/**
+ * A price observed at a point in time.
+ *
+ * @param timestampMillis the time of the price
+ * @param price the price
+ */
+public record PriceTick(long timestampMillis, double price) {}
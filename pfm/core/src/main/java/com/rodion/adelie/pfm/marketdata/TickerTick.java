@@ -0,0 +1,36 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import java.util.Comparator;
+
+/**
+ * A price of a ticker at a point in time, the unit of bulk loads.
+ *
+ * @param ticker the ticker
+ * @param timestampMillis the time of the price
+ * @param price the price
+ */
+public record TickerTick(String ticker, long timestampMillis, double price) {
+
+  /**
+   * The order bulk loads expect, by ticker then timestamp. Tickers compare by code point, which is
+   * the unsigned byte order of their UTF-8 encoding in storage keys.
+   */
+  public static final Comparator<TickerTick> LOAD_ORDER =
+      Comparator.comparing(TickerTick::ticker, TickerTick::compareCodePoints)
+          .thenComparingLong(TickerTick::timestampMillis);
+
+  private static int compareCodePoints(final String a, final String b) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length() && j < b.length()) {
+      final int x = a.codePointAt(i);
+      final int y = b.codePointAt(j);
+      if (x != y) {
+        return Integer.compare(x, y);
+      }
+      i += Character.charCount(x);
+      j += Character.charCount(y);
+    }
+    return Boolean.compare(i < a.length(), j < b.length());
+  }
+}
@@ -0,0 +1,77 @@
+package com.rodion.adelie.pfm.marketdata;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** Storage of the price history of each ticker. */
+public interface TimeSeriesStorage {
+
+  /**
+   * Append prices to the history of a ticker. Ticks may be in any order, ticks before the last
+   * stored tick of their chunk rewrite that chunk. The latest quote index is advanced to the last
+   * appended tick in the same commit, unless it holds a later quote.
+   *
+   * @param ticker the ticker
+   * @param ticks the price ticks
+   */
+  void append(String ticker, List<PriceTick> ticks);
+
+  /**
+   * Bulk load price history, bypassing the write path where the underlying storage supports it.
+   * Ticks falling in a chunk already stored are merged with it, and the latest quote index is
+   * advanced to the last loaded tick of each ticker.
+   *
+   * @param sortedTicks the ticks, in {@link TickerTick#LOAD_ORDER}
+   * @return the number of ticks loaded
+   */
+  long load(Iterator<TickerTick> sortedTicks);
+
+  /**
+   * Get the prices of a ticker in a time range.
+   *
+   * @param ticker the ticker
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   * @return the price ticks in timestamp order
+   */
+  List<PriceTick> getRange(String ticker, long fromMillis, long toMillis);
+
+  /**
+   * Stream the prices of a ticker in a time range without collecting them.
+   *
+   * @param ticker the ticker
+   * @param fromMillis the start of the range, inclusive
+   * @param toMillis the end of the range, inclusive
+   * @param consumer the consumer of the ticks, called in timestamp order
+   */
+  void forEachTick(
+      String ticker, long fromMillis, long toMillis, GorillaChunkDecoder.TickConsumer consumer);
+
+  /**
+   * Get the latest price of a ticker.
+   *
+   * @param ticker the ticker
+   * @return the latest price tick, empty if the ticker has no prices
+   */
+  Optional<PriceTick> getLatest(String ticker);
+
+  /**
+   * Get the latest quote index, the last quote written for each ticker by an append, a load or
+   * {@link #putLatestQuotes(Map)}.
+   *
+   * @return the latest quote of each ticker
+   */
+  Map<String, PriceTick> getLatestQuotes();
+
+  /**
+   * Write quotes to the latest quote index. A quote replaces the stored quote of its ticker unless
+   * the stored quote is later, so a stale writer never moves the index back.
+   *
+   * @param quotes the latest quote of each ticker
+   */
+  void putLatestQuotes(Map<String, PriceTick> quotes);
+
+  void clear();
+}
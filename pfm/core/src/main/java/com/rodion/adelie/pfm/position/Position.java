@@ -0,0 +1,41 @@
+package com.rodion.adelie.pfm.position;
+
+/**
+ * The position held in a ticker, with the average cost of the open quantity and the profit and loss
+ * realized by the trades that reduced it.
+ *
+ * @param ticker the ticker
+ * @param quantity the net quantity, negative when short
+ * @param averageCost the average cost of the open quantity, zero when flat
+ * @param realizedPnl the realized profit and loss
+ * @param lastTradeMillis the date of the last trade applied to the position
+ * @param lastTradeId the id of the last trade applied to the position
+ */
+public record Position(
+    String ticker,
+    long quantity,
+    double averageCost,
+    double realizedPnl,
+    long lastTradeMillis,
+    int lastTradeId) {
+
+  /**
+   * Value the position at a price.
+   *
+   * @param price the market price
+   * @return the market value, negative when short
+   */
+  public double marketValue(final double price) {
+    return quantity * price;
+  }
+
+  /**
+   * The profit and loss of the open quantity at a price.
+   *
+   * @param price the market price
+   * @return the unrealized profit and loss
+   */
+  public double unrealizedPnl(final double price) {
+    return (price - averageCost) * quantity;
+  }
+}
@@ -0,0 +1,64 @@
+package com.rodion.adelie.pfm.position;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary encoding of a {@link Position}, the ticker is not encoded as positions are stored
+ * under their ticker.
+ *
+ * <pre>
+ * version (1) | quantity (8) | average cost (8) | realized pnl (8) | last trade millis (8) | last trade id (4)
+ * </pre>
+ */
+public final class PositionCodec {
+
+  private static final byte VERSION = 1;
+  private static final int SIZE = 1 + Long.BYTES + Double.BYTES * 2 + Long.BYTES + Integer.BYTES;
+
+  private PositionCodec() {}
+
+  /**
+   * Encode a position.
+   *
+   * @param position the position
+   * @return the encoded position
+   */
+  public static byte[] encode(final Position position) {
+    return ByteBuffer.allocate(SIZE)
+        .put(VERSION)
+        .putLong(position.quantity())
+        .putDouble(position.averageCost())
+        .putDouble(position.realizedPnl())
+        .putLong(position.lastTradeMillis())
+        .putInt(position.lastTradeId())
+        .array();
+  }
+
+  /**
+   * Decode a position.
+   *
+   * @param ticker the ticker the position is stored under
+   * @param encoded the encoded position
+   * @return the position
+   * @throws IllegalArgumentException if the bytes are not an encoded position
+   */
+  public static Position decode(final String ticker, final byte[] encoded) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    try {
+      final byte version = buffer.get();
+      checkArgument(version == VERSION, "Unsupported position encoding version %s", version);
+      return new Position(
+          ticker,
+          buffer.getLong(),
+          buffer.getDouble(),
+          buffer.getDouble(),
+          buffer.getLong(),
+          buffer.getInt());
+    } catch (final BufferUnderflowException e) {
+      throw new IllegalArgumentException("Malformed position encoding", e);
+    }
+  }
+}
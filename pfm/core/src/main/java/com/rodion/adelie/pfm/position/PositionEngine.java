@@ -0,0 +1,217 @@
+package com.rodion.adelie.pfm.position;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.rodion.adelie.pfm.blotter.Blotter;
+import com.rodion.adelie.pfm.blotter.BlotterStorage;
+import com.rodion.adelie.pfm.blotter.CheckpointedTickerEngine;
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the position of every ticker up to date as blotter writes are committed, see {@link
+ * CheckpointedTickerEngine} for how writes are applied and checkpointed.
+ *
+ * <p>Positions are held in parallel primitive arrays indexed by the ticker number, and are
+ * checkpointed to the position storage.
+ */
+public class PositionEngine extends CheckpointedTickerEngine {
+
+  private static final int NO_TRADE = Blotter.NOT_FOUND;
+
+  private final PositionStorage positionStorage;
+
+  private long[] quantities = new long[0];
+  private double[] averageCosts = new double[0];
+  private double[] realizedPnls = new double[0];
+  private long[] lastTradeMillis = new long[0];
+  private int[] lastTradeIds = new int[0];
+
+  /**
+   * Instantiates a new position engine.
+   *
+   * @param blotterStorage the blotter storage, read to recompute positions
+   * @param positionStorage the position storage holding the checkpoint
+   */
+  public PositionEngine(
+      final BlotterStorage blotterStorage, final PositionStorage positionStorage) {
+    super("Position engine", checkNotNull(blotterStorage));
+    this.positionStorage = checkNotNull(positionStorage);
+  }
+
+  // a replay, never started so it has no checkpoint
+  private PositionEngine(final BlotterStorage blotterStorage) {
+    super("Position replay", blotterStorage);
+    this.positionStorage = null;
+  }
+
+  /**
+   * Compute the positions of every ticker by replaying the trades of a blotter storage, without
+   * reading or writing a checkpoint. Used to value a point in time snapshot of the blotter.
+   *
+   * @param blotterStorage the blotter storage
+   * @return the positions, ordered by ticker
+   */
+  public static List<Position> replay(final BlotterStorage blotterStorage) {
+    checkNotNull(blotterStorage);
+    final PositionEngine engine = new PositionEngine(blotterStorage);
+    engine.replayAll();
+    return engine.getPositions();
+  }
+
+  /**
+   * Get the position of a ticker.
+   *
+   * @param ticker the ticker
+   * @return the position, empty if the ticker has no trades
+   */
+  public Optional<Position> getPosition(final String ticker) {
+    return read(
+        ticker,
+        number ->
+            lastTradeIds[number] == NO_TRADE ? Optional.empty() : Optional.of(position(number)),
+        Optional.empty());
+  }
+
+  /**
+   * Get the positions of every ticker with trades.
+   *
+   * @return the positions, ordered by ticker
+   */
+  public List<Position> getPositions() {
+    final List<Position> positions =
+        readAll(
+            () -> {
+              final List<Position> traded = new ArrayList<>(tickerCount());
+              for (int i = 0; i < tickerCount(); i++) {
+                if (lastTradeIds[i] != NO_TRADE) {
+                  traded.add(position(i));
+                }
+              }
+              return traded;
+            });
+    positions.sort(Comparator.comparing(Position::ticker));
+    return positions;
+  }
+
+  @Override
+  protected boolean loadCheckpoint() {
+    if (!positionStorage.isCheckpointClean()) {
+      return false;
+    }
+    positionStorage.getPositions().forEach(this::load);
+    return true;
+  }
+
+  @Override
+  protected void clearCheckpoint() {
+    positionStorage.clear();
+  }
+
+  @Override
+  protected void markCheckpointUnclean() {
+    final PositionStorage.Updater updater = positionStorage.updater();
+    updater.setCheckpointClean(false);
+    updater.commit();
+  }
+
+  @Override
+  protected void writeCheckpoint(final BitSet numbers) {
+    final PositionStorage.Updater updater = positionStorage.updater();
+    for (int i = numbers.nextSetBit(0); i >= 0; i = numbers.nextSetBit(i + 1)) {
+      if (lastTradeIds[i] == NO_TRADE) {
+        updater.removePosition(ticker(i));
+      } else {
+        updater.putPosition(position(i));
+      }
+    }
+    updater.setCheckpointClean(true);
+    updater.commit();
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    quantities = Arrays.copyOf(quantities, capacity);
+    averageCosts = Arrays.copyOf(averageCosts, capacity);
+    realizedPnls = Arrays.copyOf(realizedPnls, capacity);
+    lastTradeMillis = Arrays.copyOf(lastTradeMillis, capacity);
+    lastTradeIds = Arrays.copyOf(lastTradeIds, capacity);
+  }
+
+  @Override
+  protected void initTicker(final int number, final String ticker) {
+    reset(number);
+  }
+
+  @Override
+  protected void reset(final int number) {
+    quantities[number] = 0;
+    averageCosts[number] = 0;
+    realizedPnls[number] = 0;
+    lastTradeMillis[number] = 0;
+    lastTradeIds[number] = NO_TRADE;
+  }
+
+  @Override
+  protected boolean isAfterLastTrade(final int number, final int id, final TradeEntry trade) {
+    if (lastTradeIds[number] == NO_TRADE) {
+      return true;
+    }
+    final long millis = trade.date().getTime();
+    return millis > lastTradeMillis[number]
+        || (millis == lastTradeMillis[number] && id > lastTradeIds[number]);
+  }
+
+  @Override
+  protected void apply(final int number, final int id, final TradeEntry trade) {
+    lastTradeMillis[number] = trade.date().getTime();
+    lastTradeIds[number] = id;
+    final long signedQty = trade.side() == TradeEntry.Side.buy ? trade.qty() : -(long) trade.qty();
+    if (signedQty == 0) {
+      return;
+    }
+    final long quantity = quantities[number];
+    final double price = trade.price();
+    if (quantity == 0 || Long.signum(quantity) == Long.signum(signedQty)) {
+      // opening or adding to the position
+      averageCosts[number] =
+          (averageCosts[number] * quantity + price * signedQty) / (quantity + signedQty);
+      quantities[number] = quantity + signedQty;
+      return;
+    }
+    // reducing the position, realizing the difference to the average cost
+    final long closed = Math.min(Math.abs(quantity), Math.abs(signedQty));
+    realizedPnls[number] += (price - averageCosts[number]) * closed * Long.signum(quantity);
+    final long remaining = quantity + signedQty;
+    quantities[number] = remaining;
+    if (remaining == 0) {
+      averageCosts[number] = 0;
+    } else if (Long.signum(remaining) != Long.signum(quantity)) {
+      averageCosts[number] = price;
+    }
+  }
+
+  private void load(final Position position) {
+    final int number = tickerNumber(position.ticker());
+    quantities[number] = position.quantity();
+    averageCosts[number] = position.averageCost();
+    realizedPnls[number] = position.realizedPnl();
+    lastTradeMillis[number] = position.lastTradeMillis();
+    lastTradeIds[number] = position.lastTradeId();
+  }
+
+  private Position position(final int number) {
+    return new Position(
+        ticker(number),
+        quantities[number],
+        averageCosts[number],
+        realizedPnls[number],
+        lastTradeMillis[number],
+        lastTradeIds[number]);
+  }
+}
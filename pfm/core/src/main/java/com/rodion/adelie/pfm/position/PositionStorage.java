@@ -0,0 +1,56 @@
+package com.rodion.adelie.pfm.position;
+
+import java.util.List;
+
+/**
+ * Storage of the position checkpoint. The checkpoint is only consistent with the blotter when it is
+ * marked clean, which the position engine does on shutdown after writing its last positions.
+ */
+public interface PositionStorage {
+
+  /**
+   * Whether the stored positions were checkpointed by a clean shutdown.
+   *
+   * @return true if the stored positions are consistent with the blotter
+   */
+  boolean isCheckpointClean();
+
+  /**
+   * Get the stored positions.
+   *
+   * @return the positions, ordered by ticker
+   */
+  List<Position> getPositions();
+
+  Updater updater();
+
+  void clear();
+
+  interface Updater {
+
+    /**
+     * Store a position, replacing the position stored for its ticker.
+     *
+     * @param position the position
+     */
+    void putPosition(Position position);
+
+    /**
+     * Remove the position of a ticker if present.
+     *
+     * @param ticker the ticker
+     */
+    void removePosition(String ticker);
+
+    /**
+     * Mark whether the stored positions are consistent with the blotter.
+     *
+     * @param clean true when the checkpoint is consistent
+     */
+    void setCheckpointClean(boolean clean);
+
+    void commit();
+
+    void rollback();
+  }
+}
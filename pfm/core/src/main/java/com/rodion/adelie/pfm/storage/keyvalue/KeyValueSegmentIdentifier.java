@@ -1,40 +1,95 @@
 package com.rodion.adelie.pfm.storage.keyvalue;
 
-import static com.rodion.adelie.plugin.services.storage.DataStorageFormat.FOREST;
-
 import com.rodion.adelie.plugin.services.storage.DataStorageFormat;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentKeyPrefix;
+import com.rodion.adelie.plugin.services.storage.SegmentTuningProfile;
 import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
+import java.util.Optional;
 
 // Generic key value segments in Portfolio Manager
 public enum KeyValueSegmentIdentifier implements SegmentIdentifier {
-  DEFAULT("default".getBytes(StandardCharsets.UTF_8)),
-  MARKET_DATA(new byte[] {1}, false, false),
-  BLOTTER(new byte[] {2}, false, false);
+  DEFAULT("default".getBytes(StandardCharsets.UTF_8), SegmentTuningProfile.SMALL_HOT_SET),
+  // point reads are of open chunks and quote keys, rewritten on every append, so are not cached
+  MARKET_DATA(
+      new byte[] {1},
+      false,
+      false,
+      SegmentTuningProfile.TIME_SERIES,
+      0,
+      SegmentKeyPrefix.fixed(TickerKeys.TICKER_PREFIX_LENGTH)),
+  // trade id keys are shorter than a ticker prefix and are their own prefix
+  BLOTTER(
+      new byte[] {2},
+      false,
+      false,
+      SegmentTuningProfile.SCAN,
+      0,
+      SegmentKeyPrefix.capped(TickerKeys.TICKER_PREFIX_LENGTH)),
+  POSITIONS(new byte[] {3}, false, false, SegmentTuningProfile.SMALL_HOT_SET, 8L * 1024 * 1024),
+  TAX_LOTS(new byte[] {4}, false, false, SegmentTuningProfile.POINT_LOOKUP, 8L * 1024 * 1024),
+  BARS(
+      new byte[] {5},
+      false,
+      false,
+      SegmentTuningProfile.TIME_SERIES,
+      0,
+      SegmentKeyPrefix.fixed(TickerKeys.TICKER_PREFIX_LENGTH));
 
   private final byte[] id;
   private final EnumSet<DataStorageFormat> formats;
   private final boolean containsStaticData;
   private final boolean eligibleToHighSpecFlag;
   private final boolean staticDataGarbageCollectionEnabled;
+  private final SegmentTuningProfile tuningProfile;
+  private final long valueCacheBytes;
+  private final SegmentKeyPrefix keyPrefix;
+
+  KeyValueSegmentIdentifier(final byte[] id, final SegmentTuningProfile tuningProfile) {
+    this(id, EnumSet.allOf(DataStorageFormat.class), tuningProfile);
+  }
+
+  KeyValueSegmentIdentifier(
+      final byte[] id,
+      final boolean containsStaticData,
+      final boolean eligibleToHighSpecFlag,
+      final SegmentTuningProfile tuningProfile) {
+    this(id, containsStaticData, eligibleToHighSpecFlag, tuningProfile, 0);
+  }
 
-  KeyValueSegmentIdentifier(final byte[] id) {
-    this(id, EnumSet.allOf(DataStorageFormat.class));
+  KeyValueSegmentIdentifier(
+      final byte[] id,
+      final boolean containsStaticData,
+      final boolean eligibleToHighSpecFlag,
+      final SegmentTuningProfile tuningProfile,
+      final long valueCacheBytes) {
+    this(id, containsStaticData, eligibleToHighSpecFlag, tuningProfile, valueCacheBytes, null);
   }
 
   KeyValueSegmentIdentifier(
-      final byte[] id, final boolean containsStaticData, final boolean eligibleToHighSpecFlag) {
+      final byte[] id,
+      final boolean containsStaticData,
+      final boolean eligibleToHighSpecFlag,
+      final SegmentTuningProfile tuningProfile,
+      final long valueCacheBytes,
+      final SegmentKeyPrefix keyPrefix) {
     this(
         id,
         EnumSet.allOf(DataStorageFormat.class),
         containsStaticData,
         eligibleToHighSpecFlag,
-        false);
+        false,
+        tuningProfile,
+        valueCacheBytes,
+        keyPrefix);
   }
 
-  KeyValueSegmentIdentifier(final byte[] id, final EnumSet<DataStorageFormat> formats) {
-    this(id, formats, false, false, false);
+  KeyValueSegmentIdentifier(
+      final byte[] id,
+      final EnumSet<DataStorageFormat> formats,
+      final SegmentTuningProfile tuningProfile) {
+    this(id, formats, false, false, false, tuningProfile, 0, null);
   }
 
   KeyValueSegmentIdentifier(
@@ -42,12 +97,18 @@ public enum KeyValueSegmentIdentifier implements SegmentIdentifier {
       final EnumSet<DataStorageFormat> formats,
       final boolean containsStaticData,
       final boolean eligibleToHighSpecFlag,
-      final boolean staticDataGarbageCollectionEnabled) {
+      final boolean staticDataGarbageCollectionEnabled,
+      final SegmentTuningProfile tuningProfile,
+      final long valueCacheBytes,
+      final SegmentKeyPrefix keyPrefix) {
     this.id = id;
     this.formats = formats;
     this.containsStaticData = containsStaticData;
     this.eligibleToHighSpecFlag = eligibleToHighSpecFlag;
     this.staticDataGarbageCollectionEnabled = staticDataGarbageCollectionEnabled;
+    this.tuningProfile = tuningProfile;
+    this.valueCacheBytes = valueCacheBytes;
+    this.keyPrefix = keyPrefix;
   }
 
   @Override
@@ -75,6 +136,21 @@ public enum KeyValueSegmentIdentifier implements SegmentIdentifier {
     return staticDataGarbageCollectionEnabled;
   }
 
+  @Override
+  public SegmentTuningProfile getTuningProfile() {
+    return tuningProfile;
+  }
+
+  @Override
+  public long getValueCacheBytes() {
+    return valueCacheBytes;
+  }
+
+  @Override
+  public Optional<SegmentKeyPrefix> getKeyPrefix() {
+    return Optional.ofNullable(keyPrefix);
+  }
+
   @Override
   public boolean includeInDatabaseFormat(final DataStorageFormat format) {
     return formats.contains(format);
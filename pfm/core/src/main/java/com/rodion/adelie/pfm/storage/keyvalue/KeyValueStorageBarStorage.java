@@ -0,0 +1,177 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import static com.rodion.adelie.pfm.storage.keyvalue.TickerKeys.TICKER_WIDTH;
+
+import com.rodion.adelie.pfm.marketdata.Bar;
+import com.rodion.adelie.pfm.marketdata.BarCodec;
+import com.rodion.adelie.pfm.marketdata.BarResolution;
+import com.rodion.adelie.pfm.marketdata.BarStorage;
+import com.rodion.adelie.pfm.marketdata.BarStorage.PendingRange;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageTransaction;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Bar storage over a single key value segment, one entry per bar under keys that sort by
+ * resolution, ticker then bucket, so that the bars of a range are one bounded scan. The bars of
+ * every resolution share the segment, so the bars touched by one append are committed together with
+ * the removal of the pending range of their ticker.
+ *
+ * <pre>
+ * bar key:     resolution code (1) | ticker (16, zero padded) | bucket start millis (8, sign flipped)
+ * pending key: 0x00 | ticker (16, zero padded) -> from millis (8) | to millis (8)
+ * </pre>
+ */
+public class KeyValueStorageBarStorage implements BarStorage {
+
+  // below every resolution code
+  private static final byte PENDING_PREFIX = 0x00;
+
+  private static final int TICKER_OFFSET = 1;
+  private static final int BUCKET_OFFSET = TICKER_OFFSET + TICKER_WIDTH;
+  private static final int BAR_KEY_SIZE = BUCKET_OFFSET + Long.BYTES;
+
+  private final KeyValueStorage keyValueStorage;
+
+  public KeyValueStorageBarStorage(final KeyValueStorage keyValueStorage) {
+    this.keyValueStorage = keyValueStorage;
+  }
+
+  @Override
+  public Optional<Bar> getBar(
+      final String ticker, final BarResolution resolution, final long startMillis) {
+    return keyValueStorage
+        .get(barKey(ticker, resolution, startMillis))
+        .map(encoded -> BarCodec.decode(startMillis, encoded));
+  }
+
+  @Override
+  public List<Bar> getBars(
+      final String ticker,
+      final BarResolution resolution,
+      final long fromMillis,
+      final long toMillis) {
+    final List<Bar> bars = new ArrayList<>();
+    if (fromMillis > toMillis) {
+      return bars;
+    }
+    try (final Stream<Pair<byte[], byte[]>> entries =
+        keyValueStorage.streamFromKey(
+            barKey(ticker, resolution, resolution.bucketStart(fromMillis)),
+            barKey(ticker, resolution, resolution.bucketStart(toMillis)))) {
+      entries.forEach(
+          entry -> {
+            final long startMillis =
+                ByteBuffer.wrap(entry.getKey(), BUCKET_OFFSET, Long.BYTES).getLong()
+                    ^ Long.MIN_VALUE;
+            if (startMillis >= fromMillis) {
+              bars.add(BarCodec.decode(startMillis, entry.getValue()));
+            }
+          });
+    }
+    return bars;
+  }
+
+  @Override
+  public Optional<PendingRange> getPendingRange(final String ticker) {
+    return keyValueStorage.get(pendingKey(ticker)).map(KeyValueStorageBarStorage::decodeRange);
+  }
+
+  @Override
+  public Map<String, PendingRange> getPendingRanges() {
+    final Map<String, PendingRange> ranges = new HashMap<>();
+    try (final Stream<Pair<byte[], byte[]>> entries =
+        keyValueStorage.streamByPrefix(new byte[] {PENDING_PREFIX})) {
+      entries.forEach(
+          entry ->
+              ranges.put(
+                  TickerKeys.decode(entry.getKey(), TICKER_OFFSET), decodeRange(entry.getValue())));
+    }
+    return ranges;
+  }
+
+  @Override
+  public Updater updater() {
+    return new Updater(keyValueStorage.startTransaction());
+  }
+
+  @Override
+  public void clear() {
+    keyValueStorage.clear();
+  }
+
+  /**
+   * Build the key a bar is stored under.
+   *
+   * @param ticker the ticker
+   * @param resolution the resolution
+   * @param startMillis the start of the bucket
+   * @return the bar key
+   */
+  static byte[] barKey(
+      final String ticker, final BarResolution resolution, final long startMillis) {
+    final byte[] key = new byte[BAR_KEY_SIZE];
+    key[0] = resolution.getCode();
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    ByteBuffer.wrap(key, BUCKET_OFFSET, Long.BYTES).putLong(startMillis ^ Long.MIN_VALUE);
+    return key;
+  }
+
+  private static byte[] pendingKey(final String ticker) {
+    final byte[] key = new byte[BUCKET_OFFSET];
+    key[0] = PENDING_PREFIX;
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    return key;
+  }
+
+  private static PendingRange decodeRange(final byte[] encoded) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    return new PendingRange(buffer.getLong(), buffer.getLong());
+  }
+
+  public static class Updater implements BarStorage.Updater {
+
+    private final KeyValueStorageTransaction transaction;
+
+    public Updater(final KeyValueStorageTransaction transaction) {
+      this.transaction = transaction;
+    }
+
+    @Override
+    public void putBar(final String ticker, final BarResolution resolution, final Bar bar) {
+      transaction.put(barKey(ticker, resolution, bar.startMillis()), BarCodec.encode(bar));
+    }
+
+    @Override
+    public void putPendingRange(final String ticker, final PendingRange range) {
+      transaction.put(
+          pendingKey(ticker),
+          ByteBuffer.allocate(2 * Long.BYTES)
+              .putLong(range.fromMillis())
+              .putLong(range.toMillis())
+              .array());
+    }
+
+    @Override
+    public void removePendingRange(final String ticker) {
+      transaction.remove(pendingKey(ticker));
+    }
+
+    @Override
+    public void commit() {
+      transaction.commit();
+    }
+
+    @Override
+    public void rollback() {
+      transaction.rollback();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import static com.rodion.adelie.pfm.storage.keyvalue.TickerKeys.TICKER_WIDTH;
+
+import com.rodion.adelie.pfm.position.Position;
+import com.rodion.adelie.pfm.position.PositionCodec;
+import com.rodion.adelie.pfm.position.PositionStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageTransaction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Position storage over a single key value segment, one entry per ticker and a marker recording
+ * whether the entries were checkpointed by a clean shutdown.
+ *
+ * <pre>
+ * position key:   0x01 | ticker (16, zero padded)
+ * checkpoint key: 0x02 -> 0x01 when clean
+ * </pre>
+ */
+public class KeyValueStoragePositionStorage implements PositionStorage {
+
+  private static final byte POSITION_PREFIX = 0x01;
+  private static final byte[] CHECKPOINT_KEY = {0x02};
+  private static final byte CLEAN = 0x01;
+
+  private static final int TICKER_OFFSET = 1;
+  private static final int POSITION_KEY_SIZE = TICKER_OFFSET + TICKER_WIDTH;
+
+  private final KeyValueStorage keyValueStorage;
+
+  public KeyValueStoragePositionStorage(final KeyValueStorage keyValueStorage) {
+    this.keyValueStorage = keyValueStorage;
+  }
+
+  @Override
+  public boolean isCheckpointClean() {
+    return keyValueStorage
+        .get(CHECKPOINT_KEY)
+        .map(value -> value.length == 1 && value[0] == CLEAN)
+        .orElse(false);
+  }
+
+  @Override
+  public List<Position> getPositions() {
+    final byte[] startKey = new byte[POSITION_KEY_SIZE];
+    startKey[0] = POSITION_PREFIX;
+    final byte[] endKey = new byte[POSITION_KEY_SIZE];
+    Arrays.fill(endKey, (byte) 0xff);
+    endKey[0] = POSITION_PREFIX;
+    try (final Stream<Pair<byte[], byte[]>> positions =
+        keyValueStorage.streamFromKey(startKey, endKey)) {
+      return positions
+          .map(
+              pair ->
+                  PositionCodec.decode(
+                      TickerKeys.decode(pair.getKey(), TICKER_OFFSET), pair.getValue()))
+          .toList();
+    }
+  }
+
+  @Override
+  public Updater updater() {
+    return new Updater(keyValueStorage.startTransaction());
+  }
+
+  @Override
+  public void clear() {
+    keyValueStorage.clear();
+  }
+
+  /**
+   * Build the key a position is stored under.
+   *
+   * @param ticker the ticker
+   * @return the position key
+   */
+  static byte[] positionKey(final String ticker) {
+    final byte[] key = new byte[POSITION_KEY_SIZE];
+    key[0] = POSITION_PREFIX;
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    return key;
+  }
+
+  public static class Updater implements PositionStorage.Updater {
+
+    private final KeyValueStorageTransaction transaction;
+
+    public Updater(final KeyValueStorageTransaction transaction) {
+      this.transaction = transaction;
+    }
+
+    @Override
+    public void putPosition(final Position position) {
+      transaction.put(positionKey(position.ticker()), PositionCodec.encode(position));
+    }
+
+    @Override
+    public void removePosition(final String ticker) {
+      transaction.remove(positionKey(ticker));
+    }
+
+    @Override
+    public void setCheckpointClean(final boolean clean) {
+      if (clean) {
+        transaction.put(CHECKPOINT_KEY, new byte[] {CLEAN});
+      } else {
+        transaction.remove(CHECKPOINT_KEY);
+      }
+    }
+
+    @Override
+    public void commit() {
+      transaction.commit();
+    }
+
+    @Override
+    public void rollback() {
+      transaction.rollback();
+    }
+  }
+}
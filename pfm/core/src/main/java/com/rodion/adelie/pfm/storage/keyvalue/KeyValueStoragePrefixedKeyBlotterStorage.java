@@ -1,11 +1,46 @@
 package com.rodion.adelie.pfm.storage.keyvalue;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.rodion.adelie.pfm.storage.keyvalue.TickerKeys.TICKER_WIDTH;
+
 import com.rodion.adelie.pfm.blotter.BlotterStorage;
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import com.rodion.adelie.pfm.trade.TradeEntryCodec;
 import com.rodion.adelie.plugin.services.storage.DataStorageFormat;
 import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.tuweni.bytes.Bytes;
 
+/**
+ * Blotter storage over a single key value segment. Trades are stored under fixed width keys that
+ * sort by ticker, then date, then id, so the trades of a ticker are one bounded range scan. A
+ * second key space maps each trade id to its trade key, for lookups and removals by id.
+ *
+ * <pre>
+ * trade key:    0x01 | ticker (16, zero padded) | date millis (8, sign flipped) | id (4)
+ * trade id key: 0x02 | id (4) -> trade key
+ * </pre>
+ */
 public class KeyValueStoragePrefixedKeyBlotterStorage implements BlotterStorage {
 
+  private static final byte TRADE_PREFIX = 0x01;
+  private static final byte TRADE_ID_PREFIX = 0x02;
+
+  private static final int TICKER_OFFSET = 1;
+  private static final int DATE_OFFSET = TICKER_OFFSET + TICKER_WIDTH;
+  private static final int ID_OFFSET = DATE_OFFSET + Long.BYTES;
+  private static final int TRADE_KEY_SIZE = ID_OFFSET + Integer.BYTES;
+
   private final KeyValueStorage keyValueStorage;
 
   public KeyValueStoragePrefixedKeyBlotterStorage(final KeyValueStorage keyValueStorage) {
@@ -17,13 +52,174 @@ public class KeyValueStoragePrefixedKeyBlotterStorage implements BlotterStorage
     return DataStorageFormat.FOREST;
   }
 
+  @Override
+  public Optional<TradeEntry> getTrade(final int id) {
+    return keyValueStorage
+        .get(tradeIdKey(id))
+        .flatMap(keyValueStorage::get)
+        .map(TradeEntryCodec::decode);
+  }
+
+  @Override
+  public List<TradeEntry> getTradesByTicker(final String ticker) {
+    try (final Stream<Pair<Integer, TradeEntry>> trades = streamTradesByTicker(ticker)) {
+      return trades.map(Pair::getValue).toList();
+    }
+  }
+
+  @Override
+  public Stream<Pair<Integer, TradeEntry>> streamTradesByTicker(final String ticker) {
+    final byte[] prefix = new byte[DATE_OFFSET];
+    prefix[0] = TRADE_PREFIX;
+    TickerKeys.encode(ticker, prefix, TICKER_OFFSET);
+    return toTrades(keyValueStorage.streamByPrefix(prefix));
+  }
+
+  @Override
+  public Stream<Pair<Integer, TradeEntry>> streamTrades() {
+    final byte[] startKey = new byte[TRADE_KEY_SIZE];
+    startKey[0] = TRADE_PREFIX;
+    final byte[] endKey = new byte[TRADE_KEY_SIZE];
+    Arrays.fill(endKey, (byte) 0xff);
+    endKey[0] = TRADE_PREFIX;
+    return toTrades(keyValueStorage.streamFromKey(startKey, endKey));
+  }
+
+  @Override
+  public OptionalInt getMaxTradeId() {
+    final byte[] lastIdKey = tradeIdKey(-1);
+    return keyValueStorage
+        .getNearestTo(Bytes.wrap(lastIdKey))
+        .map(nearest -> nearest.key().toArrayUnsafe())
+        .filter(key -> key.length == lastIdKey.length && key[0] == TRADE_ID_PREFIX)
+        .map(key -> OptionalInt.of(ByteBuffer.wrap(key, 1, Integer.BYTES).getInt()))
+        .orElse(OptionalInt.empty());
+  }
+
+  @Override
+  public void validateTrade(final TradeEntry trade) {
+    checkArgument(trade.date() != null, "Missing trade date");
+    checkArgument(trade.side() != null, "Missing trade side");
+    checkArgument(
+        Float.isFinite(trade.price()) && trade.price() >= 0, "Invalid price %s", trade.price());
+    TickerKeys.validate(trade.ticker());
+  }
+
   @Override
   public Updater updater() {
-    return null;
+    return new Updater(keyValueStorage.startTransaction(), keyValueStorage);
+  }
+
+  @Override
+  public Updater updater(final WriteDurability durability) {
+    return new Updater(keyValueStorage.startBatch(durability), keyValueStorage);
   }
 
   @Override
   public void clear() {
     keyValueStorage.clear();
   }
+
+  private static Stream<Pair<Integer, TradeEntry>> toTrades(
+      final Stream<Pair<byte[], byte[]>> entries) {
+    return entries.map(
+        pair ->
+            Pair.of(
+                ByteBuffer.wrap(pair.getKey(), ID_OFFSET, Integer.BYTES).getInt(),
+                TradeEntryCodec.decode(pair.getValue())));
+  }
+
+  /**
+   * Build the key a trade is stored under.
+   *
+   * @param id the trade id
+   * @param trade the trade entry
+   * @return the trade key
+   */
+  static byte[] tradeKey(final int id, final TradeEntry trade) {
+    final byte[] key = new byte[TRADE_KEY_SIZE];
+    key[0] = TRADE_PREFIX;
+    TickerKeys.encode(trade.ticker(), key, TICKER_OFFSET);
+    ByteBuffer.wrap(key, DATE_OFFSET, Long.BYTES + Integer.BYTES)
+        .putLong(trade.date().getTime() ^ Long.MIN_VALUE)
+        .putInt(id);
+    return key;
+  }
+
+  /**
+   * Build the key mapping a trade id to its trade key. Ids compare as unsigned, so that -1 is the
+   * last possible key of the id space.
+   *
+   * @param id the trade id
+   * @return the trade id key
+   */
+  static byte[] tradeIdKey(final int id) {
+    return ByteBuffer.allocate(1 + Integer.BYTES).put(TRADE_ID_PREFIX).putInt(id).array();
+  }
+
+  public static class Updater implements BlotterStorage.Updater {
+
+    private final KeyValueStorageTransaction transaction;
+    private final KeyValueStorage storage;
+    // trades written or removed by this updater, an empty value marks a removal
+    private final Map<Integer, Optional<StoredTrade>> pendingTrades = new HashMap<>();
+
+    public Updater(final KeyValueStorageTransaction transaction, final KeyValueStorage storage) {
+      this.transaction = transaction;
+      this.storage = storage;
+    }
+
+    @Override
+    public Optional<TradeEntry> putTrade(final int id, final TradeEntry trade) {
+      checkArgument(id >= 0, "Trade id %s must not be negative", id);
+      final byte[] tradeKey = tradeKey(id, trade);
+      final Optional<StoredTrade> previous = currentTrade(id);
+      previous
+          .map(StoredTrade::key)
+          .filter(previousKey -> !Arrays.equals(previousKey, tradeKey))
+          .ifPresent(transaction::remove);
+      transaction.put(tradeKey, TradeEntryCodec.encode(trade));
+      transaction.put(tradeIdKey(id), tradeKey);
+      pendingTrades.put(id, Optional.of(new StoredTrade(tradeKey, trade)));
+      return previous.map(StoredTrade::trade);
+    }
+
+    @Override
+    public Optional<TradeEntry> removeTrade(final int id) {
+      final Optional<StoredTrade> previous = currentTrade(id);
+      previous.ifPresent(
+          stored -> {
+            transaction.remove(stored.key());
+            transaction.remove(tradeIdKey(id));
+            pendingTrades.put(id, Optional.empty());
+          });
+      return previous.map(StoredTrade::trade);
+    }
+
+    @Override
+    public void commit() {
+      transaction.commit();
+    }
+
+    @Override
+    public void rollback() {
+      transaction.rollback();
+    }
+
+    private Optional<StoredTrade> currentTrade(final int id) {
+      final Optional<StoredTrade> pending = pendingTrades.get(id);
+      if (pending != null) {
+        return pending;
+      }
+      return storage
+          .get(tradeIdKey(id))
+          .flatMap(
+              tradeKey ->
+                  storage
+                      .get(tradeKey)
+                      .map(value -> new StoredTrade(tradeKey, TradeEntryCodec.decode(value))));
+    }
+
+    private record StoredTrade(byte[] key, TradeEntry trade) {}
+  }
 }
@@ -1,11 +1,20 @@
 package com.rodion.adelie.pfm.storage.keyvalue;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import com.rodion.adelie.pfm.blotter.BlotterStorage;
 import com.rodion.adelie.pfm.blotter.DataStorageConfiguration;
+import com.rodion.adelie.pfm.marketdata.BarStorage;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.pfm.position.PositionStorage;
+import com.rodion.adelie.pfm.taxlot.TaxLotStorage;
+import com.rodion.adelie.plugin.services.MetricsSystem;
 import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.SnappableKeyValueStorage;
 import com.rodion.adelie.services.kvstore.SegmentedKeyValueStorageAdapter;
+import com.rodion.adelie.services.kvstore.SegmentedKeyValueStorageCachingDecorator;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
@@ -17,15 +26,24 @@ import org.slf4j.LoggerFactory;
 
 public class KeyValueStorageProvider implements StorageProvider {
   private static final Logger LOG = LoggerFactory.getLogger(StorageProvider.class);
-
   protected final Function<List<SegmentIdentifier>, SegmentedKeyValueStorage>
       segmentedStorageCreator;
   protected final Map<List<SegmentIdentifier>, SegmentedKeyValueStorage> storageInstances =
       new HashMap<>();
+  protected final Map<List<SegmentIdentifier>, SegmentedKeyValueStorage> cachedStorageInstances =
+      new HashMap<>();
+  private final MetricsSystem metricsSystem;
 
   public KeyValueStorageProvider(
       final Function<List<SegmentIdentifier>, SegmentedKeyValueStorage> segmentedStorageCreator) {
+    this(segmentedStorageCreator, MetricsSystem.NO_OP);
+  }
+
+  public KeyValueStorageProvider(
+      final Function<List<SegmentIdentifier>, SegmentedKeyValueStorage> segmentedStorageCreator,
+      final MetricsSystem metricsSystem) {
     this.segmentedStorageCreator = segmentedStorageCreator;
+    this.metricsSystem = metricsSystem;
   }
 
   @Override
@@ -34,10 +52,50 @@ public class KeyValueStorageProvider implements StorageProvider {
         getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.BLOTTER));
   }
 
+  @Override
+  public PositionStorage createPositionStorage() {
+    return new KeyValueStoragePositionStorage(
+        getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.POSITIONS));
+  }
+
+  @Override
+  public TaxLotStorage createTaxLotStorage() {
+    return new KeyValueStorageTaxLotStorage(
+        getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.TAX_LOTS));
+  }
+
+  @Override
+  public TimeSeriesStorage createTimeSeriesStorage() {
+    return new KeyValueStorageTimeSeriesStorage(
+        getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.MARKET_DATA));
+  }
+
+  @Override
+  public BarStorage createBarStorage() {
+    return new KeyValueStorageBarStorage(
+        getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.BARS));
+  }
+
   @Override
   public KeyValueStorage getStorageBySegmentIdentifier(final SegmentIdentifier segment) {
-    return new SegmentedKeyValueStorageAdapter(
-        segment, storageInstances.computeIfAbsent(List.of(segment), segmentedStorageCreator));
+    return new SegmentedKeyValueStorageAdapter(segment, cachedStorage(List.of(segment)));
+  }
+
+  // one cache per segment, shared by every adapter, so commits invalidate what all readers see
+  private SegmentedKeyValueStorage cachedStorage(final List<SegmentIdentifier> segments) {
+    final SegmentedKeyValueStorage storage =
+        storageInstances.computeIfAbsent(segments, segmentedStorageCreator);
+    if (!SegmentedKeyValueStorageCachingDecorator.isCached(segments)) {
+      return storage;
+    }
+    return cachedStorageInstances.computeIfAbsent(
+        segments,
+        __ -> {
+          final SegmentedKeyValueStorageCachingDecorator cached =
+              new SegmentedKeyValueStorageCachingDecorator(storage, segments);
+          cached.registerMetrics(metricsSystem);
+          return cached;
+        });
   }
 
   @Override
@@ -46,6 +104,24 @@ public class KeyValueStorageProvider implements StorageProvider {
     return segmentedStorageCreator.apply(segments);
   }
 
+  @Override
+  public StorageSnapshot takeSnapshot() {
+    // the snapshot is read as both segments, so they must be backed by the same storage
+    final SegmentedKeyValueStorage storage =
+        storageInstances.computeIfAbsent(
+            List.of(KeyValueSegmentIdentifier.BLOTTER), segmentedStorageCreator);
+    checkState(
+        storageInstances.computeIfAbsent(
+                List.of(KeyValueSegmentIdentifier.MARKET_DATA), segmentedStorageCreator)
+            == storage,
+        "BLOTTER and MARKET_DATA are stored separately, one snapshot cannot cover both");
+    if (!(storage instanceof SnappableKeyValueStorage snappable)) {
+      throw new UnsupportedOperationException(
+          storage.getClass().getSimpleName() + " does not support snapshots");
+    }
+    return new KeyValueStorageSnapshot(snappable.takeSnapshot());
+  }
+
   @Override
   public void close() throws IOException {
     storageInstances.entrySet().stream()
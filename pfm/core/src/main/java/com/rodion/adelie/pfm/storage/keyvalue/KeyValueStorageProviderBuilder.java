@@ -3,12 +3,14 @@ package com.rodion.adelie.pfm.storage.keyvalue;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.rodion.adelie.plugin.services.AdelieConfiguration;
+import com.rodion.adelie.plugin.services.MetricsSystem;
 import com.rodion.adelie.plugin.services.storage.KeyValueStorageFactory;
 
 public class KeyValueStorageProviderBuilder {
 
   private KeyValueStorageFactory storageFactory;
   private AdelieConfiguration commonConfiguration;
+  private MetricsSystem metricsSystem = MetricsSystem.NO_OP;
 
   public KeyValueStorageProviderBuilder withStorageFactory(
       final KeyValueStorageFactory storageFactory) {
@@ -22,13 +24,20 @@ public class KeyValueStorageProviderBuilder {
     return this;
   }
 
+  public KeyValueStorageProviderBuilder withMetricsSystem(final MetricsSystem metricsSystem) {
+    this.metricsSystem = metricsSystem;
+    return this;
+  }
+
   public KeyValueStorageProvider build() {
     checkNotNull(storageFactory, "Cannot build a storage provider without a storage factory.");
     checkNotNull(
         commonConfiguration,
         "Cannot build a storage provider without the plugin common configuration.");
 
+    checkNotNull(metricsSystem, "Cannot build a storage provider without a metrics system.");
+
     return new KeyValueStorageProvider(
-        segments -> storageFactory.create(segments, commonConfiguration));
+        segments -> storageFactory.create(segments, commonConfiguration), metricsSystem);
   }
 }
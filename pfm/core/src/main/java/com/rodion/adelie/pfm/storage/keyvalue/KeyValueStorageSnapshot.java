@@ -0,0 +1,39 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import com.rodion.adelie.pfm.blotter.BlotterStorage;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.SnappedKeyValueStorage;
+import com.rodion.adelie.services.kvstore.SegmentedKeyValueStorageAdapter;
+import java.io.IOException;
+
+/** Storage snapshot over a snapshot of the segmented key value storage. */
+public class KeyValueStorageSnapshot implements StorageSnapshot {
+
+  private final SnappedKeyValueStorage snapshot;
+
+  public KeyValueStorageSnapshot(final SnappedKeyValueStorage snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  @Override
+  public BlotterStorage createBlotterStorage() {
+    return new KeyValueStoragePrefixedKeyBlotterStorage(
+        new SegmentedKeyValueStorageAdapter(KeyValueSegmentIdentifier.BLOTTER, snapshot));
+  }
+
+  @Override
+  public TimeSeriesStorage createTimeSeriesStorage() {
+    return new KeyValueStorageTimeSeriesStorage(
+        new SegmentedKeyValueStorageAdapter(KeyValueSegmentIdentifier.MARKET_DATA, snapshot));
+  }
+
+  @Override
+  public void close() {
+    try {
+      snapshot.close();
+    } catch (final IOException e) {
+      throw new StorageException(e);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import static com.rodion.adelie.pfm.storage.keyvalue.TickerKeys.TICKER_WIDTH;
+
+import com.rodion.adelie.pfm.taxlot.LotMatchingMethod;
+import com.rodion.adelie.pfm.taxlot.TaxLotBook;
+import com.rodion.adelie.pfm.taxlot.TaxLotBookCodec;
+import com.rodion.adelie.pfm.taxlot.TaxLotStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageTransaction;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Tax lot storage over a single key value segment, one book per ticker holding its open lots, one
+ * entry per lot disposal, and a marker recording the matching method of a clean checkpoint. Lot
+ * disposals are only ever appended to between replays of a ticker, so a checkpoint writes the new
+ * disposals rather than the whole history of the ticker.
+ *
+ * <pre>
+ * book key:       0x01 | ticker (16, zero padded)
+ * checkpoint key: 0x02 -> layout version (1) | matching method ordinal (1), absent when not clean
+ * disposal key:   0x03 | ticker (16, zero padded) | index (4)
+ * </pre>
+ */
+public class KeyValueStorageTaxLotStorage implements TaxLotStorage {
+
+  private static final byte BOOK_PREFIX = 0x01;
+  private static final byte[] CHECKPOINT_KEY = {0x02};
+  private static final byte DISPOSAL_PREFIX = 0x03;
+  // checkpoints of an older layout are not clean, so that they are rebuilt
+  private static final byte LAYOUT_VERSION = 2;
+  private static final LotMatchingMethod[] METHODS = LotMatchingMethod.values();
+
+  private static final int TICKER_OFFSET = 1;
+  private static final int BOOK_KEY_SIZE = TICKER_OFFSET + TICKER_WIDTH;
+  private static final int DISPOSAL_KEY_SIZE = BOOK_KEY_SIZE + Integer.BYTES;
+
+  private final KeyValueStorage keyValueStorage;
+
+  public KeyValueStorageTaxLotStorage(final KeyValueStorage keyValueStorage) {
+    this.keyValueStorage = keyValueStorage;
+  }
+
+  @Override
+  public Optional<LotMatchingMethod> getCleanCheckpointMethod() {
+    return keyValueStorage
+        .get(CHECKPOINT_KEY)
+        .filter(
+            value ->
+                value.length == 2
+                    && value[0] == LAYOUT_VERSION
+                    && value[1] >= 0
+                    && value[1] < METHODS.length)
+        .map(value -> METHODS[value[1]]);
+  }
+
+  @Override
+  public List<TaxLotBook> getTaxLotBooks() {
+    final byte[] startKey = new byte[BOOK_KEY_SIZE];
+    startKey[0] = BOOK_PREFIX;
+    final byte[] endKey = new byte[BOOK_KEY_SIZE];
+    Arrays.fill(endKey, (byte) 0xff);
+    endKey[0] = BOOK_PREFIX;
+    final Map<String, TaxLotBook> books = new LinkedHashMap<>();
+    try (final Stream<Pair<byte[], byte[]>> entries =
+        keyValueStorage.streamFromKey(startKey, endKey)) {
+      entries.forEach(
+          pair -> {
+            final String ticker = TickerKeys.decode(pair.getKey(), TICKER_OFFSET);
+            books.put(ticker, TaxLotBookCodec.decode(ticker, pair.getValue()));
+          });
+    }
+    // disposals sort by ticker then index, so each book gets them in closing order
+    try (final Stream<Pair<byte[], byte[]>> entries =
+        keyValueStorage.streamByPrefix(new byte[] {DISPOSAL_PREFIX})) {
+      entries.forEach(
+          pair -> {
+            final TaxLotBook book = books.get(TickerKeys.decode(pair.getKey(), TICKER_OFFSET));
+            if (book != null) {
+              TaxLotBookCodec.decodeDisposal(book, pair.getValue());
+            }
+          });
+    }
+    books.values().forEach(TaxLotBook::markCheckpointed);
+    return List.copyOf(books.values());
+  }
+
+  @Override
+  public Updater updater() {
+    return new Updater(keyValueStorage.startTransaction());
+  }
+
+  @Override
+  public void clear() {
+    keyValueStorage.clear();
+  }
+
+  /**
+   * Build the key a tax lot book is stored under.
+   *
+   * @param ticker the ticker
+   * @return the book key
+   */
+  static byte[] bookKey(final String ticker) {
+    final byte[] key = new byte[BOOK_KEY_SIZE];
+    key[0] = BOOK_PREFIX;
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    return key;
+  }
+
+  /**
+   * Build the key a lot disposal is stored under.
+   *
+   * @param ticker the ticker
+   * @param index the index of the disposal in closing order
+   * @return the disposal key
+   */
+  static byte[] disposalKey(final String ticker, final int index) {
+    final byte[] key = new byte[DISPOSAL_KEY_SIZE];
+    key[0] = DISPOSAL_PREFIX;
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    ByteBuffer.wrap(key, BOOK_KEY_SIZE, Integer.BYTES).putInt(index);
+    return key;
+  }
+
+  public static class Updater implements TaxLotStorage.Updater {
+
+    private final KeyValueStorageTransaction transaction;
+
+    public Updater(final KeyValueStorageTransaction transaction) {
+      this.transaction = transaction;
+    }
+
+    @Override
+    public void putTaxLotBook(final TaxLotBook book) {
+      final String ticker = book.getTicker();
+      transaction.put(bookKey(ticker), TaxLotBookCodec.encode(book));
+      for (int i = book.getCheckpointedDisposalCount(); i < book.getDisposalCount(); i++) {
+        transaction.put(disposalKey(ticker, i), TaxLotBookCodec.encodeDisposal(book, i));
+      }
+      removeDisposals(ticker, book.getDisposalCount(), book.getStoredDisposalCount());
+    }
+
+    @Override
+    public void removeTaxLotBook(final TaxLotBook book) {
+      transaction.remove(bookKey(book.getTicker()));
+      removeDisposals(book.getTicker(), 0, book.getStoredDisposalCount());
+    }
+
+    @Override
+    public void markCheckpointClean(final LotMatchingMethod method) {
+      transaction.put(CHECKPOINT_KEY, new byte[] {LAYOUT_VERSION, (byte) method.ordinal()});
+    }
+
+    @Override
+    public void markCheckpointDirty() {
+      transaction.remove(CHECKPOINT_KEY);
+    }
+
+    @Override
+    public void commit() {
+      transaction.commit();
+    }
+
+    @Override
+    public void rollback() {
+      transaction.rollback();
+    }
+
+    private void removeDisposals(final String ticker, final int from, final int to) {
+      for (int i = from; i < to; i++) {
+        transaction.remove(disposalKey(ticker, i));
+      }
+    }
+  }
+}
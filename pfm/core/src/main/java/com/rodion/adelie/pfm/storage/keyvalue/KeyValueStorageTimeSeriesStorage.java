@@ -0,0 +1,296 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import static com.rodion.adelie.pfm.storage.keyvalue.TickerKeys.TICKER_WIDTH;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.rodion.adelie.pfm.marketdata.GorillaChunkDecoder;
+import com.rodion.adelie.pfm.marketdata.GorillaChunkEncoder;
+import com.rodion.adelie.pfm.marketdata.PriceTick;
+import com.rodion.adelie.pfm.marketdata.TickerTick;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageTransaction;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.tuweni.bytes.Bytes;
+
+/**
+ * Time series storage over a single key value segment. The prices of a ticker are grouped in one
+ * Gorilla encoded chunk per UTC day, stored under keys that sort by ticker then day, so that a
+ * history range is one bounded scan and the latest price is one seek. The latest quote index is
+ * advanced in the same commit as the chunks, so it is never behind the stored history.
+ *
+ * <pre>
+ * chunk key: 0x01 | ticker (16, zero padded) | day start millis (8, sign flipped)
+ * quote key: 0x02 | ticker (16, zero padded) -> timestamp millis (8) | price bits (8)
+ * </pre>
+ */
+public class KeyValueStorageTimeSeriesStorage implements TimeSeriesStorage {
+
+  /** The time span of a chunk. */
+  public static final long CHUNK_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  private static final byte CHUNK_PREFIX = 0x01;
+  private static final byte QUOTE_PREFIX = 0x02;
+
+  private static final int TICKER_OFFSET = 1;
+  private static final int BUCKET_OFFSET = TICKER_OFFSET + TICKER_WIDTH;
+  private static final int CHUNK_KEY_SIZE = BUCKET_OFFSET + Long.BYTES;
+  private static final int QUOTE_KEY_SIZE = TICKER_OFFSET + TICKER_WIDTH;
+  private static final int QUOTE_SIZE = Long.BYTES + Long.BYTES;
+
+  private final KeyValueStorage keyValueStorage;
+
+  public KeyValueStorageTimeSeriesStorage(final KeyValueStorage keyValueStorage) {
+    this.keyValueStorage = keyValueStorage;
+  }
+
+  // chunks are read, extended and written back, so appends are serialized
+  @Override
+  public synchronized void append(final String ticker, final List<PriceTick> ticks) {
+    if (ticks.isEmpty()) {
+      return;
+    }
+    final List<PriceTick> sorted = new ArrayList<>(ticks);
+    sorted.sort(Comparator.comparingLong(PriceTick::timestampMillis));
+    final KeyValueStorageTransaction transaction = keyValueStorage.startTransaction();
+    int start = 0;
+    while (start < sorted.size()) {
+      final long bucket = bucketStart(sorted.get(start).timestampMillis());
+      int end = start + 1;
+      while (end < sorted.size() && bucketStart(sorted.get(end).timestampMillis()) == bucket) {
+        end++;
+      }
+      final byte[] key = chunkKey(ticker, bucket);
+      transaction.put(key, appendToChunk(keyValueStorage.get(key), sorted.subList(start, end)));
+      start = end;
+    }
+    putQuoteIfLater(transaction, ticker, sorted.get(sorted.size() - 1));
+    transaction.commit();
+  }
+
+  // serialized with appends, which would otherwise race the merge of a chunk
+  @Override
+  public synchronized long load(final Iterator<TickerTick> sortedTicks) {
+    final ChunkIterator chunks = new ChunkIterator(Iterators.peekingIterator(sortedTicks));
+    keyValueStorage.ingest(chunks);
+    if (!chunks.lastTicks.isEmpty()) {
+      putLatestQuotes(chunks.lastTicks);
+    }
+    return chunks.tickCount;
+  }
+
+  @Override
+  public List<PriceTick> getRange(final String ticker, final long fromMillis, final long toMillis) {
+    final List<PriceTick> ticks = new ArrayList<>();
+    forEachTick(
+        ticker,
+        fromMillis,
+        toMillis,
+        (timestamp, price) -> ticks.add(new PriceTick(timestamp, price)));
+    return ticks;
+  }
+
+  @Override
+  public void forEachTick(
+      final String ticker,
+      final long fromMillis,
+      final long toMillis,
+      final GorillaChunkDecoder.TickConsumer consumer) {
+    if (fromMillis > toMillis) {
+      return;
+    }
+    try (final Stream<Pair<byte[], byte[]>> chunks =
+        keyValueStorage.streamFromKey(
+            chunkKey(ticker, bucketStart(fromMillis)), chunkKey(ticker, bucketStart(toMillis)))) {
+      chunks.forEach(
+          chunk ->
+              GorillaChunkDecoder.forEach(
+                  chunk.getValue(),
+                  (timestamp, price) -> {
+                    if (timestamp >= fromMillis && timestamp <= toMillis) {
+                      consumer.accept(timestamp, price);
+                    }
+                  }));
+    }
+  }
+
+  @Override
+  public Optional<PriceTick> getLatest(final String ticker) {
+    final byte[] lastKey = chunkKey(ticker, Long.MAX_VALUE);
+    return keyValueStorage
+        .getNearestTo(Bytes.wrap(lastKey))
+        .filter(
+            nearest ->
+                nearest.key().size() == CHUNK_KEY_SIZE
+                    && Arrays.equals(
+                        nearest.key().toArrayUnsafe(), 0, BUCKET_OFFSET, lastKey, 0, BUCKET_OFFSET))
+        .flatMap(nearest -> nearest.value().map(GorillaChunkDecoder::lastTick));
+  }
+
+  @Override
+  public Map<String, PriceTick> getLatestQuotes() {
+    final byte[] startKey = new byte[QUOTE_KEY_SIZE];
+    startKey[0] = QUOTE_PREFIX;
+    final byte[] endKey = new byte[QUOTE_KEY_SIZE];
+    Arrays.fill(endKey, (byte) 0xff);
+    endKey[0] = QUOTE_PREFIX;
+    final Map<String, PriceTick> quotes = new HashMap<>();
+    try (final Stream<Pair<byte[], byte[]>> entries =
+        keyValueStorage.streamFromKey(startKey, endKey)) {
+      entries.forEach(
+          entry -> {
+            final ByteBuffer value = ByteBuffer.wrap(entry.getValue());
+            quotes.put(
+                TickerKeys.decode(entry.getKey(), TICKER_OFFSET),
+                new PriceTick(value.getLong(), Double.longBitsToDouble(value.getLong())));
+          });
+    }
+    return quotes;
+  }
+
+  // serialized with appends, so a quote read here is not replaced before the commit
+  @Override
+  public synchronized void putLatestQuotes(final Map<String, PriceTick> quotes) {
+    final KeyValueStorageTransaction transaction = keyValueStorage.startTransaction();
+    quotes.forEach((ticker, tick) -> putQuoteIfLater(transaction, ticker, tick));
+    transaction.commit();
+  }
+
+  @Override
+  public void clear() {
+    keyValueStorage.clear();
+  }
+
+  /**
+   * Get the start of the chunk holding a timestamp, clamped to the earliest representable time.
+   *
+   * @param timestampMillis the timestamp
+   * @return the start of the chunk
+   */
+  static long bucketStart(final long timestampMillis) {
+    final long start = Math.floorDiv(timestampMillis, CHUNK_MILLIS) * CHUNK_MILLIS;
+    // the first chunk starts before Long.MIN_VALUE and overflows
+    return start > timestampMillis ? Long.MIN_VALUE : start;
+  }
+
+  /**
+   * Build the key a chunk is stored under.
+   *
+   * @param ticker the ticker
+   * @param bucketStart the start of the chunk
+   * @return the chunk key
+   */
+  static byte[] chunkKey(final String ticker, final long bucketStart) {
+    final byte[] key = new byte[CHUNK_KEY_SIZE];
+    key[0] = CHUNK_PREFIX;
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    ByteBuffer.wrap(key, BUCKET_OFFSET, Long.BYTES).putLong(bucketStart ^ Long.MIN_VALUE);
+    return key;
+  }
+
+  /**
+   * Build the key the latest quote of a ticker is stored under.
+   *
+   * @param ticker the ticker
+   * @return the quote key
+   */
+  static byte[] quoteKey(final String ticker) {
+    final byte[] key = new byte[QUOTE_KEY_SIZE];
+    key[0] = QUOTE_PREFIX;
+    TickerKeys.encode(ticker, key, TICKER_OFFSET);
+    return key;
+  }
+
+  // the index only moves forward, a quote older than the stored one is dropped
+  private void putQuoteIfLater(
+      final KeyValueStorageTransaction transaction, final String ticker, final PriceTick tick) {
+    final byte[] quoteKey = quoteKey(ticker);
+    final boolean later =
+        keyValueStorage
+            .get(quoteKey)
+            .map(quote -> ByteBuffer.wrap(quote).getLong() <= tick.timestampMillis())
+            .orElse(true);
+    if (later) {
+      transaction.put(quoteKey, encodeQuote(tick));
+    }
+  }
+
+  private static byte[] encodeQuote(final PriceTick tick) {
+    return ByteBuffer.allocate(QUOTE_SIZE)
+        .putLong(tick.timestampMillis())
+        .putLong(Double.doubleToRawLongBits(tick.price()))
+        .array();
+  }
+
+  /** Groups sorted ticks into chunks, merged with the chunks already stored under their keys. */
+  private class ChunkIterator implements Iterator<Pair<byte[], byte[]>> {
+    private final PeekingIterator<TickerTick> ticks;
+    private final Map<String, PriceTick> lastTicks = new HashMap<>();
+    private byte[] lastKey;
+    private long tickCount;
+
+    private ChunkIterator(final PeekingIterator<TickerTick> ticks) {
+      this.ticks = ticks;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return ticks.hasNext();
+    }
+
+    @Override
+    public Pair<byte[], byte[]> next() {
+      final TickerTick first = ticks.next();
+      final String ticker = first.ticker();
+      final long bucket = bucketStart(first.timestampMillis());
+      final List<PriceTick> chunk = new ArrayList<>();
+      chunk.add(new PriceTick(first.timestampMillis(), first.price()));
+      while (ticks.hasNext()
+          && ticks.peek().ticker().equals(ticker)
+          && bucketStart(ticks.peek().timestampMillis()) == bucket) {
+        final TickerTick tick = ticks.next();
+        chunk.add(new PriceTick(tick.timestampMillis(), tick.price()));
+      }
+      final byte[] key = chunkKey(ticker, bucket);
+      if (lastKey != null && Arrays.compareUnsigned(lastKey, key) >= 0) {
+        throw new IllegalArgumentException(
+            "Ticks are not in load order at " + ticker + " " + first.timestampMillis());
+      }
+      lastKey = key;
+      tickCount += chunk.size();
+      lastTicks.put(ticker, chunk.get(chunk.size() - 1));
+      return Pair.of(key, appendToChunk(keyValueStorage.get(key), chunk));
+    }
+  }
+
+  private static byte[] appendToChunk(final Optional<byte[]> chunk, final List<PriceTick> ticks) {
+    final GorillaChunkEncoder encoder;
+    List<PriceTick> appended = ticks;
+    if (chunk.isEmpty()) {
+      encoder = new GorillaChunkEncoder();
+    } else if (GorillaChunkDecoder.lastTick(chunk.get()).timestampMillis()
+        <= ticks.get(0).timestampMillis()) {
+      encoder = GorillaChunkEncoder.resume(chunk.get());
+    } else {
+      // ticks before the end of the chunk, merge and encode the chunk again
+      appended = new ArrayList<>(GorillaChunkDecoder.decode(chunk.get()));
+      appended.addAll(ticks);
+      appended.sort(Comparator.comparingLong(PriceTick::timestampMillis));
+      encoder = new GorillaChunkEncoder();
+    }
+    appended.forEach(tick -> encoder.append(tick.timestampMillis(), tick.price()));
+    return encoder.toBytes();
+  }
+}
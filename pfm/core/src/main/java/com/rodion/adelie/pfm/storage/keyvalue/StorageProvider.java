@@ -2,6 +2,10 @@ package com.rodion.adelie.pfm.storage.keyvalue;
 
 import com.rodion.adelie.pfm.blotter.BlotterStorage;
 import com.rodion.adelie.pfm.blotter.DataStorageConfiguration;
+import com.rodion.adelie.pfm.marketdata.BarStorage;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.pfm.position.PositionStorage;
+import com.rodion.adelie.pfm.taxlot.TaxLotStorage;
 import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
@@ -12,7 +16,24 @@ public interface StorageProvider extends Closeable {
 
   BlotterStorage createBlotterStorage(DataStorageConfiguration dataStorageConfiguration);
 
+  PositionStorage createPositionStorage();
+
+  TaxLotStorage createTaxLotStorage();
+
+  TimeSeriesStorage createTimeSeriesStorage();
+
+  BarStorage createBarStorage();
+
   KeyValueStorage getStorageBySegmentIdentifier(SegmentIdentifier segment);
 
   SegmentedKeyValueStorage getStorageBySegmentIdentifiers(List<SegmentIdentifier> segment);
+
+  /**
+   * Take a point in time snapshot of every segment.
+   *
+   * @return the snapshot, to be closed by the caller
+   * @throws UnsupportedOperationException if the storage cannot take snapshots
+   * @throws IllegalStateException if the segments of the snapshot are not backed by one storage
+   */
+  StorageSnapshot takeSnapshot();
 }
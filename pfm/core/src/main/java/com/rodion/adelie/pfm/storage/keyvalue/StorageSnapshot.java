@@ -0,0 +1,20 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import com.rodion.adelie.pfm.blotter.BlotterStorage;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import java.io.Closeable;
+
+/**
+ * A point in time view of every segment. Storages created from a snapshot all read the state as of
+ * the moment it was taken, and are only valid until the snapshot is closed.
+ */
+public interface StorageSnapshot extends Closeable {
+
+  BlotterStorage createBlotterStorage();
+
+  TimeSeriesStorage createTimeSeriesStorage();
+
+  /** Release the snapshot. */
+  @Override
+  void close();
+}
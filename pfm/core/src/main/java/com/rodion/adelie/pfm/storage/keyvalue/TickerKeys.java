@@ -0,0 +1,79 @@
+package com.rodion.adelie.pfm.storage.keyvalue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed width encoding of tickers in storage keys. Tickers are right padded with zero bytes, so
+ * that a ticker sorts before any longer ticker it prefixes and a ticker range is an exact match.
+ * Control characters are rejected, a zero byte in a ticker would read back truncated and share the
+ * key of the shorter ticker.
+ */
+public final class TickerKeys {
+
+  /** The width in bytes of an encoded ticker. */
+  public static final int TICKER_WIDTH = 16;
+
+  /** The length of a key prefix made of a key type byte followed by a ticker. */
+  public static final int TICKER_PREFIX_LENGTH = 1 + TICKER_WIDTH;
+
+  private TickerKeys() {}
+
+  /**
+   * Encode a ticker into a key at the given offset.
+   *
+   * @param ticker the ticker
+   * @param key the key to write to
+   * @param offset the offset in the key
+   * @throws IllegalArgumentException if the ticker is empty, longer than {@link #TICKER_WIDTH}
+   *     bytes or has a control character
+   */
+  public static void encode(final String ticker, final byte[] key, final int offset) {
+    final byte[] bytes = checkedBytes(ticker);
+    System.arraycopy(bytes, 0, key, offset, bytes.length);
+  }
+
+  /**
+   * Check that a ticker can be encoded into a key.
+   *
+   * @param ticker the ticker
+   * @throws IllegalArgumentException if the ticker is missing, empty, longer than {@link
+   *     #TICKER_WIDTH} bytes or has a control character
+   */
+  public static void validate(final String ticker) {
+    checkArgument(ticker != null, "Missing ticker");
+    checkedBytes(ticker);
+  }
+
+  private static byte[] checkedBytes(final String ticker) {
+    for (int i = 0; i < ticker.length(); i++) {
+      checkArgument(
+          !Character.isISOControl(ticker.charAt(i)),
+          "Ticker has a control character at index %s",
+          i);
+    }
+    final byte[] bytes = ticker.getBytes(StandardCharsets.UTF_8);
+    checkArgument(
+        bytes.length > 0 && bytes.length <= TICKER_WIDTH,
+        "Ticker %s must be between 1 and %s bytes",
+        ticker,
+        TICKER_WIDTH);
+    return bytes;
+  }
+
+  /**
+   * Decode the ticker of a key at the given offset.
+   *
+   * @param key the key
+   * @param offset the offset of the ticker in the key
+   * @return the ticker
+   */
+  public static String decode(final byte[] key, final int offset) {
+    int length = 0;
+    while (length < TICKER_WIDTH && key[offset + length] != 0) {
+      length++;
+    }
+    return new String(key, offset, length, StandardCharsets.UTF_8);
+  }
+}
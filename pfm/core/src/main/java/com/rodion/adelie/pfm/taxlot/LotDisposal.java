@@ -0,0 +1,31 @@
+package com.rodion.adelie.pfm.taxlot;
+
+/**
+ * The part of a tax lot closed by a trade.
+ *
+ * @param openTradeId the id of the trade that opened the lot
+ * @param closeTradeId the id of the trade that closed it
+ * @param openMillis the date the lot was opened
+ * @param closeMillis the date the lot was closed
+ * @param quantity the closed quantity, negative for a short lot
+ * @param costBasis the cost of the closed quantity
+ * @param proceeds the value of the closed quantity at the closing price
+ */
+public record LotDisposal(
+    int openTradeId,
+    int closeTradeId,
+    long openMillis,
+    long closeMillis,
+    long quantity,
+    double costBasis,
+    double proceeds) {
+
+  /**
+   * The gain realized by the disposal, a loss when negative.
+   *
+   * @return the realized gain
+   */
+  public double realizedGain() {
+    return proceeds - costBasis;
+  }
+}
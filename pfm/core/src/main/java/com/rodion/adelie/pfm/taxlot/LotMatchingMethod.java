@@ -0,0 +1,15 @@
+package com.rodion.adelie.pfm.taxlot;
+
+/** How a closing trade picks the open lots it closes. */
+public enum LotMatchingMethod {
+  /** Close the oldest lot first */
+  FIFO,
+  /** Close the newest lot first */
+  LIFO,
+  /**
+   * Close the lot realizing the smallest gain first, the highest cost long or lowest price short
+   */
+  HIGHEST_COST,
+  /** Close the oldest lot first, at the average cost of all open lots */
+  AVERAGE_COST;
+}
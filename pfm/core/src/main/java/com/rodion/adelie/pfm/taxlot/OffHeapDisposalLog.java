@@ -0,0 +1,64 @@
+package com.rodion.adelie.pfm.taxlot;
+
+/**
+ * The lot disposals of a ticker in closing order, as off-heap records.
+ *
+ * <pre>
+ * open trade id (4) | close trade id (4) | open millis (8) | close millis (8) | quantity (8)
+ *   | cost basis (8) | proceeds (8)
+ * </pre>
+ */
+class OffHeapDisposalLog extends OffHeapRecords {
+
+  private static final int OPEN_TRADE_ID = 0;
+  private static final int CLOSE_TRADE_ID = 4;
+  private static final int OPEN_MILLIS = 8;
+  private static final int CLOSE_MILLIS = 16;
+  private static final int QUANTITY = 24;
+  private static final int COST_BASIS = 32;
+  private static final int PROCEEDS = 40;
+  private static final int RECORD_SIZE = 48;
+
+  OffHeapDisposalLog() {
+    super(RECORD_SIZE);
+  }
+
+  int size() {
+    return count;
+  }
+
+  void add(
+      final int openTradeId,
+      final int closeTradeId,
+      final long openMillis,
+      final long closeMillis,
+      final long quantity,
+      final double costBasis,
+      final double proceeds) {
+    final int offset = offset(appendRecord());
+    buffer.putInt(offset + OPEN_TRADE_ID, openTradeId);
+    buffer.putInt(offset + CLOSE_TRADE_ID, closeTradeId);
+    buffer.putLong(offset + OPEN_MILLIS, openMillis);
+    buffer.putLong(offset + CLOSE_MILLIS, closeMillis);
+    buffer.putLong(offset + QUANTITY, quantity);
+    buffer.putDouble(offset + COST_BASIS, costBasis);
+    buffer.putDouble(offset + PROCEEDS, proceeds);
+  }
+
+  LotDisposal get(final int index) {
+    final int offset = offset(index);
+    return new LotDisposal(
+        buffer.getInt(offset + OPEN_TRADE_ID),
+        buffer.getInt(offset + CLOSE_TRADE_ID),
+        buffer.getLong(offset + OPEN_MILLIS),
+        buffer.getLong(offset + CLOSE_MILLIS),
+        buffer.getLong(offset + QUANTITY),
+        buffer.getDouble(offset + COST_BASIS),
+        buffer.getDouble(offset + PROCEEDS));
+  }
+
+  double realizedGain(final int index) {
+    final int offset = offset(index);
+    return buffer.getDouble(offset + PROCEEDS) - buffer.getDouble(offset + COST_BASIS);
+  }
+}
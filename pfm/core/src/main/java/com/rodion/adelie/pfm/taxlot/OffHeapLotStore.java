@@ -0,0 +1,86 @@
+package com.rodion.adelie.pfm.taxlot;
+
+/**
+ * The open lots of a ticker in opening order, as off-heap records. Lots are addressed by their
+ * position among the open lots, closing the first lot is constant time so that FIFO matching never
+ * moves records.
+ *
+ * <pre>
+ * trade id (4) | padding (4) | open millis (8) | quantity (8) | cost per unit (8)
+ * </pre>
+ */
+class OffHeapLotStore extends OffHeapRecords {
+
+  private static final int TRADE_ID = 0;
+  private static final int OPEN_MILLIS = 8;
+  private static final int QUANTITY = 16;
+  private static final int COST = 24;
+  private static final int RECORD_SIZE = 32;
+
+  // records before the head are closed lots not yet reclaimed
+  private int head;
+
+  OffHeapLotStore() {
+    super(RECORD_SIZE);
+  }
+
+  int size() {
+    return count - head;
+  }
+
+  void add(final int tradeId, final long openMillis, final long quantity, final double cost) {
+    if (head > 0 && offset(count + 1) > buffer.capacity()) {
+      moveRecords(head, 0, size());
+      count -= head;
+      head = 0;
+    }
+    final int offset = offset(appendRecord());
+    buffer.putInt(offset + TRADE_ID, tradeId);
+    buffer.putLong(offset + OPEN_MILLIS, openMillis);
+    buffer.putLong(offset + QUANTITY, quantity);
+    buffer.putDouble(offset + COST, cost);
+  }
+
+  int tradeId(final int lot) {
+    return buffer.getInt(offset(head + lot) + TRADE_ID);
+  }
+
+  long openMillis(final int lot) {
+    return buffer.getLong(offset(head + lot) + OPEN_MILLIS);
+  }
+
+  long quantity(final int lot) {
+    return buffer.getLong(offset(head + lot) + QUANTITY);
+  }
+
+  void setQuantity(final int lot, final long quantity) {
+    buffer.putLong(offset(head + lot) + QUANTITY, quantity);
+  }
+
+  double cost(final int lot) {
+    return buffer.getDouble(offset(head + lot) + COST);
+  }
+
+  void setCost(final int lot, final double cost) {
+    buffer.putDouble(offset(head + lot) + COST, cost);
+  }
+
+  void remove(final int lot) {
+    if (lot == 0) {
+      head++;
+    } else {
+      final int index = head + lot;
+      moveRecords(index + 1, index, count - index - 1);
+      count--;
+    }
+    if (head == count) {
+      clear();
+    }
+  }
+
+  @Override
+  void clear() {
+    super.clear();
+    head = 0;
+  }
+}
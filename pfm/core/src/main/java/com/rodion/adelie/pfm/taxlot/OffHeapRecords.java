@@ -0,0 +1,60 @@
+package com.rodion.adelie.pfm.taxlot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed width records in a direct buffer, so that large record sets live outside the heap and are
+ * read and written without allocating. The buffer doubles when full.
+ */
+abstract class OffHeapRecords {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int recordSize;
+  protected ByteBuffer buffer;
+  protected int count;
+
+  OffHeapRecords(final int recordSize) {
+    this.recordSize = recordSize;
+    this.buffer = allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Reserve the record after the last one, growing the buffer if needed.
+   *
+   * @return the index of the reserved record
+   */
+  protected int appendRecord() {
+    if (offset(count + 1) > buffer.capacity()) {
+      final ByteBuffer grown = allocate(buffer.capacity() / recordSize * 2);
+      grown.put(0, buffer, 0, offset(count));
+      buffer = grown;
+    }
+    return count++;
+  }
+
+  /**
+   * Move records down, over the records before them.
+   *
+   * @param from the index of the first record to move
+   * @param to the index to move it to
+   * @param records the number of records to move
+   */
+  protected void moveRecords(final int from, final int to, final int records) {
+    buffer.put(offset(to), buffer.duplicate(), offset(from), records * recordSize);
+  }
+
+  protected int offset(final int index) {
+    return index * recordSize;
+  }
+
+  /** Remove all records, the buffer is kept for reuse. */
+  void clear() {
+    count = 0;
+  }
+
+  private ByteBuffer allocate(final int records) {
+    return ByteBuffer.allocateDirect(records * recordSize).order(ByteOrder.nativeOrder());
+  }
+}
@@ -0,0 +1,11 @@
+package com.rodion.adelie.pfm.taxlot;
+
+/**
+ * An open tax lot.
+ *
+ * @param tradeId the id of the trade that opened the lot
+ * @param openMillis the date the lot was opened
+ * @param quantity the open quantity, negative for a short lot
+ * @param costPerUnit the cost of each unit, the sale price for a short lot
+ */
+public record TaxLot(int tradeId, long openMillis, long quantity, double costPerUnit) {}
@@ -0,0 +1,244 @@
+package com.rodion.adelie.pfm.taxlot;
+
+import com.rodion.adelie.pfm.blotter.Blotter;
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The open lots and lot disposals of a ticker. Trades must be applied in the blotter order of the
+ * ticker, by date then id, matching allocates nothing as lots and disposals are off-heap records.
+ */
+public class TaxLotBook {
+
+  /** The last trade id of a book no trade was applied to. */
+  public static final int NO_TRADE = Blotter.NOT_FOUND;
+
+  private final String ticker;
+  private final OffHeapLotStore openLots = new OffHeapLotStore();
+  private final OffHeapDisposalLog disposals = new OffHeapDisposalLog();
+  private long lastTradeMillis;
+  private int lastTradeId = NO_TRADE;
+  // the leading disposals unchanged since the last checkpoint, and the disposals it holds
+  private int checkpointedDisposals;
+  private int storedDisposals;
+
+  /**
+   * Instantiates an empty tax lot book.
+   *
+   * @param ticker the ticker
+   */
+  public TaxLotBook(final String ticker) {
+    this.ticker = ticker;
+  }
+
+  public String getTicker() {
+    return ticker;
+  }
+
+  public long getLastTradeMillis() {
+    return lastTradeMillis;
+  }
+
+  public int getLastTradeId() {
+    return lastTradeId;
+  }
+
+  /**
+   * Whether a trade sorts after the last trade applied, so that it can be applied without replaying
+   * the trades of the ticker.
+   *
+   * @param id the trade id
+   * @param trade the trade entry
+   * @return true if the trade is after the last trade applied
+   */
+  public boolean isAfterLastTrade(final int id, final TradeEntry trade) {
+    final long millis = trade.date().getTime();
+    return lastTradeId == NO_TRADE
+        || millis > lastTradeMillis
+        || (millis == lastTradeMillis && id > lastTradeId);
+  }
+
+  /**
+   * Apply a trade, closing open lots on the other side before opening a lot with the remainder.
+   *
+   * @param id the trade id
+   * @param trade the trade entry
+   * @param method the lot matching method
+   */
+  public void apply(final int id, final TradeEntry trade, final LotMatchingMethod method) {
+    final long millis = trade.date().getTime();
+    lastTradeMillis = millis;
+    lastTradeId = id;
+    long remaining = trade.side() == TradeEntry.Side.buy ? trade.qty() : -(long) trade.qty();
+    if (remaining == 0) {
+      return;
+    }
+    final double price = trade.price();
+    if (method == LotMatchingMethod.AVERAGE_COST && isClosing(remaining)) {
+      averageCosts();
+    }
+    while (remaining != 0 && isClosing(remaining)) {
+      final int lot = selectLot(method);
+      final long lotQuantity = openLots.quantity(lot);
+      final long closed =
+          Math.min(Math.abs(lotQuantity), Math.abs(remaining)) * Long.signum(lotQuantity);
+      final double cost = openLots.cost(lot);
+      disposals.add(
+          openLots.tradeId(lot),
+          id,
+          openLots.openMillis(lot),
+          millis,
+          closed,
+          cost * closed,
+          price * closed);
+      remaining += closed;
+      if (lotQuantity == closed) {
+        openLots.remove(lot);
+      } else {
+        openLots.setQuantity(lot, lotQuantity - closed);
+      }
+    }
+    if (remaining != 0) {
+      openLots.add(id, millis, remaining, price);
+    }
+  }
+
+  /** Remove all lots and disposals, before replaying the trades of the ticker. */
+  public void clear() {
+    openLots.clear();
+    disposals.clear();
+    lastTradeMillis = 0;
+    lastTradeId = NO_TRADE;
+    checkpointedDisposals = 0;
+  }
+
+  /**
+   * Gets the number of lot disposals.
+   *
+   * @return the disposal count
+   */
+  public int getDisposalCount() {
+    return disposals.size();
+  }
+
+  /**
+   * Gets the number of leading lot disposals unchanged since the book was last checkpointed, only
+   * the disposals after them need to be stored.
+   *
+   * @return the checkpointed disposal count
+   */
+  public int getCheckpointedDisposalCount() {
+    return checkpointedDisposals;
+  }
+
+  /**
+   * Gets the number of lot disposals held by the checkpoint of the book.
+   *
+   * @return the stored disposal count
+   */
+  public int getStoredDisposalCount() {
+    return storedDisposals;
+  }
+
+  /** Record that the book, with all its disposals, is stored. */
+  public void markCheckpointed() {
+    checkpointedDisposals = disposals.size();
+    storedDisposals = disposals.size();
+  }
+
+  /**
+   * Get the open lots in opening order.
+   *
+   * @return the open lots
+   */
+  public List<TaxLot> getOpenLots() {
+    final List<TaxLot> lots = new ArrayList<>(openLots.size());
+    for (int lot = 0; lot < openLots.size(); lot++) {
+      lots.add(
+          new TaxLot(
+              openLots.tradeId(lot),
+              openLots.openMillis(lot),
+              openLots.quantity(lot),
+              openLots.cost(lot)));
+    }
+    return lots;
+  }
+
+  /**
+   * Get the lot disposals in closing order.
+   *
+   * @return the lot disposals
+   */
+  public List<LotDisposal> getDisposals() {
+    final List<LotDisposal> result = new ArrayList<>(disposals.size());
+    for (int i = 0; i < disposals.size(); i++) {
+      result.add(disposals.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Get the gain realized by all lot disposals.
+   *
+   * @return the realized gain
+   */
+  public double getRealizedGain() {
+    double gain = 0;
+    for (int i = 0; i < disposals.size(); i++) {
+      gain += disposals.realizedGain(i);
+    }
+    return gain;
+  }
+
+  OffHeapLotStore openLots() {
+    return openLots;
+  }
+
+  OffHeapDisposalLog disposals() {
+    return disposals;
+  }
+
+  void setLastTrade(final long millis, final int id) {
+    this.lastTradeMillis = millis;
+    this.lastTradeId = id;
+  }
+
+  private boolean isClosing(final long quantity) {
+    return openLots.size() > 0 && Long.signum(openLots.quantity(0)) != Long.signum(quantity);
+  }
+
+  private int selectLot(final LotMatchingMethod method) {
+    return switch (method) {
+      case FIFO, AVERAGE_COST -> 0;
+      case LIFO -> openLots.size() - 1;
+      case HIGHEST_COST -> smallestGainLot();
+    };
+  }
+
+  private int smallestGainLot() {
+    // the highest cost of a long lot, the lowest sale price of a short lot
+    final boolean isLong = openLots.quantity(0) > 0;
+    int selected = 0;
+    for (int lot = 1; lot < openLots.size(); lot++) {
+      final double cost = openLots.cost(lot);
+      if (isLong ? cost > openLots.cost(selected) : cost < openLots.cost(selected)) {
+        selected = lot;
+      }
+    }
+    return selected;
+  }
+
+  private void averageCosts() {
+    long quantity = 0;
+    double cost = 0;
+    for (int lot = 0; lot < openLots.size(); lot++) {
+      quantity += openLots.quantity(lot);
+      cost += openLots.quantity(lot) * openLots.cost(lot);
+    }
+    final double average = cost / quantity;
+    for (int lot = 0; lot < openLots.size(); lot++) {
+      openLots.setCost(lot, average);
+    }
+  }
+}
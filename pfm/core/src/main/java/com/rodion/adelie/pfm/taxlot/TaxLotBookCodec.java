@@ -0,0 +1,116 @@
+package com.rodion.adelie.pfm.taxlot;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of a {@link TaxLotBook}, the ticker is not encoded as books are stored under
+ * their ticker. The open lots are encoded with the book, the lot disposals are encoded one by one,
+ * so that a checkpoint only stores the disposals appended since the last one.
+ *
+ * <pre>
+ * book:     version (1) | last trade millis (8) | last trade id (4)
+ *             | lot count (4) | lots: trade id (4) | open millis (8) | quantity (8) | cost (8)
+ * disposal: open trade id (4) | close trade id (4) | open millis (8) | close millis (8)
+ *             | quantity (8) | cost basis (8) | proceeds (8)
+ * </pre>
+ */
+public final class TaxLotBookCodec {
+
+  private static final byte VERSION = 2;
+  private static final int HEADER_SIZE = 1 + Long.BYTES + Integer.BYTES;
+  private static final int LOT_SIZE = Integer.BYTES + Long.BYTES * 3;
+  private static final int DISPOSAL_SIZE = Integer.BYTES * 2 + Long.BYTES * 5;
+
+  private TaxLotBookCodec() {}
+
+  /**
+   * Encode a tax lot book without its lot disposals.
+   *
+   * @param book the tax lot book
+   * @return the encoded book
+   */
+  public static byte[] encode(final TaxLotBook book) {
+    final OffHeapLotStore lots = book.openLots();
+    final ByteBuffer buffer =
+        ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + lots.size() * LOT_SIZE);
+    buffer.put(VERSION).putLong(book.getLastTradeMillis()).putInt(book.getLastTradeId());
+    buffer.putInt(lots.size());
+    for (int lot = 0; lot < lots.size(); lot++) {
+      buffer
+          .putInt(lots.tradeId(lot))
+          .putLong(lots.openMillis(lot))
+          .putLong(lots.quantity(lot))
+          .putDouble(lots.cost(lot));
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Encode a lot disposal of a tax lot book.
+   *
+   * @param book the tax lot book
+   * @param index the index of the disposal in closing order
+   * @return the encoded disposal
+   */
+  public static byte[] encodeDisposal(final TaxLotBook book, final int index) {
+    final LotDisposal disposal = book.disposals().get(index);
+    return ByteBuffer.allocate(DISPOSAL_SIZE)
+        .putInt(disposal.openTradeId())
+        .putInt(disposal.closeTradeId())
+        .putLong(disposal.openMillis())
+        .putLong(disposal.closeMillis())
+        .putLong(disposal.quantity())
+        .putDouble(disposal.costBasis())
+        .putDouble(disposal.proceeds())
+        .array();
+  }
+
+  /**
+   * Decode a tax lot book, without its lot disposals.
+   *
+   * @param ticker the ticker the book is stored under
+   * @param encoded the encoded book
+   * @return the tax lot book
+   * @throws IllegalArgumentException if the bytes are not an encoded tax lot book
+   */
+  public static TaxLotBook decode(final String ticker, final byte[] encoded) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    try {
+      final byte version = buffer.get();
+      checkArgument(version == VERSION, "Unsupported tax lot book encoding version %s", version);
+      final TaxLotBook book = new TaxLotBook(ticker);
+      book.setLastTrade(buffer.getLong(), buffer.getInt());
+      final OffHeapLotStore lots = book.openLots();
+      for (int lot = buffer.getInt(); lot > 0; lot--) {
+        lots.add(buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getDouble());
+      }
+      return book;
+    } catch (final BufferUnderflowException e) {
+      throw new IllegalArgumentException("Malformed tax lot book encoding", e);
+    }
+  }
+
+  /**
+   * Decode a lot disposal and append it to the disposals of a tax lot book.
+   *
+   * @param book the tax lot book
+   * @param encoded the encoded disposal
+   * @throws IllegalArgumentException if the bytes are not an encoded lot disposal
+   */
+  public static void decodeDisposal(final TaxLotBook book, final byte[] encoded) {
+    checkArgument(encoded.length == DISPOSAL_SIZE, "Malformed lot disposal encoding");
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    book.disposals()
+        .add(
+            buffer.getInt(),
+            buffer.getInt(),
+            buffer.getLong(),
+            buffer.getLong(),
+            buffer.getLong(),
+            buffer.getDouble(),
+            buffer.getDouble());
+  }
+}
@@ -0,0 +1,146 @@
+package com.rodion.adelie.pfm.taxlot;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.rodion.adelie.pfm.blotter.BlotterStorage;
+import com.rodion.adelie.pfm.blotter.CheckpointedTickerEngine;
+import com.rodion.adelie.pfm.trade.TradeEntry;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Matches closing trades against open tax lots as blotter writes are committed, see {@link
+ * CheckpointedTickerEngine} for how writes are applied and checkpointed.
+ *
+ * <p>The books are checkpointed to the tax lot storage. Besides an unclean shutdown, the books are
+ * rebuilt from the blotter when the matching method changed.
+ */
+public class TaxLotEngine extends CheckpointedTickerEngine {
+
+  private final TaxLotStorage taxLotStorage;
+  private final LotMatchingMethod method;
+
+  private TaxLotBook[] books = new TaxLotBook[0];
+
+  /**
+   * Instantiates a new tax lot engine.
+   *
+   * @param blotterStorage the blotter storage, read to replay the trades of a ticker
+   * @param taxLotStorage the tax lot storage holding the checkpoint
+   * @param method the lot matching method
+   */
+  public TaxLotEngine(
+      final BlotterStorage blotterStorage,
+      final TaxLotStorage taxLotStorage,
+      final LotMatchingMethod method) {
+    super("Tax lot engine", checkNotNull(blotterStorage));
+    this.taxLotStorage = checkNotNull(taxLotStorage);
+    this.method = checkNotNull(method);
+  }
+
+  public LotMatchingMethod getMethod() {
+    return method;
+  }
+
+  /**
+   * Get the open lots of a ticker.
+   *
+   * @param ticker the ticker
+   * @return the open lots in opening order
+   */
+  public List<TaxLot> getOpenLots(final String ticker) {
+    return read(ticker, number -> books[number].getOpenLots(), List.of());
+  }
+
+  /**
+   * Get the lot disposals of a ticker, the lot level detail of its realized gains.
+   *
+   * @param ticker the ticker
+   * @return the lot disposals in closing order
+   */
+  public List<LotDisposal> getDisposals(final String ticker) {
+    return read(ticker, number -> books[number].getDisposals(), List.of());
+  }
+
+  /**
+   * Get the gain realized by the lot disposals of a ticker.
+   *
+   * @param ticker the ticker
+   * @return the realized gain
+   */
+  public double getRealizedGain(final String ticker) {
+    return read(ticker, number -> books[number].getRealizedGain(), 0.0);
+  }
+
+  @Override
+  protected boolean loadCheckpoint() {
+    final Optional<LotMatchingMethod> checkpointMethod = taxLotStorage.getCleanCheckpointMethod();
+    if (checkpointMethod.filter(method::equals).isEmpty()) {
+      return false;
+    }
+    taxLotStorage.getTaxLotBooks().forEach(this::load);
+    return true;
+  }
+
+  @Override
+  protected void clearCheckpoint() {
+    taxLotStorage.clear();
+  }
+
+  @Override
+  protected void markCheckpointUnclean() {
+    final TaxLotStorage.Updater updater = taxLotStorage.updater();
+    updater.markCheckpointDirty();
+    updater.commit();
+  }
+
+  @Override
+  protected void writeCheckpoint(final BitSet numbers) {
+    final TaxLotStorage.Updater updater = taxLotStorage.updater();
+    for (int i = numbers.nextSetBit(0); i >= 0; i = numbers.nextSetBit(i + 1)) {
+      if (books[i].getLastTradeId() == TaxLotBook.NO_TRADE) {
+        updater.removeTaxLotBook(books[i]);
+      } else {
+        updater.putTaxLotBook(books[i]);
+      }
+    }
+    updater.markCheckpointClean(method);
+    updater.commit();
+    for (int i = numbers.nextSetBit(0); i >= 0; i = numbers.nextSetBit(i + 1)) {
+      books[i].markCheckpointed();
+    }
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    books = Arrays.copyOf(books, capacity);
+  }
+
+  @Override
+  protected void initTicker(final int number, final String ticker) {
+    books[number] = new TaxLotBook(ticker);
+  }
+
+  @Override
+  protected void reset(final int number) {
+    books[number].clear();
+  }
+
+  @Override
+  protected boolean isAfterLastTrade(final int number, final int id, final TradeEntry trade) {
+    return books[number].isAfterLastTrade(id, trade);
+  }
+
+  @Override
+  protected void apply(final int number, final int id, final TradeEntry trade) {
+    books[number].apply(id, trade, method);
+  }
+
+  private void load(final TaxLotBook book) {
+    // interning first, it may grow the books
+    final int number = tickerNumber(book.getTicker());
+    books[number] = book;
+  }
+}
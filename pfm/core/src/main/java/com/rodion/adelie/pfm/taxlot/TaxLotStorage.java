@@ -0,0 +1,62 @@
+package com.rodion.adelie.pfm.taxlot;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of the tax lot checkpoint. The checkpoint is only consistent with the blotter when it is
+ * marked clean, which the tax lot engine does on shutdown with the matching method it used.
+ */
+public interface TaxLotStorage {
+
+  /**
+   * Get the matching method of a clean checkpoint.
+   *
+   * @return the lot matching method, empty if the checkpoint is not clean
+   */
+  Optional<LotMatchingMethod> getCleanCheckpointMethod();
+
+  /**
+   * Get the stored tax lot books, with their lot disposals.
+   *
+   * @return the tax lot books, ordered by ticker
+   */
+  List<TaxLotBook> getTaxLotBooks();
+
+  Updater updater();
+
+  void clear();
+
+  interface Updater {
+
+    /**
+     * Store a tax lot book, replacing the book stored for its ticker. Only the lot disposals after
+     * the {@link TaxLotBook#getCheckpointedDisposalCount() checkpointed} ones are written, the book
+     * must be {@link TaxLotBook#markCheckpointed() marked checkpointed} once committed.
+     *
+     * @param book the tax lot book
+     */
+    void putTaxLotBook(TaxLotBook book);
+
+    /**
+     * Remove a tax lot book and its stored lot disposals.
+     *
+     * @param book the tax lot book
+     */
+    void removeTaxLotBook(TaxLotBook book);
+
+    /**
+     * Mark the stored books consistent with the blotter.
+     *
+     * @param method the lot matching method the books were built with
+     */
+    void markCheckpointClean(LotMatchingMethod method);
+
+    /** Mark the stored books as possibly behind the blotter. */
+    void markCheckpointDirty();
+
+    void commit();
+
+    void rollback();
+  }
+}
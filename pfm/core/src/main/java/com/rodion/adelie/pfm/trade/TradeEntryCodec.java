@@ -0,0 +1,69 @@
+package com.rodion.adelie.pfm.trade;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Compact binary encoding of a {@link TradeEntry}, a version byte followed by the fixed width
+ * fields and the length prefixed ticker.
+ *
+ * <pre>
+ * version (1) | date millis (8) | qty (4) | price (4) | side (1) | ticker length (1) | ticker
+ * </pre>
+ */
+public final class TradeEntryCodec {
+
+  private static final byte VERSION = 1;
+  private static final int FIXED_SIZE = 1 + Long.BYTES + Integer.BYTES + Float.BYTES + 1 + 1;
+  private static final TradeEntry.Side[] SIDES = TradeEntry.Side.values();
+
+  private TradeEntryCodec() {}
+
+  /**
+   * Encode a trade entry.
+   *
+   * @param trade the trade entry
+   * @return the encoded trade entry
+   */
+  public static byte[] encode(final TradeEntry trade) {
+    final byte[] ticker = trade.ticker().getBytes(StandardCharsets.UTF_8);
+    checkArgument(ticker.length <= 0xff, "Ticker %s is too long to encode", trade.ticker());
+    return ByteBuffer.allocate(FIXED_SIZE + ticker.length)
+        .put(VERSION)
+        .putLong(trade.date().getTime())
+        .putInt(trade.qty())
+        .putFloat(trade.price())
+        .put((byte) trade.side().ordinal())
+        .put((byte) ticker.length)
+        .put(ticker)
+        .array();
+  }
+
+  /**
+   * Decode a trade entry.
+   *
+   * @param encoded the encoded trade entry
+   * @return the trade entry
+   * @throws IllegalArgumentException if the bytes are not an encoded trade entry
+   */
+  public static TradeEntry decode(final byte[] encoded) {
+    final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    try {
+      final byte version = buffer.get();
+      checkArgument(version == VERSION, "Unsupported trade entry encoding version %s", version);
+      final Date date = new Date(buffer.getLong());
+      final int qty = buffer.getInt();
+      final float price = buffer.getFloat();
+      final TradeEntry.Side side = SIDES[buffer.get()];
+      final byte[] ticker = new byte[Byte.toUnsignedInt(buffer.get())];
+      buffer.get(ticker);
+      return new TradeEntry(date, new String(ticker, StandardCharsets.UTF_8), qty, price, side);
+    } catch (final BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Malformed trade entry encoding", e);
+    }
+  }
+}
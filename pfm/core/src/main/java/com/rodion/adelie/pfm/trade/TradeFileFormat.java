@@ -0,0 +1,30 @@
+package com.rodion.adelie.pfm.trade;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+/** The formats of trade files accepted by the {@link TradeImporter}. */
+public enum TradeFileFormat {
+  /** Comma separated values with a header row naming the date, ticker, qty, price and side. */
+  CSV,
+  /** One JSON trade entry per line. */
+  JSON_LINES;
+
+  /**
+   * Guess the format of a trade file from its extension.
+   *
+   * @param path the trade file
+   * @return the format, empty if the extension is not recognised
+   */
+  public static Optional<TradeFileFormat> fromPath(final Path path) {
+    final String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".csv")) {
+      return Optional.of(CSV);
+    }
+    if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+      return Optional.of(JSON_LINES);
+    }
+    return Optional.empty();
+  }
+}
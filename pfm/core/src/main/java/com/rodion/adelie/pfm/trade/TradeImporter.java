@@ -0,0 +1,204 @@
+package com.rodion.adelie.pfm.trade;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.rodion.adelie.pfm.blotter.Blotter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Imports broker trade files into the blotter. The file is memory mapped in chunks cut at line
+ * boundaries, the chunks are parsed in parallel on a fork join pool, and the trades are written in
+ * date order in batches, each batch taking a contiguous range of trade ids and one synced write.
+ */
+public class TradeImporter {
+  private static final Logger logger = LoggerFactory.getLogger(TradeImporter.class);
+
+  /** The default number of trades written in one batch. */
+  public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+  /** The default size of the chunks a file is parsed in. */
+  public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private static final byte[] UTF8_BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+
+  private final Blotter blotter;
+  private final ForkJoinPool pool;
+  private final int batchSize;
+  private final int chunkSize;
+
+  /**
+   * Instantiates a new trade importer.
+   *
+   * @param blotter the blotter the trades are added to
+   * @param pool the pool the chunks are parsed on
+   * @param batchSize the number of trades written in one batch
+   */
+  public TradeImporter(final Blotter blotter, final ForkJoinPool pool, final int batchSize) {
+    this(blotter, pool, batchSize, DEFAULT_CHUNK_SIZE);
+  }
+
+  TradeImporter(
+      final Blotter blotter, final ForkJoinPool pool, final int batchSize, final int chunkSize) {
+    checkNotNull(blotter);
+    checkNotNull(pool);
+    checkArgument(batchSize > 0, "Batch size must be positive");
+    checkArgument(chunkSize > 0, "Chunk size must be positive");
+    this.blotter = blotter;
+    this.pool = pool;
+    this.batchSize = batchSize;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Import a trade file. Nothing is written unless every trade of the file parses and can be
+   * stored.
+   *
+   * @param file the trade file
+   * @param format the format of the file
+   * @return the number of trades imported
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if a line is not a valid trade
+   */
+  public int importFile(final Path file, final TradeFileFormat format) throws IOException {
+    final List<TradeEntry> trades = parse(file, format);
+    // reject the file before the first batch is written, rather than part way through
+    trades.forEach(blotter::validateTrade);
+    // stable, so trades of the same date keep their file order
+    trades.sort(Comparator.comparing(TradeEntry::date));
+    for (int start = 0; start < trades.size(); start += batchSize) {
+      blotter.addTrades(trades.subList(start, Math.min(start + batchSize, trades.size())));
+    }
+    logger.info("Imported {} trades from {}", trades.size(), file);
+    return trades.size();
+  }
+
+  private List<TradeEntry> parse(final Path file, final TradeFileFormat format) throws IOException {
+    final List<ForkJoinTask<List<TradeEntry>>> tasks = new ArrayList<>();
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      long position = 0;
+      TradeLineParser parser = null;
+      while (position < size) {
+        final ByteBuffer chunk = mapChunk(channel, position, size);
+        int skip = 0;
+        if (parser == null) {
+          skip = startsWith(chunk, UTF8_BOM) ? UTF8_BOM.length : 0;
+          final int firstLineEnd = lineEnd(chunk, skip);
+          parser = TradeLineParser.create(format, line(chunk, skip, firstLineEnd));
+          if (TradeLineParser.hasHeader(format)) {
+            skip = Math.min(firstLineEnd + 1, chunk.limit());
+          }
+        }
+        final TradeLineParser chunkParser = parser;
+        final long offset = position;
+        final int chunkSkip = skip;
+        tasks.add(pool.submit(() -> parseChunk(chunk, offset, chunkSkip, chunkParser)));
+        position += chunk.limit();
+      }
+    }
+    final List<TradeEntry> trades = new ArrayList<>();
+    for (final ForkJoinTask<List<TradeEntry>> task : tasks) {
+      try {
+        trades.addAll(task.join());
+      } catch (final IllegalArgumentException e) {
+        // join rethrows a copy of the parse failure wrapping the original
+        throw e.getCause() instanceof IllegalArgumentException cause ? cause : e;
+      }
+    }
+    return trades;
+  }
+
+  // maps the next chunk, cut after its last line terminator so no line spans two chunks
+  private ByteBuffer mapChunk(final FileChannel channel, final long position, final long size)
+      throws IOException {
+    long length = chunkSize;
+    while (true) {
+      final long mapped = Math.min(length, size - position);
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+      if (position + mapped == size) {
+        return buffer;
+      }
+      for (int i = buffer.limit() - 1; i >= 0; i--) {
+        if (buffer.get(i) == '\n') {
+          return buffer.slice(0, i + 1);
+        }
+      }
+      // a line longer than the chunk
+      checkArgument(length < Integer.MAX_VALUE, "Line at byte %s is too long", position);
+      length = Math.min(length * 2, Integer.MAX_VALUE);
+    }
+  }
+
+  private static List<TradeEntry> parseChunk(
+      final ByteBuffer chunk, final long offset, final int skip, final TradeLineParser parser) {
+    final List<TradeEntry> trades = new ArrayList<>();
+    int position = skip;
+    while (position < chunk.limit()) {
+      final int end = lineEnd(chunk, position);
+      final String line = line(chunk, position, end);
+      if (!line.isBlank()) {
+        try {
+          trades.add(validate(parser.parse(line)));
+        } catch (final RuntimeException e) {
+          throw new IllegalArgumentException(
+              String.format("Invalid trade at byte %d: %s", offset + position, e.getMessage()), e);
+        }
+      }
+      position = end + 1;
+    }
+    return trades;
+  }
+
+  private static TradeEntry validate(final TradeEntry trade) {
+    checkArgument(trade.date() != null, "Missing trade date");
+    checkArgument(trade.ticker() != null && !trade.ticker().isBlank(), "Missing ticker");
+    checkArgument(trade.side() != null, "Missing trade side");
+    checkArgument(trade.qty() >= 0, "Negative quantity %s", trade.qty());
+    checkArgument(
+        Float.isFinite(trade.price()) && trade.price() >= 0, "Invalid price %s", trade.price());
+    return trade;
+  }
+
+  private static int lineEnd(final ByteBuffer chunk, final int from) {
+    int end = from;
+    while (end < chunk.limit() && chunk.get(end) != '\n') {
+      end++;
+    }
+    return end;
+  }
+
+  private static String line(final ByteBuffer chunk, final int from, final int end) {
+    int length = end - from;
+    if (length > 0 && chunk.get(from + length - 1) == '\r') {
+      length--;
+    }
+    final byte[] bytes = new byte[length];
+    chunk.get(from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static boolean startsWith(final ByteBuffer chunk, final byte[] prefix) {
+    if (chunk.limit() < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (chunk.get(i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
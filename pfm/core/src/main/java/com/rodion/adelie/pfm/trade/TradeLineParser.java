@@ -0,0 +1,127 @@
+package com.rodion.adelie.pfm.trade;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rodion.adelie.pfm.util.CsvFields;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/** Parses one line of a trade file into a trade entry, safe to share between parsing threads. */
+interface TradeLineParser {
+
+  /**
+   * Parse a line.
+   *
+   * @param line the line, without its line terminator
+   * @return the trade entry
+   * @throws IllegalArgumentException if the line is not a valid trade
+   */
+  TradeEntry parse(String line);
+
+  /**
+   * Create the parser of a trade file.
+   *
+   * @param format the file format
+   * @param firstLine the first line of the file, the header row of a CSV file
+   * @return the line parser
+   */
+  static TradeLineParser create(final TradeFileFormat format, final String firstLine) {
+    return switch (format) {
+      case CSV -> new Csv(firstLine);
+      case JSON_LINES -> new JsonLines();
+    };
+  }
+
+  /** Whether the first line of a file of this format is a header rather than a trade. */
+  static boolean hasHeader(final TradeFileFormat format) {
+    return format == TradeFileFormat.CSV;
+  }
+
+  /** CSV rows, columns are located by the header so brokers may order them freely. */
+  final class Csv implements TradeLineParser {
+    private static final Map<String, String> COLUMN_ALIASES =
+        Map.of(
+            "date", "date",
+            "tradedate", "date",
+            "ticker", "ticker",
+            "symbol", "ticker",
+            "qty", "qty",
+            "quantity", "qty",
+            "price", "price",
+            "side", "side");
+
+    private final int dateColumn;
+    private final int tickerColumn;
+    private final int qtyColumn;
+    private final int priceColumn;
+    private final int sideColumn;
+    private final int columnCount;
+
+    Csv(final String header) {
+      final List<String> names = CsvFields.split(header);
+      final Map<String, Integer> columns = new HashMap<>();
+      for (int i = 0; i < names.size(); i++) {
+        final String name = COLUMN_ALIASES.get(CsvFields.headerName(names.get(i)));
+        if (name != null) {
+          columns.putIfAbsent(name, i);
+        }
+      }
+      dateColumn = column(columns, "date");
+      tickerColumn = column(columns, "ticker");
+      qtyColumn = column(columns, "qty");
+      priceColumn = column(columns, "price");
+      sideColumn = column(columns, "side");
+      columnCount = names.size();
+    }
+
+    @Override
+    public TradeEntry parse(final String line) {
+      final List<String> fields = CsvFields.split(line);
+      checkArgument(
+          fields.size() == columnCount,
+          "Expected %s columns but found %s",
+          columnCount,
+          fields.size());
+      return new TradeEntry(
+          new Date(CsvFields.parseTimestamp(fields.get(dateColumn))),
+          fields.get(tickerColumn).trim(),
+          Integer.parseInt(fields.get(qtyColumn).trim()),
+          Float.parseFloat(fields.get(priceColumn).trim()),
+          parseSide(fields.get(sideColumn)));
+    }
+
+    private static int column(final Map<String, Integer> columns, final String name) {
+      final Integer column = columns.get(name);
+      checkArgument(column != null, "CSV header has no %s column", name);
+      return column;
+    }
+
+    private static TradeEntry.Side parseSide(final String field) {
+      return switch (field.trim().toLowerCase(Locale.ROOT)) {
+        case "buy", "b", "bot" -> TradeEntry.Side.buy;
+        case "sell", "s", "sld" -> TradeEntry.Side.sell;
+        default -> throw new IllegalArgumentException("Invalid trade side " + field.trim());
+      };
+    }
+  }
+
+  /** JSON lines, each line deserialized through the trade entry's JSON creator. */
+  final class JsonLines implements TradeLineParser {
+    private static final ObjectReader READER = new ObjectMapper().readerFor(TradeEntry.class);
+
+    @Override
+    public TradeEntry parse(final String line) {
+      try {
+        return READER.readValue(line);
+      } catch (final JsonProcessingException e) {
+        throw new IllegalArgumentException(e.getOriginalMessage(), e);
+      }
+    }
+  }
+}
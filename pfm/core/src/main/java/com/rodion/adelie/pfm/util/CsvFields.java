@@ -0,0 +1,87 @@
+package com.rodion.adelie.pfm.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Field level parsing shared by the CSV readers of broker and price files. */
+public final class CsvFields {
+
+  private CsvFields() {}
+
+  /**
+   * Split a line into fields. Quoted fields may hold commas and doubled quotes, as in RFC 4180.
+   *
+   * @param line the line, without its line terminator
+   * @return the fields
+   */
+  public static List<String> split(final String line) {
+    final List<String> fields = new ArrayList<>();
+    final StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    checkArgument(!quoted, "Unterminated quoted field");
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * Normalise a header name, ignoring case, whitespace and underscores.
+   *
+   * @param name the header name
+   * @return the normalised name
+   */
+  public static String headerName(final String name) {
+    return name.replaceAll("[\\s_]", "").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Parse a timestamp in the forms the JSON date deserializer accepts: an ISO date, taken as
+   * midnight UTC, an ISO date time or epoch millis.
+   *
+   * @param field the field
+   * @return the epoch millis
+   */
+  public static long parseTimestamp(final String field) {
+    final String value = field.trim();
+    try {
+      if (value.length() == 10) {
+        return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+      }
+      if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+        return Long.parseLong(value);
+      }
+      return value.endsWith("Z")
+          ? Instant.parse(value).toEpochMilli()
+          : OffsetDateTime.parse(value).toInstant().toEpochMilli();
+    } catch (final DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid timestamp " + value, e);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.rodion.adelie.pfm.valuation;
+
+import com.rodion.adelie.pfm.marketdata.PriceTick;
+import com.rodion.adelie.pfm.position.Position;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The positions of the portfolio and the prices they are valued at. Open positions without a price
+ * are left out of the market value and unrealized profit and loss.
+ *
+ * @param mode the mode the valuation was read in
+ * @param positions the positions, ordered by ticker
+ * @param prices the price of each open position with a price, by ticker
+ */
+public record PortfolioValuation(
+    ValuationMode mode, List<Position> positions, Map<String, PriceTick> prices) {
+
+  /**
+   * Gets the market value of the priced positions.
+   *
+   * @return the market value
+   */
+  public double marketValue() {
+    return positions.stream()
+        .filter(position -> prices.containsKey(position.ticker()))
+        .mapToDouble(position -> position.marketValue(prices.get(position.ticker()).price()))
+        .sum();
+  }
+
+  /**
+   * Gets the unrealized profit and loss of the priced positions.
+   *
+   * @return the unrealized profit and loss
+   */
+  public double unrealizedPnl() {
+    return positions.stream()
+        .filter(position -> prices.containsKey(position.ticker()))
+        .mapToDouble(position -> position.unrealizedPnl(prices.get(position.ticker()).price()))
+        .sum();
+  }
+
+  /**
+   * Gets the realized profit and loss of every position.
+   *
+   * @return the realized profit and loss
+   */
+  public double realizedPnl() {
+    return positions.stream().mapToDouble(Position::realizedPnl).sum();
+  }
+
+  /**
+   * Gets the tickers of the open positions without a price.
+   *
+   * @return the unpriced tickers
+   */
+  public List<String> unpricedTickers() {
+    return positions.stream()
+        .filter(position -> position.quantity() != 0 && !prices.containsKey(position.ticker()))
+        .map(Position::ticker)
+        .toList();
+  }
+}
@@ -0,0 +1,84 @@
+package com.rodion.adelie.pfm.valuation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.rodion.adelie.pfm.marketdata.LatestQuoteCache;
+import com.rodion.adelie.pfm.marketdata.PriceTick;
+import com.rodion.adelie.pfm.marketdata.TimeSeriesStorage;
+import com.rodion.adelie.pfm.position.Position;
+import com.rodion.adelie.pfm.position.PositionEngine;
+import com.rodion.adelie.pfm.storage.keyvalue.StorageProvider;
+import com.rodion.adelie.pfm.storage.keyvalue.StorageSnapshot;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Values the portfolio, either from the live in-memory state or against a storage snapshot. A
+ * snapshot valuation replays the blotter, so it costs a scan of every trade, and is meant for
+ * reports that need numbers consistent with a single point in time.
+ */
+public class PortfolioValuer {
+
+  private final PositionEngine positionEngine;
+  private final LatestQuoteCache latestQuoteCache;
+  private final StorageProvider storageProvider;
+
+  /**
+   * Instantiates a new portfolio valuer.
+   *
+   * @param positionEngine the live positions
+   * @param latestQuoteCache the live prices
+   * @param storageProvider the storage snapshots are taken of
+   */
+  public PortfolioValuer(
+      final PositionEngine positionEngine,
+      final LatestQuoteCache latestQuoteCache,
+      final StorageProvider storageProvider) {
+    checkNotNull(positionEngine);
+    checkNotNull(latestQuoteCache);
+    checkNotNull(storageProvider);
+    this.positionEngine = positionEngine;
+    this.latestQuoteCache = latestQuoteCache;
+    this.storageProvider = storageProvider;
+  }
+
+  /**
+   * Value the portfolio.
+   *
+   * @param mode where positions and prices are read from
+   * @return the valuation
+   * @throws UnsupportedOperationException if a snapshot is requested of a storage without them
+   */
+  public PortfolioValuation value(final ValuationMode mode) {
+    return switch (mode) {
+      case LIVE -> valuation(mode, positionEngine.getPositions(), latestQuoteCache::getLatest);
+      case SNAPSHOT -> valueAtSnapshot();
+    };
+  }
+
+  private PortfolioValuation valueAtSnapshot() {
+    try (final StorageSnapshot snapshot = storageProvider.takeSnapshot()) {
+      final TimeSeriesStorage timeSeriesStorage = snapshot.createTimeSeriesStorage();
+      return valuation(
+          ValuationMode.SNAPSHOT,
+          PositionEngine.replay(snapshot.createBlotterStorage()),
+          timeSeriesStorage::getLatest);
+    }
+  }
+
+  private static PortfolioValuation valuation(
+      final ValuationMode mode,
+      final List<Position> positions,
+      final Function<String, Optional<PriceTick>> prices) {
+    final Map<String, PriceTick> priced = new HashMap<>();
+    for (final Position position : positions) {
+      if (position.quantity() != 0) {
+        prices.apply(position.ticker()).ifPresent(price -> priced.put(position.ticker(), price));
+      }
+    }
+    return new PortfolioValuation(mode, positions, priced);
+  }
+}
@@ -0,0 +1,15 @@
+package com.rodion.adelie.pfm.valuation;
+
+/** Where a valuation reads positions and prices from. */
+public enum ValuationMode {
+  /**
+   * The in-memory positions and latest prices. Cheap, but positions and prices are read at
+   * different moments, so a concurrent write can be half reflected in the totals.
+   */
+  LIVE,
+  /**
+   * Positions replayed from the blotter and prices read from the price history, all against one
+   * storage snapshot. Consistent however long it takes, without blocking writers.
+   */
+  SNAPSHOT
+}
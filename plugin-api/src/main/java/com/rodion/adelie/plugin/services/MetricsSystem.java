@@ -0,0 +1,39 @@
+package com.rodion.adelie.plugin.services;
+
+import com.rodion.adelie.plugin.Unstable;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * This service allows plugins to publish metrics. Gauges are evaluated when the metrics are
+ * scraped, so suppliers must be cheap and thread safe.
+ */
+@Unstable
+public interface MetricsSystem extends AdelieService {
+
+  /** A metrics system that discards every gauge, for storage opened without metrics. */
+  MetricsSystem NO_OP = (name, help, labels, valueSupplier) -> {};
+
+  /**
+   * Registers a gauge without labels, replacing any gauge registered under the same name.
+   *
+   * @param name the metric name, e.g. rocksdb_block_cache_hit
+   * @param help a description of the metric
+   * @param valueSupplier supplies the current value of the gauge
+   */
+  default void createGauge(
+      final String name, final String help, final DoubleSupplier valueSupplier) {
+    createGauge(name, help, Map.of(), valueSupplier);
+  }
+
+  /**
+   * Registers a labelled gauge, replacing any gauge registered under the same name and labels.
+   *
+   * @param name the metric name, e.g. rocksdb_estimate_num_keys
+   * @param help a description of the metric
+   * @param labels the label names and values distinguishing this gauge
+   * @param valueSupplier supplies the current value of the gauge
+   */
+  void createGauge(
+      String name, String help, Map<String, String> labels, DoubleSupplier valueSupplier);
+}
@@ -0,0 +1,57 @@
+package com.rodion.adelie.plugin.services.storage;
+
+import com.rodion.adelie.plugin.Unstable;
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import java.nio.ByteBuffer;
+
+/**
+ * A cursor over the entries of a key-value segment in key order. Unlike the stream methods, a
+ * cursor does not allocate per entry: the key and value are exposed as views into buffers that are
+ * reused as the cursor moves.
+ *
+ * <p>A new cursor is unpositioned, one of the seek methods must be called before reading. Cursors
+ * hold native resources and must be closed.
+ */
+@Unstable
+public interface KeyValueCursor extends AutoCloseable {
+
+  /** Position the cursor at the first entry of the segment. */
+  void seekToFirst();
+
+  /**
+   * Position the cursor at the first entry whose key is at or after the given key.
+   *
+   * @param key the key to seek to
+   */
+  void seek(byte[] key);
+
+  /**
+   * Whether the cursor is positioned at an entry.
+   *
+   * @return true if the key and value can be read, false once the cursor is exhausted
+   * @throws StorageException if iteration stopped because of a storage error
+   */
+  boolean isValid() throws StorageException;
+
+  /** Move the cursor to the next entry. */
+  void next();
+
+  /**
+   * Gets the key of the current entry, between position zero and the limit of the buffer. The
+   * buffer must not be modified and is only valid until the cursor moves.
+   *
+   * @return the key
+   */
+  ByteBuffer key();
+
+  /**
+   * Gets the value of the current entry, between position zero and the limit of the buffer. The
+   * buffer must not be modified and is only valid until the cursor moves.
+   *
+   * @return the value
+   */
+  ByteBuffer value();
+
+  @Override
+  void close();
+}
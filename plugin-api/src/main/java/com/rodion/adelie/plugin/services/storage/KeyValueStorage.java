@@ -2,12 +2,16 @@ package com.rodion.adelie.plugin.services.storage;
 
 import com.rodion.adelie.plugin.Unstable;
 import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage.NearestKeyValue;
 import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.tuweni.bytes.Bytes;
 
 /**
  * Responsible for storing values against keys.
@@ -48,7 +52,30 @@ public interface KeyValueStorage extends Closeable {
   Optional<byte[]> get(byte[] key) throws StorageException;
 
   /**
-   * Returns a stream of all keys and values.
+   * Retrieves the values associated with a batch of keys.
+   *
+   * @param keys whose associated values are being retrieved.
+   * @return a list of {@link Optional} values, in the same order as the supplied keys, each
+   *     containing the value associated with the key, otherwise empty.
+   * @throws StorageException problem encountered during the retrieval attempt.
+   */
+  default List<Optional<byte[]>> multiGet(final List<byte[]> keys) throws StorageException {
+    return keys.stream().map(this::get).toList();
+  }
+
+  /**
+   * Find the key and corresponding value "nearest to" the specified key. Nearest is defined as
+   * either matching the supplied key or the key lexicographically prior to it.
+   *
+   * @param key key for which we are searching for the nearest match.
+   * @return Optional of NearestKeyValue-wrapped matched key and corresponding value.
+   * @throws StorageException problem encountered during the retrieval attempt.
+   */
+  Optional<NearestKeyValue> getNearestTo(Bytes key) throws StorageException;
+
+  /**
+   * Returns a stream of all keys and values. The stream must be closed, even when it is not read to
+   * the end, see {@link SegmentedKeyValueStorage#stream(SegmentIdentifier)}.
    *
    * @return A stream of all keys and values in storage.
    * @throws StorageException problem encountered during the retrieval attempt.
@@ -77,6 +104,25 @@ public interface KeyValueStorage extends Closeable {
    */
   Stream<Pair<byte[], byte[]>> streamFromKey(final byte[] startKey, final byte[] endKey);
 
+  /**
+   * Returns a stream of the key-value pairs whose keys start with the specified prefix, in key
+   * order. If no key has the prefix, an empty stream is returned.
+   *
+   * @param prefix The prefix shared by the keys to stream.
+   * @return A stream of the key-value pairs with the specified prefix.
+   * @throws StorageException If an error occurs while accessing the storage.
+   */
+  Stream<Pair<byte[], byte[]>> streamByPrefix(final byte[] prefix);
+
+  /**
+   * Opens an unpositioned cursor over all keys and values, exposing each entry through reused
+   * buffers. The cursor must be closed.
+   *
+   * @return the cursor
+   * @throws StorageException problem encountered when opening the cursor.
+   */
+  KeyValueCursor cursor() throws StorageException;
+
   /**
    * Returns a stream of all keys.
    *
@@ -121,6 +167,43 @@ public interface KeyValueStorage extends Closeable {
    */
   KeyValueStorageTransaction startTransaction() throws StorageException;
 
+  /**
+   * Begins a non-transactional write batch, for bulk loads that do not need isolation.
+   *
+   * <p>The default implementation falls back to {@link #startTransaction()}.
+   *
+   * @param durability the durability guarantee for the batch
+   * @return batch to sequence key-value operations.
+   * @throws StorageException problem encountered when starting a new batch.
+   */
+  default KeyValueStorageTransaction startBatch(final WriteDurability durability)
+      throws StorageException {
+    return startTransaction();
+  }
+
+  /**
+   * Bulk loads entries, replacing the values of keys already present. The entries must be in
+   * strictly increasing unsigned byte order of their keys.
+   *
+   * <p>The default implementation writes the entries through {@link #startBatch(WriteDurability)}
+   * in batches.
+   *
+   * @param sortedEntries the key value pairs, in key order
+   * @throws StorageException problem encountered during the load.
+   */
+  default void ingest(final Iterator<Pair<byte[], byte[]>> sortedEntries) throws StorageException {
+    while (sortedEntries.hasNext()) {
+      final KeyValueStorageTransaction batch = startBatch(WriteDurability.WAL);
+      for (int i = 0;
+          i < SegmentedKeyValueStorage.INGEST_BATCH_SIZE && sortedEntries.hasNext();
+          i++) {
+        final Pair<byte[], byte[]> entry = sortedEntries.next();
+        batch.put(entry.getKey(), entry.getValue());
+      }
+      batch.commit();
+    }
+  }
+
   /**
    * Return Whether the underlying storage is closed.
    *
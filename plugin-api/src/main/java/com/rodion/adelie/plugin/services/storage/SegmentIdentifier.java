@@ -1,6 +1,7 @@
 package com.rodion.adelie.plugin.services.storage;
 
 import com.rodion.adelie.plugin.Unstable;
+import java.util.Optional;
 
 /**
  * A namespace identifier for the storage instance segment, a grouping of data that should be kept
@@ -60,4 +61,35 @@ public interface SegmentIdentifier {
   default boolean isStaticDataGarbageCollectionEnabled() {
     return false;
   }
+
+  /**
+   * The access pattern of the data in this segment, used by the underlying implementation to pick
+   * compaction, block and memtable settings for it.
+   *
+   * @return the tuning profile of the segment
+   */
+  default SegmentTuningProfile getTuningProfile() {
+    return SegmentTuningProfile.POINT_LOOKUP;
+  }
+
+  /**
+   * The on-heap byte budget of the read-through cache of values kept in front of this segment, for
+   * segments whose hot keys are read far more often than written.
+   *
+   * @return the value cache budget in bytes, 0 to read every value from the storage
+   */
+  default long getValueCacheBytes() {
+    return 0;
+  }
+
+  /**
+   * The prefix of the keys of this segment that range reads are commonly confined to, used by the
+   * underlying implementation to filter data by prefix for {@link
+   * SegmentedKeyValueStorage#streamByPrefix(SegmentIdentifier, byte[])}.
+   *
+   * @return the key prefix, empty if reads are not confined to a prefix
+   */
+  default Optional<SegmentKeyPrefix> getKeyPrefix() {
+    return Optional.empty();
+  }
 }
@@ -0,0 +1,44 @@
+package com.rodion.adelie.plugin.services.storage;
+
+/**
+ * The leading bytes of the keys of a segment that range reads are commonly confined to, such as a
+ * ticker. Implementations may filter data by prefix, so that a read within one prefix skips data
+ * holding none of its keys.
+ *
+ * @param length the number of leading key bytes forming the prefix
+ * @param capped whether a key shorter than the length is its own prefix, otherwise it has none
+ */
+public record SegmentKeyPrefix(int length, boolean capped) {
+
+  /**
+   * Instantiates a new segment key prefix.
+   *
+   * @param length the number of leading key bytes forming the prefix
+   * @param capped whether a key shorter than the length is its own prefix
+   */
+  public SegmentKeyPrefix {
+    if (length <= 0) {
+      throw new IllegalArgumentException("Key prefix length must be positive");
+    }
+  }
+
+  /**
+   * A prefix of the given length, keys shorter than the length have no prefix.
+   *
+   * @param length the number of leading key bytes forming the prefix
+   * @return the segment key prefix
+   */
+  public static SegmentKeyPrefix fixed(final int length) {
+    return new SegmentKeyPrefix(length, false);
+  }
+
+  /**
+   * A prefix of at most the given length, keys shorter than the length are their own prefix.
+   *
+   * @param length the maximum number of leading key bytes forming the prefix
+   * @return the segment key prefix
+   */
+  public static SegmentKeyPrefix capped(final int length) {
+    return new SegmentKeyPrefix(length, true);
+  }
+}
@@ -0,0 +1,13 @@
+package com.rodion.adelie.plugin.services.storage;
+
+/** The access pattern a segment is tuned for by the underlying storage implementation. */
+public enum SegmentTuningProfile {
+  /** Random reads of single keys, favours filters and small blocks */
+  POINT_LOOKUP,
+  /** Ordered range reads, favours large blocks and strong compression of cold data */
+  SCAN,
+  /** Keys appended in increasing order and rarely rewritten, favours low write amplification */
+  TIME_SERIES,
+  /** A small amount of frequently read data, favours keeping it uncompressed in cache */
+  SMALL_HOT_SET;
+}
@@ -2,8 +2,13 @@ package com.rodion.adelie.plugin.services.storage;
 
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
@@ -12,6 +17,12 @@ import org.apache.tuweni.bytes.Bytes;
 /** Service provided by Adelie to facilitate persistent data storage. */
 public interface SegmentedKeyValueStorage extends Closeable {
 
+  /** Returned by {@link #get(SegmentIdentifier, ByteBuffer, ByteBuffer)} for a missing key. */
+  int NOT_FOUND = -1;
+
+  /** Entries per write batch of the default {@link #ingest(SegmentIdentifier, Iterator)}. */
+  int INGEST_BATCH_SIZE = 10_000;
+
   /**
    * Get the value from the associated segment and key.
    *
@@ -22,6 +33,52 @@ public interface SegmentedKeyValueStorage extends Closeable {
    */
   Optional<byte[]> get(SegmentIdentifier segment, byte[] key) throws StorageException;
 
+  /**
+   * Get the value from the associated segment and key into a caller supplied buffer. The key is
+   * read between the position and limit of the key buffer, which is consumed. The value is written
+   * from the position of the value buffer, and its limit is set to the end of the written bytes.
+   *
+   * <p>If the value buffer has less remaining space than the value, only the leading bytes are
+   * written and the caller can retry with a buffer of the returned size. The default implementation
+   * copies through {@link #get(SegmentIdentifier, byte[])}.
+   *
+   * @param segment the segment
+   * @param key Index into persistent data repository.
+   * @param value the buffer the value is written to
+   * @return the size of the persisted value, or {@link #NOT_FOUND} if the key is not present
+   * @throws StorageException the storage exception
+   */
+  default int get(final SegmentIdentifier segment, final ByteBuffer key, final ByteBuffer value)
+      throws StorageException {
+    final byte[] keyBytes = new byte[key.remaining()];
+    key.get(keyBytes);
+    return get(segment, keyBytes)
+        .map(
+            bytes -> {
+              final int length = Math.min(bytes.length, value.remaining());
+              value.duplicate().put(bytes, 0, length);
+              value.limit(value.position() + length);
+              return bytes.length;
+            })
+        .orElse(NOT_FOUND);
+  }
+
+  /**
+   * Get the values for a batch of keys from the associated segment.
+   *
+   * <p>The default implementation issues one {@link #get(SegmentIdentifier, byte[])} per key,
+   * implementations with a native batched lookup should override it.
+   *
+   * @param segment the segment
+   * @param keys Indexes into persistent data repository.
+   * @return The values persisted at the key indexes, in the same order as the supplied keys.
+   * @throws StorageException the storage exception
+   */
+  default List<Optional<byte[]>> multiGet(final SegmentIdentifier segment, final List<byte[]> keys)
+      throws StorageException {
+    return keys.stream().map(key -> get(segment, key)).toList();
+  }
+
   /**
    * Find the key and corresponding value "nearest to" the specified key. Nearest is defined as
    * either matching the supplied key or the key lexicographically prior to it.
@@ -56,7 +113,60 @@ public interface SegmentedKeyValueStorage extends Closeable {
   SegmentedKeyValueStorageTransaction startTransaction() throws StorageException;
 
   /**
-   * Returns a stream of all keys for the segment.
+   * Begins a non-transactional write batch. Writes are buffered and applied atomically on commit,
+   * but without isolation or conflict tracking, which makes it suited for bulk loads.
+   *
+   * <p>The default implementation falls back to {@link #startTransaction()}.
+   *
+   * @param durability the durability guarantee for the batch
+   * @return An object representing the write batch.
+   * @throws StorageException the storage exception
+   */
+  default SegmentedKeyValueStorageTransaction startBatch(final WriteDurability durability)
+      throws StorageException {
+    return startTransaction();
+  }
+
+  /**
+   * Begins a non-transactional write batch, written to the write-ahead log without sync.
+   *
+   * @return An object representing the write batch.
+   * @throws StorageException the storage exception
+   */
+  default SegmentedKeyValueStorageTransaction startBatch() throws StorageException {
+    return startBatch(WriteDurability.WAL);
+  }
+
+  /**
+   * Bulk loads entries into a segment, replacing the values of keys already present. The entries
+   * must be in strictly increasing unsigned byte order of their keys. The load is atomic only where
+   * the implementation supports it, the storage stays open for reads and writes while it runs.
+   *
+   * <p>The default implementation writes the entries through {@link #startBatch()} in batches of
+   * {@link #INGEST_BATCH_SIZE}, implementations that can ingest pre-built files should override it
+   * to bypass the write path.
+   *
+   * @param segment the segment
+   * @param sortedEntries the key value pairs, in key order
+   * @throws StorageException the storage exception
+   */
+  default void ingest(
+      final SegmentIdentifier segment, final Iterator<Pair<byte[], byte[]>> sortedEntries)
+      throws StorageException {
+    while (sortedEntries.hasNext()) {
+      final SegmentedKeyValueStorageTransaction batch = startBatch();
+      for (int i = 0; i < INGEST_BATCH_SIZE && sortedEntries.hasNext(); i++) {
+        final Pair<byte[], byte[]> entry = sortedEntries.next();
+        batch.put(segment, entry.getKey(), entry.getValue());
+      }
+      batch.commit();
+    }
+  }
+
+  /**
+   * Returns a stream of all keys for the segment. The stream must be closed, typically with
+   * try-with-resources, even when it is not read to the end: implementations may hold a snapshot of
+   * the storage until then, keeping the versions it sees from being compacted away.
    *
    * @param segmentIdentifier The segment identifier whose keys we want to stream.
    * @return A stream of all keys in the specified segment.
@@ -88,6 +198,77 @@ public interface SegmentedKeyValueStorage extends Closeable {
   Stream<Pair<byte[], byte[]>> streamFromKey(
       final SegmentIdentifier segmentIdentifier, final byte[] startKey, final byte[] endKey);
 
+  /**
+   * Returns a stream of key-value pairs in the inclusive range between the specified keys. When
+   * prefixSameAsStart is set, implementations with a prefix extractor on the segment may stop as
+   * soon as keys no longer share the prefix of the start key, callers must only set it when the
+   * whole range shares that prefix.
+   *
+   * <p>The default implementation ignores prefixSameAsStart.
+   *
+   * @param segmentIdentifier The segment identifier whose keys we want to stream.
+   * @param startKey The key from which the stream should start.
+   * @param endKey The key at which the stream should stop.
+   * @param prefixSameAsStart whether the range is contained in the prefix of the start key
+   * @return A stream of key-value pairs starting from the specified key.
+   */
+  default Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier,
+      final byte[] startKey,
+      final byte[] endKey,
+      final boolean prefixSameAsStart) {
+    return streamFromKey(segmentIdentifier, startKey, endKey);
+  }
+
+  /**
+   * Returns a stream of the key-value pairs whose keys start with the specified prefix, in key
+   * order. Implementations may filter data by prefix when the prefix is the {@link
+   * SegmentIdentifier#getKeyPrefix() key prefix} of the segment.
+   *
+   * <p>The default implementation streams from the prefix until the first key without it.
+   *
+   * @param segmentIdentifier The segment identifier whose keys we want to stream.
+   * @param prefix The prefix shared by the keys to stream.
+   * @return A stream of the key-value pairs with the specified prefix.
+   */
+  default Stream<Pair<byte[], byte[]>> streamByPrefix(
+      final SegmentIdentifier segmentIdentifier, final byte[] prefix) {
+    return streamFromKey(segmentIdentifier, prefix)
+        .takeWhile(
+            entry ->
+                entry.getKey().length >= prefix.length
+                    && Arrays.equals(entry.getKey(), 0, prefix.length, prefix, 0, prefix.length));
+  }
+
+  /**
+   * Visits every key-value pair of the segment in key order. The buffers handed to the action are
+   * only valid for the duration of the call and may be reused for the next entry, so callers must
+   * copy out anything they keep.
+   *
+   * @param segmentIdentifier The segment identifier whose entries we want to visit.
+   * @param action the action applied to each key and value
+   * @throws StorageException the storage exception
+   */
+  default void forEach(
+      final SegmentIdentifier segmentIdentifier, final BiConsumer<ByteBuffer, ByteBuffer> action)
+      throws StorageException {
+    try (final KeyValueCursor cursor = cursor(segmentIdentifier)) {
+      for (cursor.seekToFirst(); cursor.isValid(); cursor.next()) {
+        action.accept(cursor.key(), cursor.value());
+      }
+    }
+  }
+
+  /**
+   * Opens an unpositioned cursor over the segment. The cursor exposes each entry through reused
+   * buffers, avoiding the per-entry allocations of the stream methods, and must be closed.
+   *
+   * @param segmentIdentifier The segment identifier whose entries we want to visit.
+   * @return the cursor
+   * @throws StorageException the storage exception
+   */
+  KeyValueCursor cursor(final SegmentIdentifier segmentIdentifier) throws StorageException;
+
   /**
    * Stream keys.
    *
@@ -2,6 +2,7 @@ package com.rodion.adelie.plugin.services.storage;
 
 import com.rodion.adelie.plugin.Unstable;
 import com.rodion.adelie.plugin.services.exception.StorageException;
+import java.nio.ByteBuffer;
 
 /**
  * A transaction that can atomically commit a sequence of operations to a segmented key-value store.
@@ -21,6 +22,26 @@ public interface SegmentedKeyValueStorageTransaction {
    */
   void put(SegmentIdentifier segmentIdentifier, byte[] key, byte[] value);
 
+  /**
+   * Associates the value between the position and limit of the value buffer with the key between
+   * the position and limit of the key buffer. Direct buffers let implementations hand the bytes to
+   * native storage without an intermediate heap copy.
+   *
+   * <p>The default implementation copies both buffers into arrays, both buffers are consumed.
+   *
+   * @param segmentIdentifier the segment identifier
+   * @param key the given value is to be associated with.
+   * @param value associated with the specified key.
+   */
+  default void put(
+      final SegmentIdentifier segmentIdentifier, final ByteBuffer key, final ByteBuffer value) {
+    final byte[] keyBytes = new byte[key.remaining()];
+    key.get(keyBytes);
+    final byte[] valueBytes = new byte[value.remaining()];
+    value.get(valueBytes);
+    put(segmentIdentifier, keyBytes, valueBytes);
+  }
+
   /**
    * When the given key is present, the key and mapped value will be removed from storage.
    *
@@ -29,6 +50,21 @@ public interface SegmentedKeyValueStorageTransaction {
    */
   void remove(SegmentIdentifier segmentIdentifier, byte[] key);
 
+  /**
+   * When the key between the position and limit of the key buffer is present, the key and mapped
+   * value will be removed from storage.
+   *
+   * <p>The default implementation copies the buffer into an array, the buffer is consumed.
+   *
+   * @param segmentIdentifier the segment identifier
+   * @param key the key and mapped value that will be removed.
+   */
+  default void remove(final SegmentIdentifier segmentIdentifier, final ByteBuffer key) {
+    final byte[] keyBytes = new byte[key.remaining()];
+    key.get(keyBytes);
+    remove(segmentIdentifier, keyBytes);
+  }
+
   /**
    * Performs an atomic commit of all the operations queued in the transaction.
    *
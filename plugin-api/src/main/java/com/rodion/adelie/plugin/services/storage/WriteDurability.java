@@ -0,0 +1,11 @@
+package com.rodion.adelie.plugin.services.storage;
+
+/** Durability guarantee requested for a batch of writes. */
+public enum WriteDurability {
+  /** Skip the write-ahead log, writes are lost on crash until the memtable is flushed */
+  NO_WAL,
+  /** Append to the write-ahead log without waiting for it to reach disk */
+  WAL,
+  /** Append to the write-ahead log and fsync it before the commit returns */
+  WAL_SYNC;
+}
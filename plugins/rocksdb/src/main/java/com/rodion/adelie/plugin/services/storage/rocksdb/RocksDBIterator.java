@@ -2,28 +2,51 @@ package com.rodion.adelie.plugin.services.storage.rocksdb;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.tuple.Pair;
+import org.rocksdb.AbstractNativeReference;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** The Rocks DB iterator. */
-public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoCloseable {
+/**
+ * The Rocks DB iterator. It can be used as a {@link KeyValueCursor}, reading keys and values into
+ * reusable direct buffers, or adapted to a stream of copied pairs.
+ */
+public class RocksDBIterator implements KeyValueCursor {
   private static final Logger logger = LoggerFactory.getLogger(RocksDBIterator.class);
+  private static final int INITIAL_KEY_BUFFER_SIZE = 256;
+  private static final int INITIAL_VALUE_BUFFER_SIZE = 4096;
 
   private final RocksIterator rocksIterator;
+  private final List<AbstractNativeReference> resources;
   private final AtomicBoolean closed = new AtomicBoolean(false);
+  private ByteBuffer keyBuffer;
+  private ByteBuffer valueBuffer;
+  private boolean keyRead;
+  private boolean valueRead;
 
-  private RocksDBIterator(final RocksIterator rocksIterator) {
+  private RocksDBIterator(
+      final RocksIterator rocksIterator, final List<AbstractNativeReference> resources) {
     this.rocksIterator = rocksIterator;
+    this.resources = resources;
   }
 
   /**
@@ -33,18 +56,183 @@ public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoClos
    * @return the rocks db iterator
    */
   public static RocksDBIterator create(final RocksIterator rocksIterator) {
-    return new RocksDBIterator(rocksIterator);
+    return new RocksDBIterator(rocksIterator, List.of());
+  }
+
+  /**
+   * Create RocksDb iterator over the inclusive key range [startKey, endKey]. The bounds are pushed
+   * down into the read options, so RocksDB stops at the end of the range rather than preparing
+   * blocks past it. The read options and bounds are released when the iterator is closed.
+   *
+   * @param iteratorFactory opens a rocks iterator with the given read options
+   * @param baseReadOptions the read options to copy, e.g. to carry a snapshot
+   * @param startKey the first key of the range
+   * @param endKey the last key of the range
+   * @param prefixSameAsStart whether iteration may stop once keys leave the prefix of the start
+   *     key, only meaningful for segments configured with a prefix extractor
+   * @return the rocks db iterator, positioned at the start key
+   */
+  public static RocksDBIterator createBounded(
+      final Function<ReadOptions, RocksIterator> iteratorFactory,
+      final ReadOptions baseReadOptions,
+      final byte[] startKey,
+      final byte[] endKey,
+      final boolean prefixSameAsStart) {
+    // the upper bound is exclusive, the smallest key after endKey is endKey followed by 0x00
+    final RocksDBIterator iterator =
+        createRange(
+            iteratorFactory,
+            baseReadOptions,
+            startKey,
+            Arrays.copyOf(endKey, endKey.length + 1),
+            prefixSameAsStart);
+    iterator.seek(startKey);
+    return iterator;
+  }
+
+  /**
+   * Create RocksDb iterator over the keys starting with a prefix. The range of the prefix is pushed
+   * down into the read options as bounds. The read options and bounds are released when the
+   * iterator is closed.
+   *
+   * @param iteratorFactory opens a rocks iterator with the given read options
+   * @param baseReadOptions the read options to copy, e.g. to carry a snapshot
+   * @param prefix the prefix of the keys
+   * @param prefixSameAsStart whether the prefix is the one extracted by the prefix extractor of the
+   *     segment, so that data without it can be filtered out
+   * @return the rocks db iterator, positioned at the prefix
+   */
+  public static RocksDBIterator createPrefix(
+      final Function<ReadOptions, RocksIterator> iteratorFactory,
+      final ReadOptions baseReadOptions,
+      final byte[] prefix,
+      final boolean prefixSameAsStart) {
+    final RocksDBIterator iterator =
+        createRange(
+            iteratorFactory, baseReadOptions, prefix, prefixSuccessor(prefix), prefixSameAsStart);
+    iterator.seek(prefix);
+    return iterator;
+  }
+
+  /** The smallest key greater than every key starting with the prefix, or null if there is none. */
+  private static byte[] prefixSuccessor(final byte[] prefix) {
+    for (int i = prefix.length - 1; i >= 0; i--) {
+      if (prefix[i] != (byte) 0xff) {
+        final byte[] successor = Arrays.copyOf(prefix, i + 1);
+        successor[i]++;
+        return successor;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Create an unpositioned RocksDb iterator over the half-open key range [lowerBound, upperBound).
+   * Either bound may be null to leave that side of the range open.
+   *
+   * @param iteratorFactory opens a rocks iterator with the given read options
+   * @param baseReadOptions the read options to copy, e.g. to carry a snapshot
+   * @param lowerBound the inclusive lower bound, or null
+   * @param upperBound the exclusive upper bound, or null
+   * @param prefixSameAsStart whether iteration may stop once keys leave the prefix of the seek key
+   * @return the rocks db iterator
+   */
+  public static RocksDBIterator createRange(
+      final Function<ReadOptions, RocksIterator> iteratorFactory,
+      final ReadOptions baseReadOptions,
+      final byte[] lowerBound,
+      final byte[] upperBound,
+      final boolean prefixSameAsStart) {
+    final List<AbstractNativeReference> resources = new ArrayList<>(3);
+    final ReadOptions readOptions =
+        new ReadOptions(baseReadOptions).setPrefixSameAsStart(prefixSameAsStart);
+    resources.add(readOptions);
+    if (lowerBound != null) {
+      final Slice lowerSlice = new Slice(lowerBound);
+      readOptions.setIterateLowerBound(lowerSlice);
+      resources.add(lowerSlice);
+    }
+    if (upperBound != null) {
+      final Slice upperSlice = new Slice(upperBound);
+      readOptions.setIterateUpperBound(upperSlice);
+      resources.add(upperSlice);
+    }
+    return new RocksDBIterator(iteratorFactory.apply(readOptions), resources);
   }
 
   @Override
-  public boolean hasNext() {
+  public void seekToFirst() {
+    assertOpen();
+    rocksIterator.seekToFirst();
+    invalidateBuffers();
+  }
+
+  @Override
+  public void seek(final byte[] key) {
+    assertOpen();
+    rocksIterator.seek(key);
+    invalidateBuffers();
+  }
+
+  @Override
+  public boolean isValid() throws StorageException {
+    assertOpen();
+    if (rocksIterator.isValid()) {
+      return true;
+    }
+    // an iterator only becomes invalid at the end of the range or on error, so the status is
+    // checked once here rather than on every step
+    try {
+      rocksIterator.status();
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+    return false;
+  }
+
+  @Override
+  public void next() {
+    assertOpen();
+    rocksIterator.next();
+    invalidateBuffers();
+  }
+
+  @Override
+  public ByteBuffer key() {
     assertOpen();
-    return rocksIterator.isValid();
+    if (!keyRead) {
+      if (keyBuffer == null) {
+        keyBuffer = ByteBuffer.allocateDirect(INITIAL_KEY_BUFFER_SIZE);
+      }
+      keyBuffer = readInto(rocksIterator::key, keyBuffer);
+      keyRead = true;
+    }
+    return keyBuffer;
   }
 
   @Override
-  public Pair<byte[], byte[]> next() {
+  public ByteBuffer value() {
+    assertOpen();
+    if (!valueRead) {
+      if (valueBuffer == null) {
+        valueBuffer = ByteBuffer.allocateDirect(INITIAL_VALUE_BUFFER_SIZE);
+      }
+      valueBuffer = readInto(rocksIterator::value, valueBuffer);
+      valueRead = true;
+    }
+    return valueBuffer;
+  }
+
+  /**
+   * Has next.
+   *
+   * @return whether the iterator is positioned at an entry
+   */
+  public boolean hasNext() {
     assertOpen();
+    if (rocksIterator.isValid()) {
+      return true;
+    }
     try {
       rocksIterator.status();
     } catch (final RocksDBException e) {
@@ -52,6 +240,15 @@ public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoClos
           String.format("%s encountered a problem while iterating.", getClass().getSimpleName()),
           e);
     }
+    return false;
+  }
+
+  /**
+   * Next key-value pair, copied out of the iterator.
+   *
+   * @return the pair
+   */
+  public Pair<byte[], byte[]> nextPair() {
     if (!hasNext()) {
       throw new NoSuchElementException();
     }
@@ -67,14 +264,6 @@ public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoClos
    * @return the byte [ ]
    */
   public byte[] nextKey() {
-    assertOpen();
-    try {
-      rocksIterator.status();
-    } catch (final RocksDBException e) {
-      logger.error(
-          String.format("%s encountered a problem while iterating.", getClass().getSimpleName()),
-          e);
-    }
     if (!hasNext()) {
       throw new NoSuchElementException();
     }
@@ -92,7 +281,17 @@ public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoClos
     assertOpen();
     final Spliterator<Pair<byte[], byte[]>> spliterator =
         Spliterators.spliteratorUnknownSize(
-            this,
+            new Iterator<>() {
+              @Override
+              public boolean hasNext() {
+                return RocksDBIterator.this.hasNext();
+              }
+
+              @Override
+              public Pair<byte[], byte[]> next() {
+                return RocksDBIterator.this.nextPair();
+              }
+            },
             Spliterator.IMMUTABLE
                 | Spliterator.DISTINCT
                 | Spliterator.NONNULL
@@ -131,6 +330,31 @@ public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoClos
     return StreamSupport.stream(spliterator, false).onClose(this::close);
   }
 
+  /**
+   * Read a key or value into a reusable direct buffer, growing the buffer when the entry does not
+   * fit.
+   *
+   * @param reader the iterator accessor, returning the full size of the entry
+   * @param buffer the buffer to reuse
+   * @return the buffer holding the entry between position zero and its limit
+   */
+  private static ByteBuffer readInto(
+      final ToIntFunction<ByteBuffer> reader, final ByteBuffer buffer) {
+    buffer.clear();
+    final int size = reader.applyAsInt(buffer);
+    if (size <= buffer.capacity()) {
+      return buffer;
+    }
+    final ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(size, buffer.capacity() * 2));
+    reader.applyAsInt(larger);
+    return larger;
+  }
+
+  private void invalidateBuffers() {
+    keyRead = false;
+    valueRead = false;
+  }
+
   private void assertOpen() {
     checkState(
         !closed.get(),
@@ -141,6 +365,7 @@ public class RocksDBIterator implements Iterator<Pair<byte[], byte[]>>, AutoClos
   public void close() {
     if (closed.compareAndSet(false, true)) {
       rocksIterator.close();
+      resources.forEach(AbstractNativeReference::close);
     }
   }
 }
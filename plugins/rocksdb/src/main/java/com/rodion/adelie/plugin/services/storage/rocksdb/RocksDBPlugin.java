@@ -4,6 +4,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.rodion.adelie.plugin.AdelieContext;
 import com.rodion.adelie.plugin.AdeliePlugin;
+import com.rodion.adelie.plugin.services.MetricsSystem;
 import com.rodion.adelie.plugin.services.PicoCLIOptions;
 import com.rodion.adelie.plugin.services.StorageService;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
@@ -80,7 +81,16 @@ public class RocksDBPlugin implements AdeliePlugin {
     final List<SegmentIdentifier> segments = service.getAllSegmentIdentifiers();
     final Supplier<RocksDBFactoryConfiguration> configuration =
         Suppliers.memoize(options::toDomainObject);
-    factory = new RocksDBKeyValueStorageFactory(configuration, segments, ignorableSegments);
+    factory =
+        context
+            .getService(MetricsSystem.class)
+            .map(
+                metricsSystem ->
+                    new RocksDBKeyValueStorageFactory(
+                        configuration, segments, ignorableSegments, metricsSystem))
+            .orElseGet(
+                () ->
+                    new RocksDBKeyValueStorageFactory(configuration, segments, ignorableSegments));
     logger.info("Registering rocks DB kv storage factory with storage service");
     service.registerKeyValueStorage(factory);
   }
@@ -0,0 +1,210 @@
+package com.rodion.adelie.plugin.services.storage.rocksdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.commons.lang3.tuple.Pair;
+import org.rocksdb.ColumnFamilyMetaData;
+import org.rocksdb.LevelMetaData;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.SstFileMetaData;
+
+/**
+ * A splittable spliterator over a column family. The key space is partitioned into contiguous
+ * ranges, typically at SST file boundaries, and each range is read by its own bounded iterator, so
+ * a parallel stream scans ranges on separate cores while a sequential stream still visits keys in
+ * order.
+ */
+public class RocksDBRangeSpliterator implements Spliterator<Pair<byte[], byte[]>> {
+  private static final Comparator<Pair<byte[], byte[]>> KEY_ORDER =
+      (a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey());
+
+  private final Scan scan;
+  private int range;
+  private int endRange;
+  private RocksDBIterator current;
+
+  private RocksDBRangeSpliterator(final Scan scan, final int range, final int endRange) {
+    this.scan = scan;
+    this.range = range;
+    this.endRange = endRange;
+  }
+
+  /**
+   * Stream all entries of a column family, partitioned at the given boundaries. The stream must be
+   * closed to release the iterators of ranges that were not read to the end, and whatever onRelease
+   * releases, such as a snapshot.
+   *
+   * @param iteratorFactory opens a rocks iterator with the given read options
+   * @param readOptions the read options each range iterator copies, e.g. to carry a snapshot
+   * @param boundaries the sorted inner range boundaries, may be empty for a single range
+   * @param onRelease invoked once, when every range is exhausted or the stream is closed
+   * @return the stream
+   */
+  public static Stream<Pair<byte[], byte[]>> stream(
+      final Function<ReadOptions, RocksIterator> iteratorFactory,
+      final ReadOptions readOptions,
+      final List<byte[]> boundaries,
+      final Runnable onRelease) {
+    final Scan scan = new Scan(iteratorFactory, readOptions, boundaries, onRelease);
+    return StreamSupport.stream(new RocksDBRangeSpliterator(scan, 0, scan.rangeCount()), false)
+        .onClose(scan::close);
+  }
+
+  /**
+   * Pick range boundaries for a column family from the smallest keys of its SST files, evenly
+   * thinned out to at most the requested number of ranges. Data still in the memtable falls into
+   * whichever range covers its key, so the ranges always span the whole key space.
+   *
+   * @param metaData the column family metadata
+   * @param maxRanges the maximum number of ranges
+   * @return the sorted inner boundaries, empty when the column family should be read as one range
+   */
+  public static List<byte[]> partitionBoundaries(
+      final ColumnFamilyMetaData metaData, final int maxRanges) {
+    final List<byte[]> candidates = new ArrayList<>();
+    for (final LevelMetaData level : metaData.levels()) {
+      for (final SstFileMetaData file : level.files()) {
+        candidates.add(file.smallestKey());
+      }
+    }
+    candidates.sort(Arrays::compareUnsigned);
+
+    final List<byte[]> distinct = new ArrayList<>(candidates.size());
+    for (final byte[] candidate : candidates) {
+      if (distinct.isEmpty() || !Arrays.equals(distinct.get(distinct.size() - 1), candidate)) {
+        distinct.add(candidate);
+      }
+    }
+    // the smallest key overall starts the first range, which is already open below
+    if (!distinct.isEmpty()) {
+      distinct.remove(0);
+    }
+
+    final int cuts = Math.min(distinct.size(), Math.max(0, maxRanges - 1));
+    final List<byte[]> boundaries = new ArrayList<>(cuts);
+    for (int i = 1; i <= cuts; i++) {
+      boundaries.add(distinct.get((int) ((long) i * distinct.size() / (cuts + 1))));
+    }
+    return boundaries;
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super Pair<byte[], byte[]>> action) {
+    while (true) {
+      if (current == null) {
+        if (range >= endRange) {
+          return false;
+        }
+        current = scan.open(range);
+      }
+      if (current.hasNext()) {
+        action.accept(current.nextPair());
+        return true;
+      }
+      scan.finish(current);
+      current = null;
+      range++;
+    }
+  }
+
+  @Override
+  public Spliterator<Pair<byte[], byte[]>> trySplit() {
+    if (current != null || endRange - range < 2) {
+      return null;
+    }
+    final int mid = (range + endRange) >>> 1;
+    final RocksDBRangeSpliterator prefix = new RocksDBRangeSpliterator(scan, range, mid);
+    range = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return IMMUTABLE | DISTINCT | NONNULL | ORDERED | SORTED;
+  }
+
+  @Override
+  public Comparator<? super Pair<byte[], byte[]>> getComparator() {
+    return KEY_ORDER;
+  }
+
+  /** State shared by all the spliterators split from one stream. */
+  private static class Scan {
+    private final Function<ReadOptions, RocksIterator> iteratorFactory;
+    private final ReadOptions readOptions;
+    private final List<byte[]> boundaries;
+    private final Runnable onRelease;
+    private final Queue<RocksDBIterator> openIterators = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger remainingRanges;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private Scan(
+        final Function<ReadOptions, RocksIterator> iteratorFactory,
+        final ReadOptions readOptions,
+        final List<byte[]> boundaries,
+        final Runnable onRelease) {
+      this.iteratorFactory = iteratorFactory;
+      this.readOptions = readOptions;
+      this.boundaries = boundaries;
+      this.onRelease = onRelease;
+      this.remainingRanges = new AtomicInteger(rangeCount());
+    }
+
+    private int rangeCount() {
+      return boundaries.size() + 1;
+    }
+
+    private RocksDBIterator open(final int range) {
+      final byte[] lowerBound = range == 0 ? null : boundaries.get(range - 1);
+      final byte[] upperBound = range == boundaries.size() ? null : boundaries.get(range);
+      final RocksDBIterator iterator =
+          RocksDBIterator.createRange(iteratorFactory, readOptions, lowerBound, upperBound, false);
+      if (lowerBound == null) {
+        iterator.seekToFirst();
+      } else {
+        iterator.seek(lowerBound);
+      }
+      openIterators.add(iterator);
+      return iterator;
+    }
+
+    private void finish(final RocksDBIterator iterator) {
+      openIterators.remove(iterator);
+      iterator.close();
+      if (remainingRanges.decrementAndGet() == 0) {
+        release();
+      }
+    }
+
+    private void close() {
+      RocksDBIterator iterator;
+      while ((iterator = openIterators.poll()) != null) {
+        iterator.close();
+      }
+      release();
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        onRelease.run();
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.rodion.adelie.plugin.services.storage.rocksdb;
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import java.nio.ByteBuffer;
 import java.util.function.Function;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
@@ -62,6 +63,19 @@ public class RocksDBTransaction implements SegmentedKeyValueStorageTransaction {
     }
   }
 
+  @Override
+  public void put(final SegmentIdentifier segmentId, final ByteBuffer key, final ByteBuffer value) {
+    try {
+      innerTx.put(columnFamilyMapper.apply(segmentId), key, value);
+    } catch (final RocksDBException e) {
+      if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
+        logger.error(e.getMessage());
+        System.exit(0);
+      }
+      throw new StorageException(e);
+    }
+  }
+
   @Override
   public void commit() throws StorageException {
     try {
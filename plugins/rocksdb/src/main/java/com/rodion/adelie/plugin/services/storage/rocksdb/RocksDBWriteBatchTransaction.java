@@ -0,0 +1,108 @@
+package com.rodion.adelie.plugin.services.storage.rocksdb;
+
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A RocksDB write batch exposed as a transaction. Writes are buffered in a {@link WriteBatch} and
+ * applied atomically on commit, without the lock or conflict tracking of a RocksDB transaction.
+ */
+public class RocksDBWriteBatchTransaction implements SegmentedKeyValueStorageTransaction {
+  private static final Logger logger = LoggerFactory.getLogger(RocksDBWriteBatchTransaction.class);
+  private static final String NO_SPACE_LEFT_ON_DEVICE = "No space left on device";
+
+  private final RocksDB db;
+  private final WriteBatch batch;
+  private final WriteOptions options;
+  private final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper;
+
+  /**
+   * Instantiates a new RocksDb write batch transaction.
+   *
+   * @param columnFamilyMapper mapper from segment identifier to column family handle
+   * @param db the database the batch is written to
+   * @param batch the write batch
+   * @param options the write options
+   */
+  public RocksDBWriteBatchTransaction(
+      final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper,
+      final RocksDB db,
+      final WriteBatch batch,
+      final WriteOptions options) {
+    this.columnFamilyMapper = columnFamilyMapper;
+    this.db = db;
+    this.batch = batch;
+    this.options = options;
+  }
+
+  @Override
+  public void put(final SegmentIdentifier segmentId, final byte[] key, final byte[] value) {
+    try {
+      batch.put(columnFamilyMapper.apply(segmentId), key, value);
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void remove(final SegmentIdentifier segmentId, final byte[] key) {
+    try {
+      batch.delete(columnFamilyMapper.apply(segmentId), key);
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void put(final SegmentIdentifier segmentId, final ByteBuffer key, final ByteBuffer value) {
+    try {
+      batch.put(columnFamilyMapper.apply(segmentId), key, value);
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void remove(final SegmentIdentifier segmentId, final ByteBuffer key) {
+    try {
+      batch.delete(columnFamilyMapper.apply(segmentId), key);
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void commit() throws StorageException {
+    try {
+      db.write(options, batch);
+    } catch (final RocksDBException e) {
+      if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
+        logger.error(e.getMessage());
+        System.exit(0);
+      }
+      throw new StorageException(e);
+    } finally {
+      close();
+    }
+  }
+
+  @Override
+  public void rollback() {
+    close();
+  }
+
+  private void close() {
+    batch.close();
+    options.close();
+  }
+}
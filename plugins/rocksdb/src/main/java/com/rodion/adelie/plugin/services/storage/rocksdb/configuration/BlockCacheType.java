@@ -0,0 +1,9 @@
+package com.rodion.adelie.plugin.services.storage.rocksdb.configuration;
+
+/** The block cache implementation shared by all column families. */
+public enum BlockCacheType {
+  /** Sharded LRU cache, the RocksDB default */
+  LRU,
+  /** Lock-free clock cache, scales better under highly concurrent reads */
+  HYPER_CLOCK;
+}
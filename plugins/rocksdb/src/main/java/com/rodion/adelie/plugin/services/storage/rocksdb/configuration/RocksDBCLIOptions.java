@@ -1,6 +1,9 @@
 package com.rodion.adelie.plugin.services.storage.rocksdb.configuration;
 
 import com.google.common.base.MoreObjects;
+import com.rodion.adelie.plugin.services.storage.SegmentTuningProfile;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import picocli.CommandLine;
 
 /** The RocksDb cli options. */
@@ -18,6 +21,15 @@ public class RocksDBCLIOptions {
   /** The constant DEFAULT_IS_HIGH_SPEC. */
   public static final boolean DEFAULT_IS_HIGH_SPEC = false;
 
+  /** The constant DEFAULT_BLOCK_CACHE_TYPE. */
+  public static final BlockCacheType DEFAULT_BLOCK_CACHE_TYPE = BlockCacheType.LRU;
+
+  /** The constant DEFAULT_WRITE_BUFFER_BUDGET. */
+  public static final long DEFAULT_WRITE_BUFFER_BUDGET = 67108864;
+
+  /** The constant DEFAULT_SNAPSHOT_MAX_STALENESS_MILLIS. */
+  public static final long DEFAULT_SNAPSHOT_MAX_STALENESS_MILLIS = 0;
+
   /** The constant MAX_OPEN_FILES_FLAG. */
   public static final String MAX_OPEN_FILES_FLAG = "--Xplugin-rocksdb-max-open-files";
 
@@ -31,6 +43,20 @@ public class RocksDBCLIOptions {
   /** The constant IS_HIGH_SPEC. */
   public static final String IS_HIGH_SPEC = "--Xplugin-rocksdb-high-spec-enabled";
 
+  /** The constant BLOCK_CACHE_TYPE_FLAG. */
+  public static final String BLOCK_CACHE_TYPE_FLAG = "--Xplugin-rocksdb-block-cache-type";
+
+  /** The constant WRITE_BUFFER_BUDGET_FLAG. */
+  public static final String WRITE_BUFFER_BUDGET_FLAG = "--Xplugin-rocksdb-write-buffer-budget";
+
+  /** The constant SNAPSHOT_MAX_STALENESS_FLAG. */
+  public static final String SNAPSHOT_MAX_STALENESS_FLAG =
+      "--Xplugin-rocksdb-snapshot-max-staleness";
+
+  /** The constant SEGMENT_TUNING_PROFILE_FLAG. */
+  public static final String SEGMENT_TUNING_PROFILE_FLAG =
+      "--Xplugin-rocksdb-segment-tuning-profile";
+
   @CommandLine.Option(
       names = {MAX_OPEN_FILES_FLAG},
       hidden = true,
@@ -48,6 +74,46 @@ public class RocksDBCLIOptions {
       description = "Cache capacity of RocksDB (default: ${DEFAULT-VALUE})")
   long cacheCapacity;
 
+  /** The Block cache type. */
+  @CommandLine.Option(
+      names = {BLOCK_CACHE_TYPE_FLAG},
+      hidden = true,
+      defaultValue = "LRU",
+      paramLabel = "<TYPE>",
+      description =
+          "Block cache shared by all column families, either LRU or HYPER_CLOCK (default: ${DEFAULT-VALUE})")
+  BlockCacheType blockCacheType;
+
+  /** The Write buffer budget. */
+  @CommandLine.Option(
+      names = {WRITE_BUFFER_BUDGET_FLAG},
+      hidden = true,
+      defaultValue = "67108864",
+      paramLabel = "<LONG>",
+      description =
+          "Memory budget in bytes for the memtables of all column families, charged against the block cache (default: ${DEFAULT-VALUE})")
+  long writeBufferBudget;
+
+  /** The Snapshot max staleness. */
+  @CommandLine.Option(
+      names = {SNAPSHOT_MAX_STALENESS_FLAG},
+      hidden = true,
+      defaultValue = "0",
+      paramLabel = "<MILLIS>",
+      description =
+          "Readers starting within this many milliseconds of a snapshot being taken share it, 0 gives every reader its own snapshot (default: ${DEFAULT-VALUE})")
+  long snapshotMaxStalenessMillis;
+
+  /** The Segment tuning profiles. */
+  @CommandLine.Option(
+      names = {SEGMENT_TUNING_PROFILE_FLAG},
+      hidden = true,
+      split = ",",
+      paramLabel = "<SEGMENT=PROFILE>",
+      description =
+          "Override the tuning profile of a segment, one of POINT_LOOKUP, SCAN, TIME_SERIES or SMALL_HOT_SET (e.g. BLOTTER=POINT_LOOKUP)")
+  Map<String, SegmentTuningProfile> segmentTuningProfiles = new LinkedHashMap<>();
+
   /** The Background thread count. */
   @CommandLine.Option(
       names = {BACKGROUND_THREAD_COUNT_FLAG},
@@ -84,7 +150,14 @@ public class RocksDBCLIOptions {
    */
   public RocksDBFactoryConfiguration toDomainObject() {
     return new RocksDBFactoryConfiguration(
-        maxOpenFiles, backgroundThreadCount, cacheCapacity, isHighSpec);
+        maxOpenFiles,
+        backgroundThreadCount,
+        cacheCapacity,
+        isHighSpec,
+        blockCacheType,
+        writeBufferBudget,
+        snapshotMaxStalenessMillis,
+        segmentTuningProfiles);
   }
 
   @Override
@@ -94,6 +167,10 @@ public class RocksDBCLIOptions {
         .add("cacheCapacity", cacheCapacity)
         .add("backgroundThreadCount", backgroundThreadCount)
         .add("isHighSpec", isHighSpec)
+        .add("blockCacheType", blockCacheType)
+        .add("writeBufferBudget", writeBufferBudget)
+        .add("snapshotMaxStalenessMillis", snapshotMaxStalenessMillis)
+        .add("segmentTuningProfiles", segmentTuningProfiles)
         .toString();
   }
 }
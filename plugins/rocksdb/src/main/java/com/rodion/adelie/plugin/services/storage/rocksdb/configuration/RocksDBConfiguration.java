@@ -14,7 +14,9 @@
  */
 package com.rodion.adelie.plugin.services.storage.rocksdb.configuration;
 
+import com.rodion.adelie.plugin.services.storage.SegmentTuningProfile;
 import java.nio.file.Path;
+import java.util.Map;
 
 /** The Rocks DB configuration. */
 public class RocksDBConfiguration {
@@ -25,6 +27,10 @@ public class RocksDBConfiguration {
   private final int backgroundThreadCount;
   private final long cacheCapacity;
   private final boolean isHighSpec;
+  private final BlockCacheType blockCacheType;
+  private final long writeBufferBudget;
+  private final long snapshotMaxStalenessMillis;
+  private final Map<String, SegmentTuningProfile> segmentTuningProfiles;
 
   /**
    * Instantiates a new RocksDb configuration.
@@ -35,6 +41,11 @@ public class RocksDBConfiguration {
    * @param cacheCapacity the cache capacity
    * @param label the label
    * @param isHighSpec the is high spec
+   * @param blockCacheType the block cache type
+   * @param writeBufferBudget the write buffer budget
+   * @param snapshotMaxStalenessMillis the age up to which a snapshot is shared with new readers
+   * @param segmentTuningProfiles the tuning profiles overriding the segment defaults, by segment
+   *     name
    */
   public RocksDBConfiguration(
       final Path databaseDir,
@@ -42,13 +53,21 @@ public class RocksDBConfiguration {
       final int backgroundThreadCount,
       final long cacheCapacity,
       final String label,
-      final boolean isHighSpec) {
+      final boolean isHighSpec,
+      final BlockCacheType blockCacheType,
+      final long writeBufferBudget,
+      final long snapshotMaxStalenessMillis,
+      final Map<String, SegmentTuningProfile> segmentTuningProfiles) {
     this.backgroundThreadCount = backgroundThreadCount;
     this.databaseDir = databaseDir;
     this.maxOpenFiles = maxOpenFiles;
     this.cacheCapacity = cacheCapacity;
     this.label = label;
     this.isHighSpec = isHighSpec;
+    this.blockCacheType = blockCacheType;
+    this.writeBufferBudget = writeBufferBudget;
+    this.snapshotMaxStalenessMillis = snapshotMaxStalenessMillis;
+    this.segmentTuningProfiles = Map.copyOf(segmentTuningProfiles);
   }
 
   /**
@@ -104,4 +123,40 @@ public class RocksDBConfiguration {
   public boolean isHighSpec() {
     return isHighSpec;
   }
+
+  /**
+   * Gets block cache type.
+   *
+   * @return the block cache type
+   */
+  public BlockCacheType getBlockCacheType() {
+    return blockCacheType;
+  }
+
+  /**
+   * Gets write buffer budget.
+   *
+   * @return the write buffer budget
+   */
+  public long getWriteBufferBudget() {
+    return writeBufferBudget;
+  }
+
+  /**
+   * Gets snapshot max staleness.
+   *
+   * @return the age in millis up to which a snapshot is shared with new readers
+   */
+  public long getSnapshotMaxStalenessMillis() {
+    return snapshotMaxStalenessMillis;
+  }
+
+  /**
+   * Gets segment tuning profiles.
+   *
+   * @return the tuning profiles overriding the segment defaults, by segment name
+   */
+  public Map<String, SegmentTuningProfile> getSegmentTuningProfiles() {
+    return segmentTuningProfiles;
+  }
 }
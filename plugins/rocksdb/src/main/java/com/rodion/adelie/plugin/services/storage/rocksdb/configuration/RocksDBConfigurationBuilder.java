@@ -1,6 +1,8 @@
 package com.rodion.adelie.plugin.services.storage.rocksdb.configuration;
 
+import com.rodion.adelie.plugin.services.storage.SegmentTuningProfile;
 import java.nio.file.Path;
+import java.util.Map;
 
 /** The RocksDB configuration builder. */
 public class RocksDBConfigurationBuilder {
@@ -11,6 +13,10 @@ public class RocksDBConfigurationBuilder {
   private long cacheCapacity = RocksDBCLIOptions.DEFAULT_CACHE_CAPACITY;
   private int backgroundThreadCount = RocksDBCLIOptions.DEFAULT_BACKGROUND_THREAD_COUNT;
   private boolean isHighSpec = RocksDBCLIOptions.DEFAULT_IS_HIGH_SPEC;
+  private BlockCacheType blockCacheType = RocksDBCLIOptions.DEFAULT_BLOCK_CACHE_TYPE;
+  private long writeBufferBudget = RocksDBCLIOptions.DEFAULT_WRITE_BUFFER_BUDGET;
+  private long snapshotMaxStalenessMillis = RocksDBCLIOptions.DEFAULT_SNAPSHOT_MAX_STALENESS_MILLIS;
+  private Map<String, SegmentTuningProfile> segmentTuningProfiles = Map.of();
 
   /**
    * Database dir.
@@ -78,6 +84,53 @@ public class RocksDBConfigurationBuilder {
     return this;
   }
 
+  /**
+   * Block cache type.
+   *
+   * @param blockCacheType the block cache type
+   * @return the rocks db configuration builder
+   */
+  public RocksDBConfigurationBuilder blockCacheType(final BlockCacheType blockCacheType) {
+    this.blockCacheType = blockCacheType;
+    return this;
+  }
+
+  /**
+   * Write buffer budget.
+   *
+   * @param writeBufferBudget the write buffer budget
+   * @return the rocks db configuration builder
+   */
+  public RocksDBConfigurationBuilder writeBufferBudget(final long writeBufferBudget) {
+    this.writeBufferBudget = writeBufferBudget;
+    return this;
+  }
+
+  /**
+   * Snapshot max staleness.
+   *
+   * @param snapshotMaxStalenessMillis the age up to which a snapshot is shared with new readers
+   * @return the rocks db configuration builder
+   */
+  public RocksDBConfigurationBuilder snapshotMaxStalenessMillis(
+      final long snapshotMaxStalenessMillis) {
+    this.snapshotMaxStalenessMillis = snapshotMaxStalenessMillis;
+    return this;
+  }
+
+  /**
+   * Segment tuning profiles.
+   *
+   * @param segmentTuningProfiles the tuning profiles overriding the segment defaults, by segment
+   *     name
+   * @return the rocks db configuration builder
+   */
+  public RocksDBConfigurationBuilder segmentTuningProfiles(
+      final Map<String, SegmentTuningProfile> segmentTuningProfiles) {
+    this.segmentTuningProfiles = segmentTuningProfiles;
+    return this;
+  }
+
   /**
    * From.
    *
@@ -89,7 +142,11 @@ public class RocksDBConfigurationBuilder {
         .backgroundThreadCount(configuration.getBackgroundThreadCount())
         .cacheCapacity(configuration.getCacheCapacity())
         .maxOpenFiles(configuration.getMaxOpenFiles())
-        .isHighSpec(configuration.isHighSpec());
+        .isHighSpec(configuration.isHighSpec())
+        .blockCacheType(configuration.getBlockCacheType())
+        .writeBufferBudget(configuration.getWriteBufferBudget())
+        .snapshotMaxStalenessMillis(configuration.getSnapshotMaxStalenessMillis())
+        .segmentTuningProfiles(configuration.getSegmentTuningProfiles());
   }
 
   /**
@@ -99,6 +156,15 @@ public class RocksDBConfigurationBuilder {
    */
   public RocksDBConfiguration build() {
     return new RocksDBConfiguration(
-        databaseDir, maxOpenFiles, backgroundThreadCount, cacheCapacity, label, isHighSpec);
+        databaseDir,
+        maxOpenFiles,
+        backgroundThreadCount,
+        cacheCapacity,
+        label,
+        isHighSpec,
+        blockCacheType,
+        writeBufferBudget,
+        snapshotMaxStalenessMillis,
+        segmentTuningProfiles);
   }
 }
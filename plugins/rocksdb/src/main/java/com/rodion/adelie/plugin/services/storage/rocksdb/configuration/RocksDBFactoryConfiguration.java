@@ -1,5 +1,8 @@
 package com.rodion.adelie.plugin.services.storage.rocksdb.configuration;
 
+import com.rodion.adelie.plugin.services.storage.SegmentTuningProfile;
+import java.util.Map;
+
 /** The RocksDb factory configuration. */
 public class RocksDBFactoryConfiguration {
 
@@ -7,6 +10,10 @@ public class RocksDBFactoryConfiguration {
   private final int backgroundThreadCount;
   private final long cacheCapacity;
   private final boolean isHighSpec;
+  private final BlockCacheType blockCacheType;
+  private final long writeBufferBudget;
+  private final long snapshotMaxStalenessMillis;
+  private final Map<String, SegmentTuningProfile> segmentTuningProfiles;
 
   /**
    * Instantiates a new RocksDb factory configuration.
@@ -15,16 +22,29 @@ public class RocksDBFactoryConfiguration {
    * @param backgroundThreadCount the background thread count
    * @param cacheCapacity the cache capacity
    * @param isHighSpec the is high spec
+   * @param blockCacheType the block cache type
+   * @param writeBufferBudget the write buffer budget
+   * @param snapshotMaxStalenessMillis the age up to which a snapshot is shared with new readers
+   * @param segmentTuningProfiles the tuning profiles overriding the segment defaults, by segment
+   *     name
    */
   public RocksDBFactoryConfiguration(
       final int maxOpenFiles,
       final int backgroundThreadCount,
       final long cacheCapacity,
-      final boolean isHighSpec) {
+      final boolean isHighSpec,
+      final BlockCacheType blockCacheType,
+      final long writeBufferBudget,
+      final long snapshotMaxStalenessMillis,
+      final Map<String, SegmentTuningProfile> segmentTuningProfiles) {
     this.backgroundThreadCount = backgroundThreadCount;
     this.maxOpenFiles = maxOpenFiles;
     this.cacheCapacity = cacheCapacity;
     this.isHighSpec = isHighSpec;
+    this.blockCacheType = blockCacheType;
+    this.writeBufferBudget = writeBufferBudget;
+    this.snapshotMaxStalenessMillis = snapshotMaxStalenessMillis;
+    this.segmentTuningProfiles = Map.copyOf(segmentTuningProfiles);
   }
 
   /**
@@ -62,4 +82,40 @@ public class RocksDBFactoryConfiguration {
   public boolean isHighSpec() {
     return isHighSpec;
   }
+
+  /**
+   * Gets block cache type.
+   *
+   * @return the block cache type
+   */
+  public BlockCacheType getBlockCacheType() {
+    return blockCacheType;
+  }
+
+  /**
+   * Gets write buffer budget.
+   *
+   * @return the write buffer budget
+   */
+  public long getWriteBufferBudget() {
+    return writeBufferBudget;
+  }
+
+  /**
+   * Gets snapshot max staleness.
+   *
+   * @return the age in millis up to which a snapshot is shared with new readers
+   */
+  public long getSnapshotMaxStalenessMillis() {
+    return snapshotMaxStalenessMillis;
+  }
+
+  /**
+   * Gets segment tuning profiles.
+   *
+   * @return the tuning profiles overriding the segment defaults, by segment name
+   */
+  public Map<String, SegmentTuningProfile> getSegmentTuningProfiles() {
+    return segmentTuningProfiles;
+  }
 }
@@ -38,6 +38,8 @@ public class OptimisticRocksDBColumnarKeyValueStorage extends RocksDBColumnarKey
           OptimisticTransactionDB.open(
               options, configuration.getDatabaseDir().toString(), columnDescriptors, columnHandles);
       initColumnHandles();
+      snapshotManager =
+          new RocksDBSnapshotManager(db, configuration.getSnapshotMaxStalenessMillis());
 
     } catch (final RocksDBException e) {
       throw parseRocksDBException(e, segments, ignorableSegments);
@@ -75,6 +77,7 @@ public class OptimisticRocksDBColumnarKeyValueStorage extends RocksDBColumnarKey
   @Override
   public RocksDBColumnarKeyValueSnapshot takeSnapshot() throws StorageException {
     throwIfClosed();
-    return new RocksDBColumnarKeyValueSnapshot(db, this::safeColumnHandle);
+    return new RocksDBColumnarKeyValueSnapshot(
+        db, this::safeColumnHandle, snapshotManager.acquire());
   }
 }
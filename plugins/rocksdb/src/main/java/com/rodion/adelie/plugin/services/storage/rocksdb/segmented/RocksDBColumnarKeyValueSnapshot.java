@@ -3,11 +3,14 @@ package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
 import static java.util.stream.Collectors.toUnmodifiableSet;
 
 import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
 import com.rodion.adelie.plugin.services.storage.SnappedKeyValueStorage;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -18,7 +21,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tuweni.bytes.Bytes;
 import org.rocksdb.AbstractRocksIterator;
 import org.rocksdb.ColumnFamilyHandle;
-import org.rocksdb.OptimisticTransactionDB;
+import org.rocksdb.RocksDB;
 import org.rocksdb.RocksIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +33,7 @@ public class RocksDBColumnarKeyValueSnapshot
   private static final Logger LOG = LoggerFactory.getLogger(RocksDBColumnarKeyValueSnapshot.class);
 
   /** The Db. */
-  final OptimisticTransactionDB db;
+  final RocksDB db;
 
   /** The Snap tx. */
   final RocksDBSnapshotTransaction snapTx;
@@ -41,12 +44,15 @@ public class RocksDBColumnarKeyValueSnapshot
    * Instantiates a new RocksDb columnar key value snapshot.
    *
    * @param db the db
+   * @param columnFamilyMapper mapper from segment identifier to column family handle
+   * @param snapshot the snapshot read at, already marked for this snapshot
    */
   RocksDBColumnarKeyValueSnapshot(
-      final OptimisticTransactionDB db,
-      final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper) {
+      final RocksDB db,
+      final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper,
+      final RocksDBSnapshot snapshot) {
     this.db = db;
-    this.snapTx = new RocksDBSnapshotTransaction(db, columnFamilyMapper);
+    this.snapTx = new RocksDBSnapshotTransaction(db, columnFamilyMapper, snapshot);
   }
 
   @Override
@@ -56,6 +62,20 @@ public class RocksDBColumnarKeyValueSnapshot
     return snapTx.get(segment, key);
   }
 
+  @Override
+  public int get(final SegmentIdentifier segment, final ByteBuffer key, final ByteBuffer value)
+      throws StorageException {
+    throwIfClosed();
+    return snapTx.get(segment, key, value);
+  }
+
+  @Override
+  public List<Optional<byte[]>> multiGet(final SegmentIdentifier segment, final List<byte[]> keys)
+      throws StorageException {
+    throwIfClosed();
+    return snapTx.multiGet(segment, keys);
+  }
+
   @Override
   public Optional<NearestKeyValue> getNearestTo(
       final SegmentIdentifier segmentIdentifier, final Bytes key) throws StorageException {
@@ -86,6 +106,21 @@ public class RocksDBColumnarKeyValueSnapshot
     return snapTx.streamFromKey(segment, startKey, endKey);
   }
 
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segment,
+      final byte[] startKey,
+      final byte[] endKey,
+      final boolean prefixSameAsStart) {
+    return snapTx.streamFromKey(segment, startKey, endKey, prefixSameAsStart);
+  }
+
+  @Override
+  public KeyValueCursor cursor(final SegmentIdentifier segment) {
+    throwIfClosed();
+    return snapTx.cursor(segment);
+  }
+
   @Override
   public Stream<byte[]> streamKeys(final SegmentIdentifier segment) {
     throwIfClosed();
@@ -103,16 +138,25 @@ public class RocksDBColumnarKeyValueSnapshot
   @Override
   public Set<byte[]> getAllKeysThat(
       final SegmentIdentifier segment, final Predicate<byte[]> returnCondition) {
-    return streamKeys(segment).filter(returnCondition).collect(toUnmodifiableSet());
+    try (final Stream<Pair<byte[], byte[]>> entries = stream(segment)) {
+      return entries
+          .parallel()
+          .map(Pair::getKey)
+          .filter(returnCondition)
+          .collect(toUnmodifiableSet());
+    }
   }
 
   @Override
   public Set<byte[]> getAllValuesFromKeysThat(
       final SegmentIdentifier segment, final Predicate<byte[]> returnCondition) {
-    return stream(segment)
-        .filter(pair -> returnCondition.test(pair.getKey()))
-        .map(Pair::getValue)
-        .collect(toUnmodifiableSet());
+    try (final Stream<Pair<byte[], byte[]>> entries = stream(segment)) {
+      return entries
+          .parallel()
+          .filter(pair -> returnCondition.test(pair.getKey()))
+          .map(Pair::getValue)
+          .collect(toUnmodifiableSet());
+    }
   }
 
   @Override
@@ -5,14 +5,26 @@ import static java.util.stream.Collectors.toUnmodifiableSet;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Streams;
 import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentTuningProfile;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
 import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBIterator;
+import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBRangeSpliterator;
 import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBSegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBUtil;
+import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBWriteBatchTransaction;
 import com.rodion.adelie.plugin.services.storage.rocksdb.configuration.RocksDBConfiguration;
+import com.rodion.adelie.services.kvstore.SegmentedKeyValueStorageTransactionValidatorDecorator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -29,7 +41,21 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   private static final Logger logger =
       LoggerFactory.getLogger(RocksDBColumnarKeyValueStorage.class);
   private static final int ROCKSDB_FORMAT_VERSION = 5;
-  private static final long ROCKSDB_BLOCK_SIZE = 32768;
+  private static final long ROCKSDB_POINT_LOOKUP_BLOCK_SIZE = 16384;
+  private static final long ROCKSDB_SCAN_BLOCK_SIZE = 65536;
+  private static final long ROCKSDB_SMALL_HOT_SET_BLOCK_SIZE = 4096;
+
+  /** RocksDb default number of levels of a column family */
+  private static final int NUM_LEVELS = 7;
+
+  /** Fraction of the write buffer used by the memtable bloom filter of point lookup segments */
+  private static final double MEMTABLE_BLOOM_SIZE_RATIO = 0.1;
+
+  /** Nodes checked ahead of the last position before a full memtable seek, for sequential reads */
+  private static final long MEMTABLE_LOOKAHEAD = 8;
+
+  /** Upper bound on the key ranges a segment scan is partitioned into */
+  private static final int MAX_SCAN_RANGES = ForkJoinPool.getCommonPoolParallelism() * 4;
 
   /** RocksDb blockcache size when using the high spec option */
   protected static final long ROCKSDB_BLOCKCACHE_SIZE_HIGH_SPEC = 1_073_741_824L;
@@ -49,6 +75,9 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   /** RocksDb Time to roll a log file (1 day = 3600 * 24 seconds) */
   private static final long TIME_TO_ROLL_LOG_FILE = 86_400L;
 
+  /** Size at which an SST file written for ingestion is finished and the next one started */
+  private static final long INGEST_FILE_SIZE = 268_435_456L;
+
   static {
     RocksDBUtil.loadNativeLibrary();
   }
@@ -59,7 +88,10 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   private final WriteOptions tryDeleteOptions =
       new WriteOptions().setNoSlowdown(true).setIgnoreMissingColumnFamilies(true);
 
-  private final ReadOptions readOptions = new ReadOptions().setVerifyChecksums(false);
+  // auto prefix mode keeps reads crossing key prefixes in total order, and still filters by prefix
+  // when the bounds of a read lie within one prefix
+  private final ReadOptions readOptions =
+      new ReadOptions().setVerifyChecksums(false).setAutoPrefixMode(true);
 
   private final RocksDBConfiguration configuration;
 
@@ -72,6 +104,12 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   /** RocksDb statistics */
   protected final Statistics stats = new Statistics();
 
+  /** Block cache shared by all column families */
+  protected Cache blockCache;
+
+  /** Memtable budget shared by all column families, charged against the block cache */
+  protected WriteBufferManager writeBufferManager;
+
   /** Map of the columns handles by name */
   protected Map<SegmentIdentifier, RocksDBSegmentIdentifier> columnHandlesBySegmentIdentifier;
 
@@ -84,6 +122,9 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   /** Trimmed segments */
   protected List<SegmentIdentifier> trimmedSegments;
 
+  /** Shares snapshots between readers, created by the subclass once the database is open. */
+  RocksDBSnapshotManager snapshotManager;
+
   /**
    * Instantiates a new Rocks db columnar key value storage.
    *
@@ -111,6 +152,7 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
                   existingColumnFamilies.stream()
                       .noneMatch(existed -> Arrays.equals(existed, ignorableSegment.getId())))
           .forEach(trimmedSegments::remove);
+      blockCache = createBlockCache(configuration, trimmedSegments);
       columnDescriptors =
           trimmedSegments.stream()
               .map(segment -> createColumnDescriptor(segment, configuration))
@@ -136,6 +178,7 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   private ColumnFamilyDescriptor createColumnDescriptor(
       final SegmentIdentifier segment, final RocksDBConfiguration configuration) {
 
+    final SegmentTuningProfile profile = tuningProfile(segment, configuration);
     BlockBasedTableConfig basedTableConfig = createBlockBasedTableConfig(segment, configuration);
 
     final var options =
@@ -144,6 +187,49 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
             .setCompressionType(CompressionType.LZ4_COMPRESSION)
             .setTableFormatConfig(basedTableConfig);
 
+    switch (profile) {
+      case POINT_LOOKUP ->
+          options
+              .setCompactionStyle(CompactionStyle.LEVEL)
+              .setLevelCompactionDynamicLevelBytes(true)
+              .setCompressionPerLevel(compressionPerLevel(2, CompressionType.LZ4_COMPRESSION))
+              .setMemtablePrefixBloomSizeRatio(MEMTABLE_BLOOM_SIZE_RATIO)
+              .setMemtableWholeKeyFiltering(true);
+      case SCAN ->
+          options
+              .setCompactionStyle(CompactionStyle.LEVEL)
+              .setLevelCompactionDynamicLevelBytes(true)
+              .setCompressionPerLevel(compressionPerLevel(0, CompressionType.LZ4_COMPRESSION))
+              .setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION)
+              .setMemTableConfig(new SkipListMemTableConfig().setLookahead(MEMTABLE_LOOKAHEAD));
+      case TIME_SERIES ->
+          options
+              .setCompactionStyle(CompactionStyle.UNIVERSAL)
+              .setCompressionPerLevel(compressionPerLevel(1, CompressionType.LZ4_COMPRESSION))
+              .setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION)
+              .setMemTableConfig(new SkipListMemTableConfig().setLookahead(MEMTABLE_LOOKAHEAD));
+      case SMALL_HOT_SET ->
+          options
+              .setCompactionStyle(CompactionStyle.LEVEL)
+              .setLevelCompactionDynamicLevelBytes(true)
+              .setCompressionPerLevel(
+                  compressionPerLevel(NUM_LEVELS, CompressionType.NO_COMPRESSION))
+              .setMemtablePrefixBloomSizeRatio(MEMTABLE_BLOOM_SIZE_RATIO)
+              .setMemtableWholeKeyFiltering(true);
+    }
+
+    segment
+        .getKeyPrefix()
+        .ifPresent(
+            keyPrefix -> {
+              if (keyPrefix.capped()) {
+                options.useCappedPrefixExtractor(keyPrefix.length());
+              } else {
+                options.useFixedLengthPrefixExtractor(keyPrefix.length());
+              }
+              options.setMemtablePrefixBloomSizeRatio(MEMTABLE_BLOOM_SIZE_RATIO);
+            });
+
     if (segment.containsStaticData()) {
       options
           .setEnableBlobFiles(true)
@@ -155,6 +241,28 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
     return new ColumnFamilyDescriptor(segment.getId(), options);
   }
 
+  /***
+   * Create the block cache shared by all column families, so that hot segments can take cache from
+   * cold ones and the total size is bounded by a single capacity
+   *
+   * @param config RocksDB configuration
+   * @param segments the segments opened in the database
+   * @return the shared block cache
+   */
+  private static Cache createBlockCache(
+      final RocksDBConfiguration config, final List<SegmentIdentifier> segments) {
+    final long capacity =
+        config.isHighSpec()
+                && segments.stream().anyMatch(SegmentIdentifier::isEligibleToHighSpecFlag)
+            ? Math.max(config.getCacheCapacity(), ROCKSDB_BLOCKCACHE_SIZE_HIGH_SPEC)
+            : config.getCacheCapacity();
+    return switch (config.getBlockCacheType()) {
+      case LRU -> new LRUCache(capacity);
+        // an estimated entry charge of 0 lets RocksDB size the table automatically
+      case HYPER_CLOCK -> new HyperClockCache(capacity, 0, -1, false);
+    };
+  }
+
   /***
    * Create a Block Base Table configuration for each segment, depending on the configuration in place
    * and the segment itself
@@ -165,18 +273,57 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
    */
   private BlockBasedTableConfig createBlockBasedTableConfig(
       final SegmentIdentifier segment, final RocksDBConfiguration config) {
-    final LRUCache cache =
-        new LRUCache(
-            config.isHighSpec() && segment.isEligibleToHighSpecFlag()
-                ? ROCKSDB_BLOCKCACHE_SIZE_HIGH_SPEC
-                : config.getCacheCapacity());
-    return new BlockBasedTableConfig()
-        .setFormatVersion(ROCKSDB_FORMAT_VERSION)
-        .setBlockCache(cache)
-        .setFilterPolicy(new BloomFilter(10, false))
-        .setPartitionFilters(true)
-        .setCacheIndexAndFilterBlocks(false)
-        .setBlockSize(ROCKSDB_BLOCK_SIZE);
+    final BlockBasedTableConfig tableConfig =
+        new BlockBasedTableConfig()
+            .setFormatVersion(ROCKSDB_FORMAT_VERSION)
+            .setBlockCache(blockCache)
+            .setFilterPolicy(new BloomFilter(10, false))
+            .setPartitionFilters(true)
+            .setCacheIndexAndFilterBlocks(false);
+    return switch (tuningProfile(segment, config)) {
+      case POINT_LOOKUP ->
+          tableConfig
+              .setBlockSize(ROCKSDB_POINT_LOOKUP_BLOCK_SIZE)
+              .setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash);
+      case SCAN, TIME_SERIES -> tableConfig.setBlockSize(ROCKSDB_SCAN_BLOCK_SIZE);
+      case SMALL_HOT_SET ->
+          tableConfig
+              .setBlockSize(ROCKSDB_SMALL_HOT_SET_BLOCK_SIZE)
+              .setCacheIndexAndFilterBlocks(true)
+              .setPinL0FilterAndIndexBlocksInCache(true);
+    };
+  }
+
+  /**
+   * Resolve the tuning profile of a segment, a profile configured for the segment name takes
+   * precedence over the one declared by the segment itself
+   *
+   * @param segment the segment identifier
+   * @param config RocksDB configuration
+   * @return the tuning profile to apply to the segment column family
+   */
+  private static SegmentTuningProfile tuningProfile(
+      final SegmentIdentifier segment, final RocksDBConfiguration config) {
+    return config
+        .getSegmentTuningProfiles()
+        .getOrDefault(segment.getName(), segment.getTuningProfile());
+  }
+
+  /**
+   * Build the per level compression of a column family, leaving the first levels uncompressed so
+   * that flushes and the first compactions of fresh data stay cheap
+   *
+   * @param uncompressedLevels the number of uncompressed levels, starting at L0
+   * @param compression the compression of the remaining levels
+   * @return the compression type of each level
+   */
+  private static List<CompressionType> compressionPerLevel(
+      final int uncompressedLevels, final CompressionType compression) {
+    final List<CompressionType> levels = new ArrayList<>(NUM_LEVELS);
+    for (int level = 0; level < NUM_LEVELS; level++) {
+      levels.add(level < uncompressedLevels ? CompressionType.NO_COMPRESSION : compression);
+    }
+    return levels;
   }
 
   /***
@@ -186,11 +333,18 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
    * @param stats The statistics object
    */
   private void setGlobalOptions(final RocksDBConfiguration configuration, final Statistics stats) {
+    writeBufferManager =
+        new WriteBufferManager(
+            configuration.isHighSpec()
+                ? Math.max(configuration.getWriteBufferBudget(), ROCKSDB_MEMTABLE_SIZE_HIGH_SPEC)
+                : configuration.getWriteBufferBudget(),
+            blockCache);
     options = new DBOptions();
     options
         .setCreateIfMissing(true)
         .setMaxOpenFiles(configuration.getMaxOpenFiles())
         .setStatistics(stats)
+        .setWriteBufferManager(writeBufferManager)
         .setCreateMissingColumnFamilies(true)
         .setLogFileTimeToRoll(TIME_TO_ROLL_LOG_FILE)
         .setKeepLogFileNum(NUMBER_OF_LOG_FILES_TO_KEEP)
@@ -298,12 +452,144 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
     }
   }
 
+  @Override
+  public int get(final SegmentIdentifier segment, final ByteBuffer key, final ByteBuffer value)
+      throws StorageException {
+    throwIfClosed();
+
+    try {
+      return getDB().get(safeColumnHandle(segment), readOptions, key, value);
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public List<Optional<byte[]>> multiGet(final SegmentIdentifier segment, final List<byte[]> keys)
+      throws StorageException {
+    throwIfClosed();
+    if (keys.isEmpty()) {
+      return List.of();
+    }
+
+    try {
+      return getDB()
+          .multiGetAsList(
+              readOptions, Collections.nCopies(keys.size(), safeColumnHandle(segment)), keys)
+          .stream()
+          .map(Optional::ofNullable)
+          .toList();
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public SegmentedKeyValueStorageTransaction startBatch(final WriteDurability durability)
+      throws StorageException {
+    throwIfClosed();
+    final WriteOptions writeOptions =
+        new WriteOptions()
+            .setIgnoreMissingColumnFamilies(true)
+            .setDisableWAL(durability == WriteDurability.NO_WAL)
+            .setSync(durability == WriteDurability.WAL_SYNC);
+    return new SegmentedKeyValueStorageTransactionValidatorDecorator(
+        new RocksDBWriteBatchTransaction(
+            this::safeColumnHandle, getDB(), new WriteBatch(), writeOptions),
+        this.closed::get);
+  }
+
+  /**
+   * Writes the entries to SST files next to the database and ingests them into the column family in
+   * one atomic step. The files are moved into the database rather than copied, and RocksDB assigns
+   * them a sequence number above any key they overlap, so ingested values replace existing ones
+   * while the database stays open for reads and writes. Nothing goes through the memtable or the
+   * write-ahead log.
+   */
+  @Override
+  public void ingest(
+      final SegmentIdentifier segment, final Iterator<Pair<byte[], byte[]>> sortedEntries)
+      throws StorageException {
+    throwIfClosed();
+    final ColumnFamilyHandle handle = safeColumnHandle(segment);
+    final Path ingestDir;
+    try {
+      ingestDir = Files.createTempDirectory(configuration.getDatabaseDir(), "ingest");
+    } catch (final IOException e) {
+      throw new StorageException("Unable to create the ingestion directory", e);
+    }
+    final List<String> files = new ArrayList<>();
+    try (final EnvOptions envOptions = new EnvOptions();
+        final Options sstOptions = new Options(options, columnOptions(segment));
+        final IngestExternalFileOptions ingestOptions =
+            new IngestExternalFileOptions()
+                .setMoveFiles(true)
+                .setAllowGlobalSeqNo(true)
+                .setAllowBlockingFlush(true)) {
+      SstFileWriter writer = null;
+      try {
+        while (sortedEntries.hasNext()) {
+          if (writer == null) {
+            final String file = ingestDir.resolve(files.size() + ".sst").toString();
+            writer = new SstFileWriter(envOptions, sstOptions);
+            writer.open(file);
+            files.add(file);
+          }
+          final Pair<byte[], byte[]> entry = sortedEntries.next();
+          writer.put(entry.getKey(), entry.getValue());
+          if (writer.fileSize() >= INGEST_FILE_SIZE) {
+            writer.finish();
+            writer.close();
+            writer = null;
+          }
+        }
+        if (writer != null) {
+          writer.finish();
+        }
+      } finally {
+        if (writer != null) {
+          writer.close();
+        }
+      }
+      if (!files.isEmpty()) {
+        getDB().ingestExternalFile(handle, files, ingestOptions);
+      }
+      logger.debug("Ingested {} SST files into {}", files.size(), segment.getName());
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    } finally {
+      deleteIngestDir(ingestDir);
+    }
+  }
+
+  private ColumnFamilyOptions columnOptions(final SegmentIdentifier segment) {
+    return columnDescriptors.stream()
+        .filter(descriptor -> Arrays.equals(descriptor.getName(), segment.getId()))
+        .map(ColumnFamilyDescriptor::getOptions)
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new StorageException("Column options not found for segment " + segment.getName()));
+  }
+
+  // moved files are gone, only the files of a failed ingestion are left
+  private static void deleteIngestDir(final Path ingestDir) {
+    try (final Stream<Path> files = Files.list(ingestDir)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(ingestDir);
+    } catch (final IOException e) {
+      logger.warn("Unable to delete ingestion directory {}", ingestDir, e);
+    }
+  }
+
   @Override
   public Optional<NearestKeyValue> getNearestTo(
       final SegmentIdentifier segmentIdentifier, final Bytes key) throws StorageException {
 
     try (final RocksIterator rocksIterator =
-        getDB().newIterator(safeColumnHandle(segmentIdentifier))) {
+        getDB().newIterator(safeColumnHandle(segmentIdentifier), readOptions)) {
       rocksIterator.seekForPrev(key.toArrayUnsafe());
       return Optional.of(rocksIterator)
           .filter(AbstractRocksIterator::isValid)
@@ -311,17 +597,39 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
     }
   }
 
+  /**
+   * Returns a stream of all entries of the segment. The segment is partitioned into key ranges at
+   * SST file boundaries, each read by its own iterator, so the stream scales across cores when made
+   * parallel. All ranges read from one snapshot, released once every range is exhausted or the
+   * stream is closed. The stream must be closed: one left open after a short-circuiting operation
+   * such as findFirst pins the snapshot, and compaction keeps every version it can see.
+   *
+   * @param segmentIdentifier The segment identifier whose keys we want to stream.
+   * @return A stream of all entries in the specified segment.
+   */
   @Override
   public Stream<Pair<byte[], byte[]>> stream(final SegmentIdentifier segmentIdentifier) {
-    final RocksIterator rocksIterator = getDB().newIterator(safeColumnHandle(segmentIdentifier));
-    rocksIterator.seekToFirst();
-    return RocksDBIterator.create(rocksIterator).toStream();
+    throwIfClosed();
+    final RocksDB db = getDB();
+    final ColumnFamilyHandle handle = safeColumnHandle(segmentIdentifier);
+    final Snapshot snapshot = db.getSnapshot();
+    final ReadOptions scanReadOptions = new ReadOptions(readOptions).setSnapshot(snapshot);
+    return RocksDBRangeSpliterator.stream(
+        rangeReadOptions -> db.newIterator(handle, rangeReadOptions),
+        scanReadOptions,
+        RocksDBRangeSpliterator.partitionBoundaries(
+            db.getColumnFamilyMetaData(handle), MAX_SCAN_RANGES),
+        () -> {
+          scanReadOptions.close();
+          db.releaseSnapshot(snapshot);
+        });
   }
 
   @Override
   public Stream<Pair<byte[], byte[]>> streamFromKey(
       final SegmentIdentifier segmentIdentifier, final byte[] startKey) {
-    final RocksIterator rocksIterator = getDB().newIterator(safeColumnHandle(segmentIdentifier));
+    final RocksIterator rocksIterator =
+        getDB().newIterator(safeColumnHandle(segmentIdentifier), readOptions);
     rocksIterator.seek(startKey);
     return RocksDBIterator.create(rocksIterator).toStream();
   }
@@ -329,17 +637,67 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   @Override
   public Stream<Pair<byte[], byte[]>> streamFromKey(
       final SegmentIdentifier segmentIdentifier, final byte[] startKey, final byte[] endKey) {
-    final Bytes endKeyBytes = Bytes.wrap(endKey);
-    final RocksIterator rocksIterator = getDB().newIterator(safeColumnHandle(segmentIdentifier));
-    rocksIterator.seek(startKey);
-    return RocksDBIterator.create(rocksIterator)
-        .toStream()
-        .takeWhile(e -> endKeyBytes.compareTo(Bytes.wrap(e.getKey())) >= 0);
+    return streamFromKey(segmentIdentifier, startKey, endKey, false);
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier,
+      final byte[] startKey,
+      final byte[] endKey,
+      final boolean prefixSameAsStart) {
+    throwIfClosed();
+    final ColumnFamilyHandle handle = safeColumnHandle(segmentIdentifier);
+    return RocksDBIterator.createBounded(
+            boundedReadOptions -> getDB().newIterator(handle, boundedReadOptions),
+            readOptions,
+            startKey,
+            endKey,
+            prefixSameAsStart)
+        .toStream();
+  }
+
+  /**
+   * Returns a stream of the entries whose keys start with the prefix. When the prefix is the key
+   * prefix of the segment, SST files and memtables are filtered by prefix bloom filters, so files
+   * holding none of its keys are skipped without reading their data blocks.
+   *
+   * @param segmentIdentifier The segment identifier whose keys we want to stream.
+   * @param prefix The prefix shared by the keys to stream.
+   * @return A stream of the entries with the specified prefix.
+   */
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamByPrefix(
+      final SegmentIdentifier segmentIdentifier, final byte[] prefix) {
+    throwIfClosed();
+    final ColumnFamilyHandle handle = safeColumnHandle(segmentIdentifier);
+    return RocksDBIterator.createPrefix(
+            prefixReadOptions -> getDB().newIterator(handle, prefixReadOptions),
+            readOptions,
+            prefix,
+            isKeyPrefix(segmentIdentifier, prefix))
+        .toStream();
+  }
+
+  // any other prefix may span several extracted prefixes, so only the bounds apply
+  private static boolean isKeyPrefix(final SegmentIdentifier segment, final byte[] prefix) {
+    return segment
+        .getKeyPrefix()
+        .filter(keyPrefix -> prefix.length == keyPrefix.length())
+        .isPresent();
+  }
+
+  @Override
+  public KeyValueCursor cursor(final SegmentIdentifier segmentIdentifier) {
+    throwIfClosed();
+    return RocksDBIterator.create(
+        getDB().newIterator(safeColumnHandle(segmentIdentifier), readOptions));
   }
 
   @Override
   public Stream<byte[]> streamKeys(final SegmentIdentifier segmentIdentifier) {
-    final RocksIterator rocksIterator = getDB().newIterator(safeColumnHandle(segmentIdentifier));
+    final RocksIterator rocksIterator =
+        getDB().newIterator(safeColumnHandle(segmentIdentifier), readOptions);
     rocksIterator.seekToFirst();
     return RocksDBIterator.create(rocksIterator).toStreamKeys();
   }
@@ -361,19 +719,25 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   @Override
   public Set<byte[]> getAllKeysThat(
       final SegmentIdentifier segmentIdentifier, final Predicate<byte[]> returnCondition) {
-    return stream(segmentIdentifier)
-        .filter(pair -> returnCondition.test(pair.getKey()))
-        .map(Pair::getKey)
-        .collect(toUnmodifiableSet());
+    try (final Stream<Pair<byte[], byte[]>> entries = stream(segmentIdentifier)) {
+      return entries
+          .parallel()
+          .filter(pair -> returnCondition.test(pair.getKey()))
+          .map(Pair::getKey)
+          .collect(toUnmodifiableSet());
+    }
   }
 
   @Override
   public Set<byte[]> getAllValuesFromKeysThat(
       final SegmentIdentifier segmentIdentifier, final Predicate<byte[]> returnCondition) {
-    return stream(segmentIdentifier)
-        .filter(pair -> returnCondition.test(pair.getKey()))
-        .map(Pair::getValue)
-        .collect(toUnmodifiableSet());
+    try (final Stream<Pair<byte[], byte[]>> entries = stream(segmentIdentifier)) {
+      return entries
+          .parallel()
+          .filter(pair -> returnCondition.test(pair.getKey()))
+          .map(Pair::getValue)
+          .collect(toUnmodifiableSet());
+    }
   }
 
   @Override
@@ -385,6 +749,9 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
   @Override
   public void close() {
     if (closed.compareAndSet(false, true)) {
+      if (snapshotManager != null) {
+        snapshotManager.close();
+      }
       txOptions.close();
       options.close();
       tryDeleteOptions.close();
@@ -392,6 +759,8 @@ public abstract class RocksDBColumnarKeyValueStorage implements SegmentedKeyValu
           .map(RocksDBSegmentIdentifier::get)
           .forEach(ColumnFamilyHandle::close);
       getDB().close();
+      writeBufferManager.close();
+      blockCache.close();
     }
   }
 
@@ -2,6 +2,7 @@ package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
 
 import com.google.common.base.Supplier;
 import com.rodion.adelie.plugin.services.AdelieConfiguration;
+import com.rodion.adelie.plugin.services.MetricsSystem;
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
 import com.rodion.adelie.plugin.services.storage.KeyValueStorageFactory;
@@ -46,20 +47,39 @@ public class RocksDBKeyValueStorageFactory implements KeyValueStorageFactory {
 
   private final List<SegmentIdentifier> ignorableSegments;
 
+  private final MetricsSystem metricsSystem;
+
   /**
    * Instantiates a new RocksDb key value storage factory.
    *
    * @param configuration the configuration
    * @param configuredSegments the segments
    * @param ignorableSegments the ignorable segments
+   * @param metricsSystem the metrics system the storage statistics are published to
    */
   public RocksDBKeyValueStorageFactory(
       final Supplier<RocksDBFactoryConfiguration> configuration,
       final List<SegmentIdentifier> configuredSegments,
-      final List<SegmentIdentifier> ignorableSegments) {
+      final List<SegmentIdentifier> ignorableSegments,
+      final MetricsSystem metricsSystem) {
     this.configuration = configuration;
     this.configuredSegments = configuredSegments;
     this.ignorableSegments = ignorableSegments;
+    this.metricsSystem = metricsSystem;
+  }
+
+  /**
+   * Instantiates a new RocksDb key value storage factory.
+   *
+   * @param configuration the configuration
+   * @param configuredSegments the segments
+   * @param ignorableSegments the ignorable segments
+   */
+  public RocksDBKeyValueStorageFactory(
+      final Supplier<RocksDBFactoryConfiguration> configuration,
+      final List<SegmentIdentifier> configuredSegments,
+      final List<SegmentIdentifier> ignorableSegments) {
+    this(configuration, configuredSegments, ignorableSegments, MetricsSystem.NO_OP);
   }
 
   /**
@@ -129,6 +149,7 @@ public class RocksDBKeyValueStorageFactory implements KeyValueStorageFactory {
                   rocksDBConfiguration, segmentsForFormat, ignorableSegments);
         }
       }
+      RocksDBMetrics.register(metricsSystem, rocksDBConfiguration.getLabel(), segmentedStorage);
     }
     return segmentedStorage;
   }
@@ -0,0 +1,157 @@
+package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
+
+import com.rodion.adelie.plugin.services.MetricsSystem;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBSegmentIdentifier;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+import org.rocksdb.HistogramData;
+import org.rocksdb.HistogramType;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.TickerType;
+
+/**
+ * Publishes the RocksDB statistics of a columnar storage, and the properties of each of its column
+ * families, as gauges. Values are sampled from RocksDB each time the metrics are scraped.
+ */
+class RocksDBMetrics {
+
+  private static final List<TickerType> TICKERS =
+      List.of(
+          TickerType.BLOCK_CACHE_HIT,
+          TickerType.BLOCK_CACHE_MISS,
+          TickerType.MEMTABLE_HIT,
+          TickerType.MEMTABLE_MISS,
+          TickerType.BLOOM_FILTER_USEFUL,
+          TickerType.NUMBER_KEYS_READ,
+          TickerType.NUMBER_KEYS_WRITTEN,
+          TickerType.BYTES_READ,
+          TickerType.BYTES_WRITTEN,
+          TickerType.STALL_MICROS);
+
+  private static final List<HistogramType> HISTOGRAMS =
+      List.of(
+          HistogramType.DB_GET,
+          HistogramType.DB_MULTIGET,
+          HistogramType.DB_WRITE,
+          HistogramType.DB_SEEK,
+          HistogramType.COMPACTION_TIME,
+          HistogramType.WRITE_STALL);
+
+  private static final List<String> COLUMN_FAMILY_PROPERTIES =
+      List.of(
+          "rocksdb.cur-size-all-mem-tables",
+          "rocksdb.num-immutable-mem-table",
+          "rocksdb.estimate-pending-compaction-bytes",
+          "rocksdb.estimate-num-keys",
+          "rocksdb.live-sst-files-size",
+          "rocksdb.block-cache-usage");
+
+  private RocksDBMetrics() {}
+
+  /**
+   * Register the gauges of a storage with the metrics system.
+   *
+   * @param metricsSystem the metrics system
+   * @param label the label of the database, distinguishing several storages
+   * @param storage the storage to sample
+   */
+  static void register(
+      final MetricsSystem metricsSystem,
+      final String label,
+      final RocksDBColumnarKeyValueStorage storage) {
+    final Map<String, String> databaseLabels = Map.of("database", label);
+
+    for (final TickerType ticker : TICKERS) {
+      metricsSystem.createGauge(
+          "rocksdb_" + ticker.name().toLowerCase(Locale.ROOT),
+          "RocksDB ticker " + ticker.name(),
+          databaseLabels,
+          whileOpen(storage, () -> storage.stats.getTickerCount(ticker)));
+    }
+
+    metricsSystem.createGauge(
+        "rocksdb_block_cache_hit_rate",
+        "Ratio of block cache hits to block cache lookups",
+        databaseLabels,
+        whileOpen(
+            storage,
+            () -> {
+              final double hits = storage.stats.getTickerCount(TickerType.BLOCK_CACHE_HIT);
+              final double misses = storage.stats.getTickerCount(TickerType.BLOCK_CACHE_MISS);
+              return hits + misses == 0 ? Double.NaN : hits / (hits + misses);
+            }));
+
+    for (final HistogramType histogram : HISTOGRAMS) {
+      final String name = "rocksdb_" + histogram.name().toLowerCase(Locale.ROOT) + "_micros";
+      final String help = "RocksDB histogram " + histogram.name() + " in microseconds";
+      registerQuantile(
+          metricsSystem, storage, name, help, label, histogram, "0.5", HistogramData::getMedian);
+      registerQuantile(
+          metricsSystem,
+          storage,
+          name,
+          help,
+          label,
+          histogram,
+          "0.95",
+          HistogramData::getPercentile95);
+      registerQuantile(
+          metricsSystem,
+          storage,
+          name,
+          help,
+          label,
+          histogram,
+          "0.99",
+          HistogramData::getPercentile99);
+      registerQuantile(
+          metricsSystem, storage, name, help, label, histogram, "1", HistogramData::getMax);
+    }
+
+    for (final Map.Entry<SegmentIdentifier, RocksDBSegmentIdentifier> segment :
+        storage.columnHandlesBySegmentIdentifier.entrySet()) {
+      final Map<String, String> segmentLabels =
+          Map.of("database", label, "segment", segment.getKey().getName());
+      for (final String property : COLUMN_FAMILY_PROPERTIES) {
+        metricsSystem.createGauge(
+            property.replace('.', '_').replace('-', '_'),
+            "RocksDB column family property " + property,
+            segmentLabels,
+            whileOpen(
+                storage,
+                () -> {
+                  try {
+                    return storage.getDB().getLongProperty(segment.getValue().get(), property);
+                  } catch (final RocksDBException e) {
+                    return Double.NaN;
+                  }
+                }));
+      }
+    }
+  }
+
+  private static void registerQuantile(
+      final MetricsSystem metricsSystem,
+      final RocksDBColumnarKeyValueStorage storage,
+      final String name,
+      final String help,
+      final String label,
+      final HistogramType histogram,
+      final String quantile,
+      final ToDoubleFunction<HistogramData> value) {
+    metricsSystem.createGauge(
+        name,
+        help,
+        Map.of("database", label, "quantile", quantile),
+        whileOpen(storage, () -> value.applyAsDouble(storage.stats.getHistogramData(histogram))));
+  }
+
+  private static DoubleSupplier whileOpen(
+      final RocksDBColumnarKeyValueStorage storage, final DoubleSupplier valueSupplier) {
+    return () -> storage.isClosed() ? Double.NaN : valueSupplier.getAsDouble();
+  }
+}
@@ -1,34 +1,82 @@
 package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
 
+import com.rodion.adelie.plugin.services.exception.StorageException;
 import java.util.concurrent.atomic.AtomicInteger;
-import org.rocksdb.OptimisticTransactionDB;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
 import org.rocksdb.Snapshot;
 
 /**
- * Wraps and reference counts a Snapshot object from an OptimisticTransactionDB such that it can be
- * used as the basis of multiple RocksDBSnapshotTransaction's, and released once it is no longer in
- * use.
+ * Wraps and reference counts a Snapshot object from a transactional RocksDB, with the read options
+ * reading at it, such that it can be used as the basis of multiple RocksDBSnapshotTransaction's,
+ * and released once it is no longer in use. Counting is lock free, once the count drops to zero the
+ * snapshot is released and can no longer be marked.
  */
 class RocksDBSnapshot {
 
-  private final OptimisticTransactionDB db;
+  private static final int RELEASED = -1;
+
+  private final RocksDB db;
   private final Snapshot dbSnapshot;
+  private final ReadOptions readOptions;
+  private final long takenNanos;
   private final AtomicInteger usages = new AtomicInteger(0);
 
-  RocksDBSnapshot(final OptimisticTransactionDB db) {
+  RocksDBSnapshot(final RocksDB db) {
     this.db = db;
     this.dbSnapshot = db.getSnapshot();
+    this.readOptions =
+        new ReadOptions().setVerifyChecksums(false).setAutoPrefixMode(true).setSnapshot(dbSnapshot);
+    this.takenNanos = System.nanoTime();
   }
 
-  synchronized Snapshot markAndUseSnapshot() {
-    usages.incrementAndGet();
+  /**
+   * Mark a new usage of the snapshot, unless it was already released.
+   *
+   * @return true if the snapshot was marked
+   */
+  boolean tryMarkSnapshot() {
+    int current = usages.get();
+    while (current != RELEASED) {
+      if (usages.compareAndSet(current, current + 1)) {
+        return true;
+      }
+      current = usages.get();
+    }
+    return false;
+  }
+
+  Snapshot markAndUseSnapshot() {
+    if (!tryMarkSnapshot()) {
+      throw new StorageException("Snapshot has already been released");
+    }
     return dbSnapshot;
   }
 
-  synchronized void unMarkSnapshot() {
-    if (usages.decrementAndGet() < 1) {
+  void unMarkSnapshot() {
+    // a concurrent mark may take the count back up from zero, in which case it releases it later
+    if (usages.decrementAndGet() == 0 && usages.compareAndSet(0, RELEASED)) {
+      readOptions.close();
       db.releaseSnapshot(dbSnapshot);
       dbSnapshot.close();
     }
   }
+
+  /**
+   * Gets the read options reading at the snapshot, shared by every usage and closed on release.
+   *
+   * @return the read options
+   */
+  ReadOptions getReadOptions() {
+    return readOptions;
+  }
+
+  /**
+   * Gets when the snapshot was taken.
+   *
+   * @return the {@link System#nanoTime()} the snapshot was taken at
+   */
+  long getTakenNanos() {
+    return takenNanos;
+  }
 }
@@ -0,0 +1,100 @@
+package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.rocksdb.RocksDB;
+
+/**
+ * Hands out snapshots of a RocksDB, sharing one snapshot between every reader that starts within a
+ * staleness window of it being taken, so that readers refreshing together pin one snapshot rather
+ * than one each. The manager holds a reference to the current snapshot and each reader holds one
+ * until it closes; the manager drops its reference once the snapshot ages out of the window, and
+ * the snapshot is released when its last reader is done.
+ *
+ * <p>A window of zero disables sharing, every reader then gets a snapshot of its own.
+ */
+class RocksDBSnapshotManager implements AutoCloseable {
+
+  private final RocksDB db;
+  private final long maxStalenessNanos;
+  private final AtomicReference<RocksDBSnapshot> current = new AtomicReference<>();
+  private final ScheduledExecutorService expiry;
+
+  /**
+   * Instantiates a new RocksDb snapshot manager.
+   *
+   * @param db the transactional db
+   * @param maxStalenessMillis the age up to which a snapshot is shared with new readers
+   */
+  RocksDBSnapshotManager(final RocksDB db, final long maxStalenessMillis) {
+    checkArgument(maxStalenessMillis >= 0, "Snapshot max staleness must not be negative");
+    this.db = db;
+    this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+    this.expiry =
+        maxStalenessMillis == 0
+            ? null
+            : Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                  final Thread thread = new Thread(runnable, "RocksDBSnapshotManager-Expiry");
+                  thread.setDaemon(true);
+                  return thread;
+                });
+  }
+
+  /**
+   * Acquire a snapshot, marked for the caller who must unmark it once done.
+   *
+   * @return the snapshot
+   */
+  RocksDBSnapshot acquire() {
+    if (expiry == null) {
+      final RocksDBSnapshot snapshot = new RocksDBSnapshot(db);
+      snapshot.markAndUseSnapshot();
+      return snapshot;
+    }
+    while (true) {
+      final RocksDBSnapshot shared = current.get();
+      if (shared != null
+          && System.nanoTime() - shared.getTakenNanos() <= maxStalenessNanos
+          && shared.tryMarkSnapshot()) {
+        return shared;
+      }
+      // none, or too old: take a fresh one, marked for the manager and the caller
+      final RocksDBSnapshot fresh = new RocksDBSnapshot(db);
+      fresh.markAndUseSnapshot();
+      fresh.markAndUseSnapshot();
+      if (current.compareAndSet(shared, fresh)) {
+        if (shared != null) {
+          shared.unMarkSnapshot();
+        }
+        expiry.schedule(() -> expire(fresh), maxStalenessNanos, TimeUnit.NANOSECONDS);
+        return fresh;
+      }
+      // another reader installed a snapshot first, use theirs
+      fresh.unMarkSnapshot();
+      fresh.unMarkSnapshot();
+    }
+  }
+
+  private void expire(final RocksDBSnapshot snapshot) {
+    if (current.compareAndSet(snapshot, null)) {
+      snapshot.unMarkSnapshot();
+    }
+  }
+
+  /** Stop sharing and drop the reference to the current snapshot, readers keep theirs. */
+  @Override
+  public void close() {
+    if (expiry != null) {
+      expiry.shutdownNow();
+    }
+    final RocksDBSnapshot shared = current.getAndSet(null);
+    if (shared != null) {
+      shared.unMarkSnapshot();
+    }
+  }
+}
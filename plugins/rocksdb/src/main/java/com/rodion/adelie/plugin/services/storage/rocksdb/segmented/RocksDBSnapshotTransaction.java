@@ -1,68 +1,67 @@
 package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
 
 import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
 import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBIterator;
+import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBRangeSpliterator;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.tuweni.bytes.Bytes;
 import org.rocksdb.ColumnFamilyHandle;
-import org.rocksdb.OptimisticTransactionDB;
 import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
-import org.rocksdb.Transaction;
-import org.rocksdb.WriteOptions;
+import org.rocksdb.WBWIRocksIterator;
+import org.rocksdb.WriteBatchWithIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** The Rocks db snapshot transaction. */
+/**
+ * The Rocks db snapshot transaction. Reads go straight to the db at the snapshot until the first
+ * write, which begins an indexed write batch that later reads see the writes through, so a read
+ * only snapshot costs no batch. The writes are never committed, so they take no locks.
+ */
 public class RocksDBSnapshotTransaction
     implements SegmentedKeyValueStorageTransaction, AutoCloseable {
   private static final Logger logger = LoggerFactory.getLogger(RocksDBSnapshotTransaction.class);
   private static final String NO_SPACE_LEFT_ON_DEVICE = "No space left on device";
-  private final OptimisticTransactionDB db;
+  private static final int MAX_SCAN_RANGES = ForkJoinPool.getCommonPoolParallelism() * 4;
+  private final RocksDB db;
   private final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper;
-  private final Transaction snapTx;
   private final RocksDBSnapshot snapshot;
-  private final WriteOptions writeOptions;
   private final ReadOptions readOptions;
   private final AtomicBoolean isClosed = new AtomicBoolean(false);
+  private final Set<ColumnFamilyHandle> writtenColumns = ConcurrentHashMap.newKeySet();
+  private volatile WriteBatchWithIndex snapBatch;
 
   /**
    * Instantiates a new RocksDb snapshot transaction.
    *
    * @param db the db
    * @param columnFamilyMapper mapper from segment identifier to column family handle
+   * @param snapshot the snapshot read at, already marked for this transaction
    */
   RocksDBSnapshotTransaction(
-      final OptimisticTransactionDB db,
-      final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper) {
-    this.db = db;
-    this.columnFamilyMapper = columnFamilyMapper;
-    this.snapshot = new RocksDBSnapshot(db);
-    this.writeOptions = new WriteOptions();
-    this.snapTx = db.beginTransaction(writeOptions);
-    this.readOptions =
-        new ReadOptions().setVerifyChecksums(false).setSnapshot(snapshot.markAndUseSnapshot());
-  }
-
-  private RocksDBSnapshotTransaction(
-      final OptimisticTransactionDB db,
+      final RocksDB db,
       final Function<SegmentIdentifier, ColumnFamilyHandle> columnFamilyMapper,
-      final RocksDBSnapshot snapshot,
-      final Transaction snapTx,
-      final ReadOptions readOptions) {
+      final RocksDBSnapshot snapshot) {
     this.db = db;
     this.columnFamilyMapper = columnFamilyMapper;
     this.snapshot = snapshot;
-    this.writeOptions = new WriteOptions();
-    this.readOptions = readOptions;
-    this.snapTx = snapTx;
+    this.readOptions = snapshot.getReadOptions();
   }
 
   /**
@@ -76,7 +75,79 @@ public class RocksDBSnapshotTransaction
     throwIfClosed();
 
     try {
-      return Optional.ofNullable(snapTx.get(readOptions, columnFamilyMapper.apply(segmentId), key));
+      final ColumnFamilyHandle handle = columnFamilyMapper.apply(segmentId);
+      final WriteBatchWithIndex batch = snapBatch;
+      return Optional.ofNullable(
+          batch == null
+              ? db.get(handle, readOptions, key)
+              : batch.getFromBatchAndDB(db, handle, readOptions, key));
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  /**
+   * Get data against given key into a caller supplied buffer.
+   *
+   * @param segmentId the segment id
+   * @param key the key
+   * @param value the buffer the value is written to
+   * @return the size of the value, or {@link SegmentedKeyValueStorage#NOT_FOUND}
+   */
+  public int get(final SegmentIdentifier segmentId, final ByteBuffer key, final ByteBuffer value) {
+    throwIfClosed();
+
+    try {
+      final ColumnFamilyHandle handle = columnFamilyMapper.apply(segmentId);
+      final WriteBatchWithIndex batch = snapBatch;
+      if (batch == null) {
+        return db.get(handle, readOptions, key, value);
+      }
+      // the indexed batch only reads into arrays, copy in and out as the db would
+      final byte[] keyBytes = new byte[key.remaining()];
+      key.get(keyBytes);
+      final byte[] found = batch.getFromBatchAndDB(db, handle, readOptions, keyBytes);
+      if (found == null) {
+        return SegmentedKeyValueStorage.NOT_FOUND;
+      }
+      final int copied = Math.min(found.length, value.remaining());
+      value.put(value.position(), found, 0, copied);
+      value.limit(value.position() + copied);
+      return found.length;
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  /**
+   * Get data against a batch of keys.
+   *
+   * @param segmentId the segment id
+   * @param keys the keys
+   * @return the optional data, in the same order as the supplied keys
+   */
+  public List<Optional<byte[]>> multiGet(
+      final SegmentIdentifier segmentId, final List<byte[]> keys) {
+    throwIfClosed();
+    if (keys.isEmpty()) {
+      return List.of();
+    }
+
+    try {
+      final List<ColumnFamilyHandle> handles =
+          Collections.nCopies(keys.size(), columnFamilyMapper.apply(segmentId));
+      final WriteBatchWithIndex batch = snapBatch;
+      if (batch == null) {
+        return db.multiGetAsList(readOptions, handles, keys).stream()
+            .map(Optional::ofNullable)
+            .toList();
+      }
+      final List<Optional<byte[]>> values = new ArrayList<>(keys.size());
+      for (final byte[] key : keys) {
+        values.add(
+            Optional.ofNullable(batch.getFromBatchAndDB(db, handles.get(0), readOptions, key)));
+      }
+      return values;
     } catch (final RocksDBException e) {
       throw new StorageException(e);
     }
@@ -87,7 +158,22 @@ public class RocksDBSnapshotTransaction
     throwIfClosed();
 
     try {
-      snapTx.put(columnFamilyMapper.apply(segmentId), key, value);
+      batch().put(written(segmentId), key, value);
+    } catch (final RocksDBException e) {
+      if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
+        logger.error(e.getMessage());
+        System.exit(0);
+      }
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void put(final SegmentIdentifier segmentId, final ByteBuffer key, final ByteBuffer value) {
+    throwIfClosed();
+
+    try {
+      batch().put(written(segmentId), key, value);
     } catch (final RocksDBException e) {
       if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
         logger.error(e.getMessage());
@@ -102,7 +188,7 @@ public class RocksDBSnapshotTransaction
     throwIfClosed();
 
     try {
-      snapTx.delete(columnFamilyMapper.apply(segmentId), key);
+      batch().delete(written(segmentId), key);
     } catch (final RocksDBException e) {
       if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
         logger.error(e.getMessage());
@@ -113,7 +199,7 @@ public class RocksDBSnapshotTransaction
   }
 
   /**
-   * get a RocksIterator that reads through the transaction to represent the current state.
+   * get a RocksIterator that reads through the writes to represent the current state.
    *
    * <p>be sure to close this iterator, like in a try-with-resources block, otherwise a native
    * memory leak might occur.
@@ -122,7 +208,22 @@ public class RocksDBSnapshotTransaction
    * @return RocksIterator
    */
   public RocksIterator getIterator(final SegmentIdentifier segmentId) {
-    return snapTx.getIterator(readOptions, columnFamilyMapper.apply(segmentId));
+    final ColumnFamilyHandle handle = columnFamilyMapper.apply(segmentId);
+    final WriteBatchWithIndex batch = snapBatch;
+    final RocksIterator base = db.newIterator(handle, readOptions);
+    return batch == null ? base : batch.newIteratorWithBase(handle, base, readOptions);
+  }
+
+  /**
+   * Open an unpositioned cursor over the segment, reading at the snapshot.
+   *
+   * @param segmentId the segment id
+   * @return the cursor
+   */
+  public KeyValueCursor cursor(final SegmentIdentifier segmentId) {
+    throwIfClosed();
+
+    return RocksDBIterator.create(db.newIterator(columnFamilyMapper.apply(segmentId), readOptions));
   }
 
   /**
@@ -134,10 +235,13 @@ public class RocksDBSnapshotTransaction
   public Stream<Pair<byte[], byte[]>> stream(final SegmentIdentifier segmentId) {
     throwIfClosed();
 
-    final RocksIterator rocksIterator =
-        db.newIterator(columnFamilyMapper.apply(segmentId), readOptions);
-    rocksIterator.seekToFirst();
-    return RocksDBIterator.create(rocksIterator).toStream();
+    final ColumnFamilyHandle handle = columnFamilyMapper.apply(segmentId);
+    return RocksDBRangeSpliterator.stream(
+        rangeReadOptions -> db.newIterator(handle, rangeReadOptions),
+        readOptions,
+        RocksDBRangeSpliterator.partitionBoundaries(
+            db.getColumnFamilyMetaData(handle), MAX_SCAN_RANGES),
+        () -> {});
   }
 
   /**
@@ -187,15 +291,34 @@ public class RocksDBSnapshotTransaction
    */
   public Stream<Pair<byte[], byte[]>> streamFromKey(
       final SegmentIdentifier segment, final byte[] startKey, final byte[] endKey) {
+    return streamFromKey(segment, startKey, endKey, false);
+  }
+
+  /**
+   * Returns a stream of key-value pairs in the inclusive range between the specified keys, with the
+   * bounds pushed down into the RocksDB read options.
+   *
+   * @param segment The segment identifier whose keys we want to stream.
+   * @param startKey The key from which the stream should start.
+   * @param endKey The key at which the stream should stop.
+   * @param prefixSameAsStart whether iteration may stop once keys leave the start key prefix
+   * @return A stream of key-value pairs starting from the specified key.
+   */
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segment,
+      final byte[] startKey,
+      final byte[] endKey,
+      final boolean prefixSameAsStart) {
     throwIfClosed();
-    final Bytes endKeyBytes = Bytes.wrap(endKey);
+    final ColumnFamilyHandle handle = columnFamilyMapper.apply(segment);
 
-    final RocksIterator rocksIterator =
-        db.newIterator(columnFamilyMapper.apply(segment), readOptions);
-    rocksIterator.seek(startKey);
-    return RocksDBIterator.create(rocksIterator)
-        .toStream()
-        .takeWhile(e -> endKeyBytes.compareTo(Bytes.wrap(e.getKey())) >= 0);
+    return RocksDBIterator.createBounded(
+            boundedReadOptions -> db.newIterator(handle, boundedReadOptions),
+            readOptions,
+            startKey,
+            endKey,
+            prefixSameAsStart)
+        .toStream();
   }
 
   @Override
@@ -207,46 +330,75 @@ public class RocksDBSnapshotTransaction
   public void rollback() {
     throwIfClosed();
 
-    try {
-      snapTx.rollback();
-    } catch (final RocksDBException e) {
-      if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
-        logger.error(e.getMessage());
-        System.exit(0);
-      }
-      throw new StorageException(e);
-    } finally {
-      close();
-    }
+    close();
   }
 
   /**
-   * Copy.
+   * Copy, sharing the snapshot and carrying over the writes made so far.
    *
    * @return the rocks db snapshot transaction
    */
   public RocksDBSnapshotTransaction copy() {
     throwIfClosed();
+    snapshot.markAndUseSnapshot();
+    final RocksDBSnapshotTransaction copy =
+        new RocksDBSnapshotTransaction(db, columnFamilyMapper, snapshot);
     try {
-      var copyReadOptions = new ReadOptions().setSnapshot(snapshot.markAndUseSnapshot());
-      var copySnapTx = db.beginTransaction(writeOptions);
-      copySnapTx.rebuildFromWriteBatch(snapTx.getWriteBatch().getWriteBatch());
-      return new RocksDBSnapshotTransaction(
-          db, columnFamilyMapper, snapshot, copySnapTx, copyReadOptions);
+      final WriteBatchWithIndex batch = snapBatch;
+      if (batch != null) {
+        for (final ColumnFamilyHandle handle : writtenColumns) {
+          copy.replay(handle, batch);
+        }
+      }
+      return copy;
     } catch (Exception ex) {
       logger.error("Failed to copy snapshot transaction", ex);
-      snapshot.unMarkSnapshot();
+      copy.close();
       throw new StorageException(ex);
     }
   }
 
   @Override
   public void close() {
-    snapTx.close();
-    writeOptions.close();
-    readOptions.close();
+    if (!isClosed.compareAndSet(false, true)) {
+      return;
+    }
+    synchronized (this) {
+      if (snapBatch != null) {
+        snapBatch.close();
+      }
+    }
     snapshot.unMarkSnapshot();
-    isClosed.set(true);
+  }
+
+  // replays the latest write of each key of another batch to a column family
+  private void replay(final ColumnFamilyHandle handle, final WriteBatchWithIndex source)
+      throws RocksDBException {
+    writtenColumns.add(handle);
+    try (final WBWIRocksIterator entries = source.newIterator(handle)) {
+      for (entries.seekToFirst(); entries.isValid(); entries.next()) {
+        final WBWIRocksIterator.WriteEntry entry = entries.entry();
+        switch (entry.getType()) {
+          case PUT -> batch().put(handle, entry.getKey().data(), entry.getValue().data());
+          case DELETE, SINGLE_DELETE -> batch().delete(handle, entry.getKey().data());
+          default -> throw new StorageException("Cannot copy a " + entry.getType() + " write");
+        }
+      }
+    }
+  }
+
+  private ColumnFamilyHandle written(final SegmentIdentifier segmentId) {
+    final ColumnFamilyHandle handle = columnFamilyMapper.apply(segmentId);
+    writtenColumns.add(handle);
+    return handle;
+  }
+
+  // begins the batch on the first write, indexed with one entry per key
+  private synchronized WriteBatchWithIndex batch() {
+    if (snapBatch == null) {
+      snapBatch = new WriteBatchWithIndex(true);
+    }
+    return snapBatch;
   }
 
   private void throwIfClosed() {
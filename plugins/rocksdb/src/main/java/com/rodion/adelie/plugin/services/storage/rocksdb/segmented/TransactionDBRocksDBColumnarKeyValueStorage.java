@@ -3,6 +3,7 @@ package com.rodion.adelie.plugin.services.storage.rocksdb.segmented;
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.SnappableKeyValueStorage;
 import com.rodion.adelie.plugin.services.storage.rocksdb.RocksDBTransaction;
 import com.rodion.adelie.plugin.services.storage.rocksdb.configuration.RocksDBConfiguration;
 import com.rodion.adelie.services.kvstore.SegmentedKeyValueStorageTransactionValidatorDecorator;
@@ -13,7 +14,8 @@ import org.rocksdb.TransactionDB;
 import org.rocksdb.WriteOptions;
 
 /** TransactionDB RocksDB Columnar key value storage */
-public class TransactionDBRocksDBColumnarKeyValueStorage extends RocksDBColumnarKeyValueStorage {
+public class TransactionDBRocksDBColumnarKeyValueStorage extends RocksDBColumnarKeyValueStorage
+    implements SnappableKeyValueStorage {
 
   private final TransactionDB db;
 
@@ -41,6 +43,8 @@ public class TransactionDBRocksDBColumnarKeyValueStorage extends RocksDBColumnar
               columnDescriptors,
               columnHandles);
       initColumnHandles();
+      snapshotManager =
+          new RocksDBSnapshotManager(db, configuration.getSnapshotMaxStalenessMillis());
 
     } catch (final RocksDBException e) {
       throw parseRocksDBException(e, segments, ignorableSegments);
@@ -68,4 +72,18 @@ public class TransactionDBRocksDBColumnarKeyValueStorage extends RocksDBColumnar
             this::safeColumnHandle, db.beginTransaction(writeOptions), writeOptions),
         this.closed::get);
   }
+
+  /**
+   * Take snapshot RocksDb columnar key value snapshot. Reads never lock, so a snapshot does not
+   * block writers however long it is held open.
+   *
+   * @return the RocksDb columnar key value snapshot
+   * @throws StorageException the storage exception
+   */
+  @Override
+  public RocksDBColumnarKeyValueSnapshot takeSnapshot() throws StorageException {
+    throwIfClosed();
+    return new RocksDBColumnarKeyValueSnapshot(
+        db, this::safeColumnHandle, snapshotManager.acquire());
+  }
 }
@@ -0,0 +1,70 @@
+package com.rodion.adelie.services.kvstore;
+
+/**
+ * A count-min sketch of 4 bit counters estimating how often keys were seen, used as a TinyLFU
+ * admission filter. Counters are halved once the number of increments reaches ten times the
+ * capacity, so the estimates favour recent popularity.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int counterMask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Instantiates a new frequency sketch.
+   *
+   * @param capacity the expected number of distinct keys held by the cache
+   */
+  FrequencySketch(final long capacity) {
+    // four counters per expected key, rounded up to a power of two
+    final int counters =
+        Integer.highestOneBit((int) Math.min(Math.max(capacity, 16), 1 << 24) - 1) << 3;
+    this.table = new long[counters >>> 4];
+    this.counterMask = counters - 1;
+    this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Record an occurrence of a key and estimate how often it was seen, including this occurrence.
+   *
+   * @param hash a well mixed hash of the key
+   * @return the estimated frequency, at most 15
+   */
+  synchronized int increment(final int hash) {
+    int frequency = 15;
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      final int counter = counterIndex(hash, i);
+      final int shift = (counter & 15) << 2;
+      final int count = (int) ((table[counter >>> 4] >>> shift) & 0xf);
+      if (count < 15) {
+        table[counter >>> 4] += 1L << shift;
+        added = true;
+      }
+      frequency = Math.min(frequency, Math.min(count + 1, 15));
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+    return frequency;
+  }
+
+  private int counterIndex(final int hash, final int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return (int) h & counterMask;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions >>>= 1;
+  }
+}
@@ -0,0 +1,78 @@
+package com.rodion.adelie.services.kvstore;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * A cursor over the sorted map of an in-memory segment. The key and value buffers wrap the stored
+ * arrays, no bytes are copied.
+ */
+class InMemoryKeyValueCursor implements KeyValueCursor {
+
+  private final NavigableMap<byte[], byte[]> map;
+  private Iterator<Map.Entry<byte[], byte[]>> iterator;
+  private Map.Entry<byte[], byte[]> current;
+  private boolean closed;
+
+  /**
+   * Instantiates a new in-memory cursor.
+   *
+   * @param map the sorted map of the segment
+   */
+  InMemoryKeyValueCursor(final NavigableMap<byte[], byte[]> map) {
+    this.map = map;
+  }
+
+  @Override
+  public void seekToFirst() {
+    checkState(!closed, "Cannot seek a closed cursor.");
+    iterator = map.entrySet().iterator();
+    advance();
+  }
+
+  @Override
+  public void seek(final byte[] key) {
+    checkState(!closed, "Cannot seek a closed cursor.");
+    iterator = map.tailMap(key, true).entrySet().iterator();
+    advance();
+  }
+
+  @Override
+  public boolean isValid() {
+    return !closed && current != null;
+  }
+
+  @Override
+  public void next() {
+    checkState(isValid(), "Cannot move a cursor that is not positioned at an entry.");
+    advance();
+  }
+
+  @Override
+  public ByteBuffer key() {
+    checkState(isValid(), "Cannot read a cursor that is not positioned at an entry.");
+    return ByteBuffer.wrap(current.getKey()).asReadOnlyBuffer();
+  }
+
+  @Override
+  public ByteBuffer value() {
+    checkState(isValid(), "Cannot read a cursor that is not positioned at an entry.");
+    return ByteBuffer.wrap(current.getValue()).asReadOnlyBuffer();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    iterator = null;
+    current = null;
+  }
+
+  private void advance() {
+    current = iterator.hasNext() ? iterator.next() : null;
+  }
+}
@@ -0,0 +1,70 @@
+package com.rodion.adelie.services.kvstore;
+
+import com.rodion.adelie.plugin.services.AdelieConfiguration;
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.KeyValueStorageFactory;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import java.util.List;
+
+/**
+ * The in-memory key value storage factory. Every storage it creates shares one {@link
+ * SegmentedInMemoryKeyValueStorage}, nothing is persisted and the data is dropped when the factory
+ * is closed.
+ */
+public class InMemoryKeyValueStorageFactory implements KeyValueStorageFactory {
+
+  private final String name;
+
+  private final List<SegmentIdentifier> configuredSegments;
+
+  private SegmentedInMemoryKeyValueStorage segmentedStorage;
+
+  /**
+   * Instantiates a new in-memory key value storage factory.
+   *
+   * @param name the name the factory is registered under
+   * @param configuredSegments the segments
+   */
+  public InMemoryKeyValueStorageFactory(
+      final String name, final List<SegmentIdentifier> configuredSegments) {
+    this.name = name;
+    this.configuredSegments = configuredSegments;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public KeyValueStorage create(
+      final SegmentIdentifier segment, final AdelieConfiguration configuration)
+      throws StorageException {
+    return new SegmentedKeyValueStorageAdapter(segment, create(List.of(segment), configuration));
+  }
+
+  @Override
+  public synchronized SegmentedKeyValueStorage create(
+      final List<SegmentIdentifier> segments, final AdelieConfiguration configuration)
+      throws StorageException {
+    if (segmentedStorage == null || segmentedStorage.isClosed()) {
+      segmentedStorage = new SegmentedInMemoryKeyValueStorage(configuredSegments);
+    }
+    return segmentedStorage;
+  }
+
+  @Override
+  public boolean isSegmentIsolationSupported() {
+    return true;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (segmentedStorage != null) {
+      segmentedStorage.close();
+      segmentedStorage = null;
+    }
+  }
+}
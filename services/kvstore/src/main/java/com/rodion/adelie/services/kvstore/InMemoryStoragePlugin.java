@@ -0,0 +1,66 @@
+package com.rodion.adelie.services.kvstore;
+
+import com.rodion.adelie.plugin.AdelieContext;
+import com.rodion.adelie.plugin.AdeliePlugin;
+import com.rodion.adelie.plugin.services.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers the in-memory key value storage, selected with {@code --key-value-storage=memory}. It
+ * suits ephemeral runs and benchmarks, as nothing survives a restart.
+ */
+public class InMemoryStoragePlugin implements AdeliePlugin {
+
+  private static final Logger logger = LoggerFactory.getLogger(InMemoryStoragePlugin.class);
+
+  /** The name the storage factory is registered under. */
+  public static final String NAME = "memory";
+
+  private AdelieContext context;
+
+  private InMemoryKeyValueStorageFactory factory;
+
+  /** Instantiates a new in-memory storage plugin. */
+  public InMemoryStoragePlugin() {}
+
+  @Override
+  public void register(final AdelieContext context) {
+    logger.debug("Registering plugin");
+    this.context = context;
+    createFactoriesAndRegisterWithStorageService();
+    logger.debug("Plugin registered");
+  }
+
+  @Override
+  public void start() {
+    logger.debug("Starting plugin.");
+    if (factory == null) {
+      createFactoriesAndRegisterWithStorageService();
+    }
+  }
+
+  @Override
+  public void stop() {
+    logger.debug("Stopping plugin.");
+    if (factory != null) {
+      factory.close();
+      factory = null;
+    }
+  }
+
+  private void createAndRegister(final StorageService service) {
+    factory = new InMemoryKeyValueStorageFactory(NAME, service.getAllSegmentIdentifiers());
+    logger.info("Registering in-memory kv storage factory with storage service");
+    service.registerKeyValueStorage(factory);
+  }
+
+  private void createFactoriesAndRegisterWithStorageService() {
+    context
+        .getService(StorageService.class)
+        .ifPresentOrElse(
+            this::createAndRegister,
+            () ->
+                logger.error("Failed to register KeyValueFactory due to missing StorageService."));
+  }
+}
@@ -0,0 +1,80 @@
+package com.rodion.adelie.services.kvstore;
+
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.SnappedKeyValueStorage;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A point-in-time copy of a {@link SegmentedInMemoryKeyValueStorage}. Writes through the snapshot
+ * transaction are applied to the copy immediately, so reads on the snapshot see them, and are
+ * discarded with the snapshot.
+ */
+public class SegmentedInMemoryKeyValueSnapshot extends SegmentedInMemoryKeyValueStorage
+    implements SnappedKeyValueStorage {
+
+  private final SnapshotTransaction snapTx = new SnapshotTransaction();
+
+  /**
+   * Instantiates a new in-memory snapshot.
+   *
+   * @param segmentMaps the copied sorted maps of each segment
+   */
+  SegmentedInMemoryKeyValueSnapshot(
+      final Map<SegmentIdentifier, NavigableMap<byte[], byte[]>> segmentMaps) {
+    super(segmentMaps);
+  }
+
+  @Override
+  public SegmentedKeyValueStorageTransaction startTransaction() throws StorageException {
+    // The snapshot is already isolated from its parent, return our snapshot transaction instead.
+    return snapTx;
+  }
+
+  @Override
+  public SegmentedKeyValueStorageTransaction getSnapshotTransaction() {
+    return snapTx;
+  }
+
+  /** Writes straight into the snapshot, rolling back discards the whole snapshot. */
+  private class SnapshotTransaction implements SegmentedKeyValueStorageTransaction {
+
+    @Override
+    public void put(
+        final SegmentIdentifier segmentIdentifier, final byte[] key, final byte[] value) {
+      throwIfClosed();
+      final Lock lock = rwLock.writeLock();
+      lock.lock();
+      try {
+        segmentMap(segmentIdentifier).put(key, value);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void remove(final SegmentIdentifier segmentIdentifier, final byte[] key) {
+      throwIfClosed();
+      final Lock lock = rwLock.writeLock();
+      lock.lock();
+      try {
+        segmentMap(segmentIdentifier).remove(key);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      // no-op
+    }
+
+    @Override
+    public void rollback() {
+      close();
+    }
+  }
+}
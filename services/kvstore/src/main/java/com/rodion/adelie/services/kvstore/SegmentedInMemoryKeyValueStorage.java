@@ -0,0 +1,314 @@
+package com.rodion.adelie.services.kvstore;
+
+import static java.util.stream.Collectors.toUnmodifiableSet;
+
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.SnappableKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.SnappedKeyValueStorage;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.tuweni.bytes.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Segmented key value storage held in memory, with one sorted concurrent map per segment. Keys are
+ * ordered as unsigned bytes, the same order as the RocksDB default comparator.
+ *
+ * <p>Transactions are applied atomically across segments. Streams and cursors are weakly consistent
+ * and may observe commits made while they are open, a snapshot gives a point-in-time view.
+ */
+public class SegmentedInMemoryKeyValueStorage implements SnappableKeyValueStorage {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(SegmentedInMemoryKeyValueStorage.class);
+
+  /** Unsigned lexicographic key order. */
+  static final Comparator<byte[]> KEY_ORDER = Arrays::compareUnsigned;
+
+  /** The sorted maps of each segment. */
+  protected final Map<SegmentIdentifier, NavigableMap<byte[], byte[]>> segmentMaps;
+
+  /** Commits take the write lock, so that readers never see a partially applied transaction. */
+  protected final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  /** Instantiates a new in-memory storage, segments are created on first use. */
+  public SegmentedInMemoryKeyValueStorage() {
+    this(List.of());
+  }
+
+  /**
+   * Instantiates a new in-memory storage.
+   *
+   * @param segments the segments to create upfront
+   */
+  public SegmentedInMemoryKeyValueStorage(final List<SegmentIdentifier> segments) {
+    this.segmentMaps = new ConcurrentHashMap<>();
+    segments.forEach(segment -> segmentMaps.put(segment, new ConcurrentSkipListMap<>(KEY_ORDER)));
+  }
+
+  /**
+   * Instantiates a new in-memory storage over existing segment maps.
+   *
+   * @param segmentMaps the sorted maps of each segment
+   */
+  protected SegmentedInMemoryKeyValueStorage(
+      final Map<SegmentIdentifier, NavigableMap<byte[], byte[]>> segmentMaps) {
+    this.segmentMaps = new ConcurrentHashMap<>(segmentMaps);
+  }
+
+  @Override
+  public Optional<byte[]> get(final SegmentIdentifier segment, final byte[] key)
+      throws StorageException {
+    throwIfClosed();
+    final Lock lock = rwLock.readLock();
+    lock.lock();
+    try {
+      return Optional.ofNullable(segmentMap(segment).get(key));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Optional<byte[]>> multiGet(final SegmentIdentifier segment, final List<byte[]> keys)
+      throws StorageException {
+    throwIfClosed();
+    final NavigableMap<byte[], byte[]> map = segmentMap(segment);
+    final Lock lock = rwLock.readLock();
+    lock.lock();
+    try {
+      return keys.stream().map(key -> Optional.ofNullable(map.get(key))).toList();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<NearestKeyValue> getNearestTo(
+      final SegmentIdentifier segmentIdentifier, final Bytes key) throws StorageException {
+    throwIfClosed();
+    final Lock lock = rwLock.readLock();
+    lock.lock();
+    try {
+      return Optional.ofNullable(segmentMap(segmentIdentifier).floorEntry(key.toArrayUnsafe()))
+          .map(
+              entry ->
+                  new NearestKeyValue(Bytes.wrap(entry.getKey()), Optional.of(entry.getValue())));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public SegmentedKeyValueStorageTransaction startTransaction() throws StorageException {
+    throwIfClosed();
+    return new SegmentedKeyValueStorageTransactionValidatorDecorator(
+        new InMemoryTransaction(), this::isClosed);
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> stream(final SegmentIdentifier segmentIdentifier) {
+    throwIfClosed();
+    return toPairs(segmentMap(segmentIdentifier));
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier, final byte[] startKey) {
+    throwIfClosed();
+    return toPairs(segmentMap(segmentIdentifier).tailMap(startKey, true));
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier, final byte[] startKey, final byte[] endKey) {
+    throwIfClosed();
+    if (KEY_ORDER.compare(startKey, endKey) > 0) {
+      return Stream.empty();
+    }
+    return toPairs(segmentMap(segmentIdentifier).subMap(startKey, true, endKey, true));
+  }
+
+  @Override
+  public KeyValueCursor cursor(final SegmentIdentifier segmentIdentifier) throws StorageException {
+    throwIfClosed();
+    return new InMemoryKeyValueCursor(segmentMap(segmentIdentifier));
+  }
+
+  @Override
+  public Stream<byte[]> streamKeys(final SegmentIdentifier segmentIdentifier) {
+    throwIfClosed();
+    return segmentMap(segmentIdentifier).keySet().stream();
+  }
+
+  @Override
+  public boolean tryDelete(final SegmentIdentifier segmentIdentifier, final byte[] key)
+      throws StorageException {
+    throwIfClosed();
+    final Lock lock = rwLock.writeLock();
+    if (lock.tryLock()) {
+      try {
+        segmentMap(segmentIdentifier).remove(key);
+      } finally {
+        lock.unlock();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public Set<byte[]> getAllKeysThat(
+      final SegmentIdentifier segmentIdentifier, final Predicate<byte[]> returnCondition) {
+    return streamKeys(segmentIdentifier).filter(returnCondition).collect(toUnmodifiableSet());
+  }
+
+  @Override
+  public Set<byte[]> getAllValuesFromKeysThat(
+      final SegmentIdentifier segmentIdentifier, final Predicate<byte[]> returnCondition) {
+    return stream(segmentIdentifier)
+        .filter(pair -> returnCondition.test(pair.getKey()))
+        .map(Pair::getValue)
+        .collect(toUnmodifiableSet());
+  }
+
+  @Override
+  public void clear(final SegmentIdentifier segmentIdentifier) {
+    throwIfClosed();
+    final Lock lock = rwLock.writeLock();
+    lock.lock();
+    try {
+      segmentMap(segmentIdentifier).clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) {
+      segmentMaps.clear();
+    }
+  }
+
+  /**
+   * Takes a snapshot by copying every segment, reads and writes through the snapshot never affect
+   * this storage.
+   *
+   * @return the snapped key value storage
+   */
+  @Override
+  public SnappedKeyValueStorage takeSnapshot() {
+    throwIfClosed();
+    final Map<SegmentIdentifier, NavigableMap<byte[], byte[]>> copy = new HashMap<>();
+    final Lock lock = rwLock.readLock();
+    lock.lock();
+    try {
+      segmentMaps.forEach((segment, map) -> copy.put(segment, new ConcurrentSkipListMap<>(map)));
+    } finally {
+      lock.unlock();
+    }
+    return new SegmentedInMemoryKeyValueSnapshot(copy);
+  }
+
+  /**
+   * Gets the sorted map of a segment, creating it on first use.
+   *
+   * @param segmentIdentifier the segment identifier
+   * @return the sorted map of the segment
+   */
+  protected final NavigableMap<byte[], byte[]> segmentMap(
+      final SegmentIdentifier segmentIdentifier) {
+    return segmentMaps.computeIfAbsent(
+        segmentIdentifier, __ -> new ConcurrentSkipListMap<>(KEY_ORDER));
+  }
+
+  /** Throw if the storage is closed. */
+  protected void throwIfClosed() {
+    if (closed.get()) {
+      logger.error("Attempting to use a closed SegmentedInMemoryKeyValueStorage");
+      throw new StorageException("Storage has been closed");
+    }
+  }
+
+  private static Stream<Pair<byte[], byte[]>> toPairs(final NavigableMap<byte[], byte[]> map) {
+    return map.entrySet().stream().map(entry -> Pair.of(entry.getKey(), entry.getValue()));
+  }
+
+  /** Buffers updates and applies them to all segments at once on commit. */
+  private class InMemoryTransaction implements SegmentedKeyValueStorageTransaction {
+
+    private final Map<SegmentIdentifier, NavigableMap<byte[], byte[]>> updatedValues =
+        new HashMap<>();
+    private final Map<SegmentIdentifier, NavigableSet<byte[]>> removedKeys = new HashMap<>();
+
+    @Override
+    public void put(
+        final SegmentIdentifier segmentIdentifier, final byte[] key, final byte[] value) {
+      updatedValues
+          .computeIfAbsent(segmentIdentifier, __ -> new TreeMap<>(KEY_ORDER))
+          .put(key, value);
+      final NavigableSet<byte[]> removed = removedKeys.get(segmentIdentifier);
+      if (removed != null) {
+        removed.remove(key);
+      }
+    }
+
+    @Override
+    public void remove(final SegmentIdentifier segmentIdentifier, final byte[] key) {
+      removedKeys.computeIfAbsent(segmentIdentifier, __ -> new TreeSet<>(KEY_ORDER)).add(key);
+      final NavigableMap<byte[], byte[]> updated = updatedValues.get(segmentIdentifier);
+      if (updated != null) {
+        updated.remove(key);
+      }
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      final Lock lock = rwLock.writeLock();
+      lock.lock();
+      try {
+        removedKeys.forEach((segment, keys) -> keys.forEach(segmentMap(segment)::remove));
+        updatedValues.forEach((segment, values) -> segmentMap(segment).putAll(values));
+      } finally {
+        lock.unlock();
+      }
+      rollback();
+    }
+
+    @Override
+    public void rollback() {
+      updatedValues.clear();
+      removedKeys.clear();
+    }
+  }
+}
@@ -3,11 +3,14 @@ package com.rodion.adelie.services.kvstore;
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import com.rodion.adelie.plugin.services.storage.*;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.tuweni.bytes.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +58,19 @@ public class SegmentedKeyValueStorageAdapter implements KeyValueStorage {
     return storage.get(segmentIdentifier, key);
   }
 
+  @Override
+  public List<Optional<byte[]>> multiGet(final List<byte[]> keys) throws StorageException {
+    throwIfClosed();
+    return storage.multiGet(segmentIdentifier, keys);
+  }
+
+  @Override
+  public Optional<SegmentedKeyValueStorage.NearestKeyValue> getNearestTo(final Bytes key)
+      throws StorageException {
+    throwIfClosed();
+    return storage.getNearestTo(segmentIdentifier, key);
+  }
+
   @Override
   public Set<byte[]> getAllKeysThat(final Predicate<byte[]> returnCondition) {
     throwIfClosed();
@@ -84,6 +100,17 @@ public class SegmentedKeyValueStorageAdapter implements KeyValueStorage {
     return storage.streamFromKey(segmentIdentifier, startKey, endKey);
   }
 
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamByPrefix(final byte[] prefix) {
+    return storage.streamByPrefix(segmentIdentifier, prefix);
+  }
+
+  @Override
+  public KeyValueCursor cursor() throws StorageException {
+    throwIfClosed();
+    return storage.cursor(segmentIdentifier);
+  }
+
   @Override
   public Stream<byte[]> streamKeys() {
     throwIfClosed();
@@ -106,6 +133,19 @@ public class SegmentedKeyValueStorageAdapter implements KeyValueStorage {
     return new KeyValueStorageTransactionAdapter(segmentIdentifier, storage);
   }
 
+  @Override
+  public KeyValueStorageTransaction startBatch(final WriteDurability durability)
+      throws StorageException {
+    throwIfClosed();
+    return new KeyValueStorageTransactionAdapter(segmentIdentifier, storage.startBatch(durability));
+  }
+
+  @Override
+  public void ingest(final Iterator<Pair<byte[], byte[]>> sortedEntries) throws StorageException {
+    throwIfClosed();
+    storage.ingest(segmentIdentifier, sortedEntries);
+  }
+
   @Override
   public boolean isClosed() {
     return storage.isClosed();
@@ -131,7 +171,20 @@ public class SegmentedKeyValueStorageAdapter implements KeyValueStorage {
      */
     public KeyValueStorageTransactionAdapter(
         final SegmentIdentifier segmentIdentifier, final SegmentedKeyValueStorage storage) {
-      this.segmentedTransaction = storage.startTransaction();
+      this(segmentIdentifier, storage.startTransaction());
+    }
+
+    /**
+     * Instantiates a new Key value storage transaction adapter over an already started segmented
+     * transaction.
+     *
+     * @param segmentIdentifier the segmentIdentifier to use for the wrapped transaction
+     * @param segmentedTransaction the segmented transaction
+     */
+    public KeyValueStorageTransactionAdapter(
+        final SegmentIdentifier segmentIdentifier,
+        final SegmentedKeyValueStorageTransaction segmentedTransaction) {
+      this.segmentedTransaction = segmentedTransaction;
       this.segmentIdentifier = segmentIdentifier;
     }
 
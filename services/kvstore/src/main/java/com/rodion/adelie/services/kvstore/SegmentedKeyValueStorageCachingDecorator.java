@@ -0,0 +1,441 @@
+package com.rodion.adelie.services.kvstore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.rodion.adelie.plugin.services.MetricsSystem;
+import com.rodion.adelie.plugin.services.exception.StorageException;
+import com.rodion.adelie.plugin.services.storage.KeyValueCursor;
+import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorage;
+import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import com.rodion.adelie.plugin.services.storage.WriteDurability;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.tuweni.bytes.Bytes;
+
+/**
+ * Decorates a segmented storage with an on-heap read-through cache of values, for segments whose
+ * hot keys are read far more often than they are written. Each cached segment has its own byte
+ * budget, evicting least recently used entries, and a key is only admitted once it has been missed
+ * before, so one-off reads and scans do not flush the hot keys.
+ *
+ * <p>Point reads of cached segments are served from the cache, range reads always go to the
+ * storage. Writes go to the storage and invalidate the keys they touch once committed, and a value
+ * read from the storage is not cached if a commit raced with the read.
+ */
+public class SegmentedKeyValueStorageCachingDecorator implements SegmentedKeyValueStorage {
+
+  // approximate heap overhead of an entry, its key and value wrappers
+  private static final int ENTRY_OVERHEAD = 96;
+  private static final int AVERAGE_ENTRY_SIZE = 256;
+  private static final int ADMISSION_FREQUENCY = 2;
+  private static final HashFunction KEY_HASH = Hashing.murmur3_32_fixed();
+
+  private final SegmentedKeyValueStorage storage;
+  private final Map<SegmentIdentifier, SegmentCache> caches = new HashMap<>();
+
+  /**
+   * Instantiates a new caching decorator.
+   *
+   * @param storage the storage to decorate
+   * @param segments the segments to cache, the segments with no value cache budget are not cached
+   */
+  public SegmentedKeyValueStorageCachingDecorator(
+      final SegmentedKeyValueStorage storage, final List<SegmentIdentifier> segments) {
+    this.storage = storage;
+    for (final SegmentIdentifier segment : segments) {
+      if (segment.getValueCacheBytes() > 0) {
+        caches.put(segment, new SegmentCache(segment.getValueCacheBytes()));
+      }
+    }
+  }
+
+  /**
+   * Whether any of the segments has a value cache budget, in which case the storage of the segments
+   * is worth decorating.
+   *
+   * @param segments the segments
+   * @return true if any segment is cached
+   */
+  public static boolean isCached(final List<SegmentIdentifier> segments) {
+    return segments.stream().anyMatch(segment -> segment.getValueCacheBytes() > 0);
+  }
+
+  /**
+   * Register the hit, miss and eviction counts of the cached segments with the metrics system.
+   *
+   * @param metricsSystem the metrics system
+   */
+  public void registerMetrics(final MetricsSystem metricsSystem) {
+    caches.forEach(
+        (segment, cache) -> {
+          final Map<String, String> labels = Map.of("segment", segment.getName());
+          registerGauge(
+              metricsSystem, "hits", "Value cache hits", labels, cache, CacheStats::hitCount);
+          registerGauge(
+              metricsSystem, "misses", "Value cache misses", labels, cache, CacheStats::missCount);
+          registerGauge(
+              metricsSystem,
+              "evictions",
+              "Values evicted from the cache",
+              labels,
+              cache,
+              CacheStats::evictionCount);
+          registerGauge(
+              metricsSystem,
+              "hit_rate",
+              "Ratio of value cache hits to lookups",
+              labels,
+              cache,
+              stats -> stats.requestCount() == 0 ? Double.NaN : stats.hitRate());
+          metricsSystem.createGauge(
+              "kvstore_value_cache_rejections",
+              "Values read but not admitted to the cache",
+              labels,
+              cache.rejections::get);
+          metricsSystem.createGauge(
+              "kvstore_value_cache_entries",
+              "Values held in the cache",
+              labels,
+              cache.values::size);
+        });
+  }
+
+  private static void registerGauge(
+      final MetricsSystem metricsSystem,
+      final String name,
+      final String help,
+      final Map<String, String> labels,
+      final SegmentCache cache,
+      final ToDoubleFunction<CacheStats> value) {
+    metricsSystem.createGauge(
+        "kvstore_value_cache_" + name,
+        help,
+        labels,
+        () -> value.applyAsDouble(cache.values.stats()));
+  }
+
+  @Override
+  public Optional<byte[]> get(final SegmentIdentifier segment, final byte[] key)
+      throws StorageException {
+    final SegmentCache cache = caches.get(segment);
+    if (cache == null) {
+      return storage.get(segment, key);
+    }
+    final Optional<byte[]> cached = cache.values.getIfPresent(Bytes.wrap(key));
+    if (cached != null) {
+      return cached.map(byte[]::clone);
+    }
+    final long generation = cache.writeGeneration.get();
+    final Optional<byte[]> value = storage.get(segment, key);
+    cache.admit(key, value, generation);
+    return value;
+  }
+
+  @Override
+  public int get(final SegmentIdentifier segment, final ByteBuffer key, final ByteBuffer value)
+      throws StorageException {
+    return caches.containsKey(segment)
+        ? SegmentedKeyValueStorage.super.get(segment, key, value)
+        : storage.get(segment, key, value);
+  }
+
+  @Override
+  public List<Optional<byte[]>> multiGet(final SegmentIdentifier segment, final List<byte[]> keys)
+      throws StorageException {
+    final SegmentCache cache = caches.get(segment);
+    if (cache == null) {
+      return storage.multiGet(segment, keys);
+    }
+    final List<Optional<byte[]>> values = new ArrayList<>(keys.size());
+    final List<Integer> missed = new ArrayList<>();
+    for (final byte[] key : keys) {
+      final Optional<byte[]> cached = cache.values.getIfPresent(Bytes.wrap(key));
+      if (cached == null) {
+        missed.add(values.size());
+      }
+      values.add(cached == null ? null : cached.map(byte[]::clone));
+    }
+    if (missed.isEmpty()) {
+      return values;
+    }
+    final long generation = cache.writeGeneration.get();
+    final List<Optional<byte[]>> loaded =
+        storage.multiGet(segment, missed.stream().map(keys::get).toList());
+    for (int i = 0; i < missed.size(); i++) {
+      final int index = missed.get(i);
+      values.set(index, loaded.get(i));
+      cache.admit(keys.get(index), loaded.get(i), generation);
+    }
+    return values;
+  }
+
+  @Override
+  public boolean containsKey(final SegmentIdentifier segment, final byte[] key)
+      throws StorageException {
+    return caches.containsKey(segment)
+        ? get(segment, key).isPresent()
+        : storage.containsKey(segment, key);
+  }
+
+  @Override
+  public Optional<NearestKeyValue> getNearestTo(
+      final SegmentIdentifier segmentIdentifier, final Bytes key) throws StorageException {
+    return storage.getNearestTo(segmentIdentifier, key);
+  }
+
+  @Override
+  public SegmentedKeyValueStorageTransaction startTransaction() throws StorageException {
+    return new InvalidatingTransaction(storage.startTransaction());
+  }
+
+  @Override
+  public SegmentedKeyValueStorageTransaction startBatch(final WriteDurability durability)
+      throws StorageException {
+    return new InvalidatingTransaction(storage.startBatch(durability));
+  }
+
+  @Override
+  public void ingest(
+      final SegmentIdentifier segment, final Iterator<Pair<byte[], byte[]>> sortedEntries)
+      throws StorageException {
+    try {
+      storage.ingest(segment, sortedEntries);
+    } finally {
+      invalidateAll(segment);
+    }
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> stream(final SegmentIdentifier segmentIdentifier) {
+    return storage.stream(segmentIdentifier);
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier, final byte[] startKey) {
+    return storage.streamFromKey(segmentIdentifier, startKey);
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier, final byte[] startKey, final byte[] endKey) {
+    return storage.streamFromKey(segmentIdentifier, startKey, endKey);
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamFromKey(
+      final SegmentIdentifier segmentIdentifier,
+      final byte[] startKey,
+      final byte[] endKey,
+      final boolean prefixSameAsStart) {
+    return storage.streamFromKey(segmentIdentifier, startKey, endKey, prefixSameAsStart);
+  }
+
+  @Override
+  public Stream<Pair<byte[], byte[]>> streamByPrefix(
+      final SegmentIdentifier segmentIdentifier, final byte[] prefix) {
+    return storage.streamByPrefix(segmentIdentifier, prefix);
+  }
+
+  @Override
+  public void forEach(
+      final SegmentIdentifier segmentIdentifier, final BiConsumer<ByteBuffer, ByteBuffer> action)
+      throws StorageException {
+    storage.forEach(segmentIdentifier, action);
+  }
+
+  @Override
+  public KeyValueCursor cursor(final SegmentIdentifier segmentIdentifier) throws StorageException {
+    return storage.cursor(segmentIdentifier);
+  }
+
+  @Override
+  public Stream<byte[]> streamKeys(final SegmentIdentifier segmentIdentifier) {
+    return storage.streamKeys(segmentIdentifier);
+  }
+
+  @Override
+  public boolean tryDelete(final SegmentIdentifier segmentIdentifier, final byte[] key)
+      throws StorageException {
+    final boolean deleted = storage.tryDelete(segmentIdentifier, key);
+    if (deleted) {
+      invalidate(Map.of(segmentIdentifier, List.of(Bytes.wrap(key))));
+    }
+    return deleted;
+  }
+
+  @Override
+  public Set<byte[]> getAllKeysThat(
+      final SegmentIdentifier segmentIdentifier, final Predicate<byte[]> returnCondition) {
+    return storage.getAllKeysThat(segmentIdentifier, returnCondition);
+  }
+
+  @Override
+  public Set<byte[]> getAllValuesFromKeysThat(
+      final SegmentIdentifier segmentIdentifier, final Predicate<byte[]> returnCondition) {
+    return storage.getAllValuesFromKeysThat(segmentIdentifier, returnCondition);
+  }
+
+  @Override
+  public void clear(final SegmentIdentifier segmentIdentifier) {
+    try {
+      storage.clear(segmentIdentifier);
+    } finally {
+      invalidateAll(segmentIdentifier);
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    return storage.isClosed();
+  }
+
+  @Override
+  public void close() throws IOException {
+    caches.values().forEach(cache -> cache.values.invalidateAll());
+    storage.close();
+  }
+
+  private void invalidate(final Map<SegmentIdentifier, List<Bytes>> writtenKeys) {
+    writtenKeys.forEach((segment, keys) -> caches.get(segment).invalidate(keys));
+  }
+
+  private void invalidateAll(final SegmentIdentifier segment) {
+    final SegmentCache cache = caches.get(segment);
+    if (cache != null) {
+      cache.writeGeneration.incrementAndGet();
+      cache.values.invalidateAll();
+    }
+  }
+
+  /**
+   * The values of one segment and the admission filter in front of them. Each segment counts its
+   * own writes, so that commits to other segments do not keep its reads from being cached.
+   */
+  private static final class SegmentCache {
+    private final Cache<Bytes, Optional<byte[]>> values;
+    private final FrequencySketch sketch;
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    private SegmentCache(final long budgetBytes) {
+      checkArgument(budgetBytes > 0, "Value cache budget must be positive");
+      this.values =
+          CacheBuilder.newBuilder()
+              .maximumWeight(budgetBytes)
+              .<Bytes, Optional<byte[]>>weigher(
+                  (key, value) -> ENTRY_OVERHEAD + key.size() + value.map(v -> v.length).orElse(0))
+              .recordStats()
+              .build();
+      this.sketch = new FrequencySketch(budgetBytes / AVERAGE_ENTRY_SIZE);
+    }
+
+    private void admit(final byte[] key, final Optional<byte[]> value, final long generation) {
+      if (sketch.increment(KEY_HASH.hashBytes(key).asInt()) < ADMISSION_FREQUENCY) {
+        rejections.incrementAndGet();
+        return;
+      }
+      final Bytes cacheKey = Bytes.wrap(key.clone());
+      values.put(cacheKey, value.map(byte[]::clone));
+      if (writeGeneration.get() != generation) {
+        values.invalidate(cacheKey);
+      }
+    }
+
+    // the generation moves before the keys are dropped, so a read that raced the write either sees
+    // the new generation and drops what it cached, or cached before the keys are dropped
+    private void invalidate(final List<Bytes> keys) {
+      writeGeneration.incrementAndGet();
+      values.invalidateAll(keys);
+    }
+  }
+
+  /** Forwards to a transaction of the storage, invalidating the written keys once committed. */
+  private final class InvalidatingTransaction implements SegmentedKeyValueStorageTransaction {
+    private final SegmentedKeyValueStorageTransaction transaction;
+    private final Map<SegmentIdentifier, List<Bytes>> writtenKeys = new HashMap<>();
+
+    private InvalidatingTransaction(final SegmentedKeyValueStorageTransaction transaction) {
+      this.transaction = transaction;
+    }
+
+    @Override
+    public void put(
+        final SegmentIdentifier segmentIdentifier, final byte[] key, final byte[] value) {
+      transaction.put(segmentIdentifier, key, value);
+      written(segmentIdentifier, key);
+    }
+
+    @Override
+    public void put(
+        final SegmentIdentifier segmentIdentifier, final ByteBuffer key, final ByteBuffer value) {
+      written(segmentIdentifier, key);
+      transaction.put(segmentIdentifier, key, value);
+    }
+
+    @Override
+    public void remove(final SegmentIdentifier segmentIdentifier, final byte[] key) {
+      transaction.remove(segmentIdentifier, key);
+      written(segmentIdentifier, key);
+    }
+
+    @Override
+    public void remove(final SegmentIdentifier segmentIdentifier, final ByteBuffer key) {
+      written(segmentIdentifier, key);
+      transaction.remove(segmentIdentifier, key);
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      try {
+        transaction.commit();
+      } finally {
+        if (!writtenKeys.isEmpty()) {
+          invalidate(writtenKeys);
+        }
+      }
+    }
+
+    @Override
+    public void rollback() {
+      writtenKeys.clear();
+      transaction.rollback();
+    }
+
+    private void written(final SegmentIdentifier segmentIdentifier, final byte[] key) {
+      if (caches.containsKey(segmentIdentifier)) {
+        writtenKeys
+            .computeIfAbsent(segmentIdentifier, __ -> new ArrayList<>())
+            .add(Bytes.wrap(key.clone()));
+      }
+    }
+
+    // read before the transaction consumes the buffer
+    private void written(final SegmentIdentifier segmentIdentifier, final ByteBuffer key) {
+      if (caches.containsKey(segmentIdentifier)) {
+        writtenKeys
+            .computeIfAbsent(segmentIdentifier, __ -> new ArrayList<>())
+            .add(Bytes.wrapByteBuffer(key.duplicate()).copy());
+      }
+    }
+  }
+}
@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkState;
 import com.rodion.adelie.plugin.services.exception.StorageException;
 import com.rodion.adelie.plugin.services.storage.SegmentIdentifier;
 import com.rodion.adelie.plugin.services.storage.SegmentedKeyValueStorageTransaction;
+import java.nio.ByteBuffer;
 import java.util.function.Supplier;
 
 /** The Key value storage transaction validator decorator. */
@@ -41,6 +42,20 @@ public class SegmentedKeyValueStorageTransactionValidatorDecorator
     transaction.remove(segmentId, key);
   }
 
+  @Override
+  public void put(final SegmentIdentifier segmentId, final ByteBuffer key, final ByteBuffer value) {
+    checkState(active, "Cannot invoke put() on a completed transaction.");
+    checkState(!isClosed.get(), "Cannot invoke put() on a closed storage.");
+    transaction.put(segmentId, key, value);
+  }
+
+  @Override
+  public void remove(final SegmentIdentifier segmentId, final ByteBuffer key) {
+    checkState(active, "Cannot invoke remove() on a completed transaction.");
+    checkState(!isClosed.get(), "Cannot invoke remove() on a closed storage.");
+    transaction.remove(segmentId, key);
+  }
+
   @Override
   public final void commit() throws StorageException {
     checkState(active, "Cannot commit a completed transaction.");